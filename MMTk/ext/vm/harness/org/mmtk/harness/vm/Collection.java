@@ -78,6 +78,24 @@ public class Collection extends org.mmtk.vm.Collection {
     return Mutators.count();
   }
 
+  /**
+   * The harness simulates a uniform memory machine.
+   */
+  @Override
+  public int getNumaNodes() {
+    return 1;
+  }
+
+  @Override
+  public int getCurrentNumaNode() {
+    return 0;
+  }
+
+  @Override
+  public boolean bindToNumaNode(int node) {
+    return false;
+  }
+
   @Override
   public void outOfMemory() {
     throw new OutOfMemory();
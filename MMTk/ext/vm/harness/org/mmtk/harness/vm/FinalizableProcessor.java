@@ -12,6 +12,7 @@
  */
 package org.mmtk.harness.vm;
 
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.vmmagic.pragma.Uninterruptible;
 
@@ -34,4 +35,9 @@ public final class FinalizableProcessor extends org.mmtk.vm.FinalizableProcessor
   public void forward(TraceLocal trace, boolean nursery) {
     Assert.notImplemented();
   }
+
+  @Override
+  public void visit(ReferenceTableVisitor visitor, boolean nursery) {
+    Assert.notImplemented();
+  }
 }
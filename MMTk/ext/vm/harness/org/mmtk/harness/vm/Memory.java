@@ -16,6 +16,13 @@ import static org.vmmagic.unboxed.harness.MemoryConstants.BYTES_IN_WORD;
 import static org.vmmagic.unboxed.harness.MemoryConstants.LOG_BYTES_IN_PAGE;
 import static org.vmmagic.unboxed.harness.MemoryConstants.LOG_BYTES_IN_WORD;
 
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.mmtk.harness.scheduler.Scheduler;
 import org.mmtk.policy.ImmortalSpace;
 import org.mmtk.utility.heap.VMRequest;
@@ -24,6 +31,7 @@ import org.vmmagic.pragma.Interruptible;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.Extent;
+import org.vmmagic.unboxed.Offset;
 import org.vmmagic.unboxed.harness.SimulatedMemory;
 
 @Uninterruptible
@@ -107,6 +115,88 @@ public class Memory extends org.mmtk.vm.Memory {
     return -1;
   }
 
+  @Override
+  public boolean decommit(Address start, int size) {
+    return SimulatedMemory.unmap(start, size) && SimulatedMemory.map(start, size);
+  }
+
+  /**
+   * Simulated memory has no notion of page size, so the advice is
+   * always declined.
+   */
+  @Override
+  public boolean adviseHugePages(Address start, int size) {
+    return false;
+  }
+
+  @Override
+  public long readFileValue(byte[] path) {
+    int length = 0;
+    while (length < path.length && path[length] != 0) length++;
+    try {
+      BufferedReader reader = new BufferedReader(new FileReader(new String(path, 0, length)));
+      try {
+        String line = reader.readLine();
+        return line == null ? -1 : Long.parseLong(line.trim());
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      return -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** Files opened by {@link #openOutputFile}, indexed by descriptor */
+  private static final List<FileOutputStream> outputFiles = new ArrayList<FileOutputStream>();
+
+  @Override
+  public int openOutputFile(byte[] path) {
+    int length = 0;
+    while (length < path.length && path[length] != 0) length++;
+    try {
+      FileOutputStream stream = new FileOutputStream(new String(path, 0, length));
+      synchronized (outputFiles) {
+        outputFiles.add(stream);
+        return outputFiles.size() - 1;
+      }
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public boolean writeOutputFile(int fd, Address start, int bytes) {
+    FileOutputStream stream;
+    synchronized (outputFiles) {
+      stream = outputFiles.get(fd);
+    }
+    byte[] buffer = new byte[bytes];
+    for (int i = 0; i < bytes; i++) {
+      buffer[i] = start.loadByte(Offset.fromIntZeroExtend(i));
+    }
+    try {
+      stream.write(buffer);
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void closeOutputFile(int fd) {
+    FileOutputStream stream;
+    synchronized (outputFiles) {
+      stream = outputFiles.set(fd, null);
+    }
+    try {
+      stream.close();
+    } catch (IOException e) {
+      /* Nothing useful to do */
+    }
+  }
+
   @Override
   public boolean mprotect(Address start, int size) {
     return SimulatedMemory.protect(start, size);
@@ -190,6 +280,11 @@ public class Memory extends org.mmtk.vm.Memory {
   protected int getAlignmentValueConstant() {
     return ObjectModel.ALIGNMENT_VALUE;
   }
+  /** Simulated memory packs bytes into its cells least significant first */
+  @Override
+  protected boolean getLittleEndianConstant() {
+    return true;
+  }
 
   /**
    * @return the vmspacesize
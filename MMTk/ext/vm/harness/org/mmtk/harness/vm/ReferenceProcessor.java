@@ -15,12 +15,14 @@ package org.mmtk.harness.vm;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 import org.mmtk.harness.lang.Trace;
 import org.mmtk.harness.lang.Trace.Item;
 import org.mmtk.harness.lang.runtime.ReferenceValue;
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.ObjectReference;
@@ -138,6 +140,52 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Harness references are not heap objects, so the visitor is passed a
+   * null reference.  Unlike {@link #scan}, which only sees the references
+   * found by the latest stack scan, this keeps every reference discovered
+   * so far in the table until the visitor drops or clears it, as a VM's
+   * reference table would.
+   */
+  @Override
+  public synchronized void visit(ReferenceTableVisitor visitor, boolean nursery) {
+    Clock.stop();
+    Trace.trace(Item.REFERENCES, "Visiting %s references: table = %d, new = %d, %s",
+        semantics,oldRefs.size(), newRefs.size(), nursery  ? "nursery" : "full-heap");
+    Clock.start();
+    if (!nursery) {
+      visitReferenceSet(visitor, oldRefs);
+    }
+    visitReferenceSet(visitor, newRefs);
+    oldRefs.addAll(newRefs);
+    currentRefs.clear();
+    newRefs.clear();
+  }
+
+  /**
+   * Visit a set of references, removing those the visitor does not keep.
+   */
+  private void visitReferenceSet(ReferenceTableVisitor visitor, Set<ReferenceValue> set) {
+    Iterator<ReferenceValue> iter = set.iterator();
+    while (iter.hasNext()) {
+      if (iter.next().visit(visitor) != ReferenceTableVisitor.KEEP) {
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Harness references have no queues.
+   */
+  @Override
+  public boolean enqueueReference(ObjectReference reference) {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    * <p>
@@ -59,6 +59,21 @@ public class Collection extends org.mmtk.vm.Collection {
     return RVMThread.getNumActiveThreads() - RVMThread.getNumActiveDaemons();
   }
 
+  @Override
+  public int getNumaNodes() {
+    return SysCall.sysCall.sysNumaNodes();
+  }
+
+  @Override
+  public int getCurrentNumaNode() {
+    return SysCall.sysCall.sysNumaCurrentNode();
+  }
+
+  @Override
+  public boolean bindToNumaNode(int node) {
+    return SysCall.sysCall.sysThreadBindNode(node) == 0;
+  }
+
   @Override
   @Unpreemptible
   public void blockForGC() {
@@ -18,6 +18,7 @@ import org.jikesrvm.VM;
 import org.jikesrvm.mm.mminterface.Selected;
 import org.jikesrvm.runtime.Magic;
 import org.jikesrvm.util.Services;
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.vmmagic.pragma.NoInline;
 import org.vmmagic.pragma.Uninterruptible;
@@ -211,6 +212,36 @@ public final class FinalizableProcessor extends org.mmtk.vm.FinalizableProcessor
     Collection.scheduleFinalizerThread();
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Objects the visitor finalizes are moved to the table of ready objects
+   * exactly as they are by {@link #scan(TraceLocal, boolean)}.
+   */
+  @Override
+  @UninterruptibleNoWarn
+  public void visit(ReferenceTableVisitor visitor, boolean nursery) {
+    int toIndex = nursery ? nurseryIndex : 0;
+
+    for (int fromIndex = toIndex; fromIndex < maxIndex; fromIndex++) {
+      ObjectReference ref = table.get(fromIndex).toObjectReference();
+      int action = visitor.visitFinalizable(ref);
+
+      if (action == ReferenceTableVisitor.KEEP) {
+        table.set(toIndex++, visitor.getForwardedReference(ref).toAddress());
+      } else if (action == ReferenceTableVisitor.FINALIZE) {
+        ref = visitor.getForwardedReference(ref);
+        Offset offset = Word.fromIntZeroExtend(lastReadyIndex).lsh(LOG_BYTES_IN_ADDRESS).toOffset();
+        Selected.Plan.get().storeObjectReference(Magic.objectAsAddress(readyForFinalize).plus(offset), ref);
+        lastReadyIndex = (lastReadyIndex + 1) % readyForFinalize.length;
+      }
+    }
+    nurseryIndex = maxIndex = toIndex;
+
+    /* Possible schedule finalizers to run */
+    Collection.scheduleFinalizerThread();
+  }
+
   /**
    * Get an object to run finalize().
    *
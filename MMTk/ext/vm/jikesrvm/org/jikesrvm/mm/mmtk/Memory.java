@@ -26,6 +26,7 @@ import org.jikesrvm.VM;
 import org.jikesrvm.objectmodel.JavaHeader;
 import org.jikesrvm.runtime.BootRecord;
 import org.jikesrvm.runtime.Magic;
+import org.jikesrvm.runtime.SysCall;
 import org.mmtk.policy.ImmortalSpace;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.heap.VMRequest;
@@ -85,6 +86,10 @@ import org.vmmagic.unboxed.Offset;
   protected final int getAlignmentValueConstant() {
     return JavaHeader.ALIGNMENT_VALUE;
   }
+  @Override
+  protected final boolean getLittleEndianConstant() {
+    return VM.LittleEndian;
+  }
 
   /** On Intel we align code to 16 bytes as recommended in the optimization manual. */
   @Override
@@ -160,6 +165,53 @@ import org.vmmagic.unboxed.Offset;
     return result.toInt();
   }
 
+  /**
+   * Discarding the pages with madvise keeps the mapping, and with it any
+   * huge page advice.  Where the pages would not then read as zero, fresh
+   * demand-zero memory is mapped over the area (with MAP_FIXED) instead.
+   */
+  @Override
+  public final boolean decommit(Address start, int size) {
+    Extent extent = Extent.fromIntZeroExtend(size);
+    if (org.jikesrvm.runtime.Memory.madvise(start, extent, org.jikesrvm.runtime.Memory.MADV_DONTNEED)) {
+      return true;
+    }
+    Address result = org.jikesrvm.runtime.Memory.dzmmap(start, extent);
+    return result.EQ(start);
+  }
+
+  @Override
+  public final boolean adviseHugePages(Address start, int size) {
+    return org.jikesrvm.runtime.Memory.madvise(start, Extent.fromIntZeroExtend(size),
+                                               org.jikesrvm.runtime.Memory.MADV_HUGEPAGE);
+  }
+
+  @Override
+  public final long readFileValue(byte[] path) {
+    return SysCall.sysCall.sysReadFileValue(path);
+  }
+
+  @Override
+  public final int openOutputFile(byte[] path) {
+    return SysCall.sysCall.sysOpenOutputFile(path);
+  }
+
+  @Override
+  public final boolean writeOutputFile(int fd, Address start, int bytes) {
+    while (bytes > 0) {
+      int written = SysCall.sysCall.sysWriteBytes(fd, start, bytes);
+      if (written <= 0) return false;
+      start = start.plus(written);
+      bytes -= written;
+    }
+    return true;
+  }
+
+  @Override
+  public final void closeOutputFile(int fd) {
+    SysCall.sysCall.sysCloseFile(fd);
+  }
+
   @Override
   public final boolean mprotect(Address start, int size) {
     return org.jikesrvm.runtime.Memory.mprotect(start, Extent.fromIntZeroExtend(size),
@@ -12,6 +12,7 @@
  */
 package org.jikesrvm.mm.mmtk;
 
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.utility.options.Options;
 
@@ -359,6 +360,41 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
     if (TRACE) VM.sysWriteln("Ending ReferenceGlue.scan(",semanticsStr,")");
   }
 
+  /**
+   * {@inheritDoc} Builds a new list of the references the visitor
+   * keeps, and clears the referents of those it clears.  Cleared
+   * references are not enqueued here.
+   * <p>
+   * TODO parallelise this code
+   */
+  @Override
+  public void visit(ReferenceTableVisitor visitor, boolean nursery) {
+    if (TRACE) VM.sysWriteln("Starting ReferenceGlue.visit(",semanticsStr,")");
+    int toIndex = nursery ? nurseryIndex : 0;
+
+    for (int fromIndex = toIndex; fromIndex < maxIndex; fromIndex++) {
+      ObjectReference reference = getReference(fromIndex);
+      ObjectReference referent = getReferent(reference);
+      int action = visitor.visitReference(reference, referent, semantics);
+      if (action == ReferenceTableVisitor.KEEP) {
+        ObjectReference newReference = visitor.getForwardedReference(reference);
+        if (!referent.isNull()) {
+          setReferent(newReference, visitor.getForwardedReference(referent));
+        }
+        setReference(toIndex++, newReference);
+      } else if (action == ReferenceTableVisitor.CLEAR) {
+        if (TRACE_UNREACHABLE) VM.sysWriteln(" UNREACHABLE referent:  ",referent);
+        clearReferent(visitor.getForwardedReference(reference));
+      }
+    }
+    if (Options.verbose.getValue() >= 3) {
+      VM.sysWrite(semanticsStr);
+      VM.sysWriteln(" references: ",maxIndex," -> ",toIndex);
+    }
+    nurseryIndex = maxIndex = toIndex;
+    if (TRACE) VM.sysWriteln("Ending ReferenceGlue.visit(",semanticsStr,")");
+  }
+
   /**
    * This method deals only with soft references. It retains the referent
    * if the reference is definitely reachable.
@@ -409,6 +445,7 @@ public final class ReferenceProcessor extends org.mmtk.vm.ReferenceProcessor {
    * @param addr the address of the Reference object
    * @return <code>true</code> if the reference was enqueued
    */
+  @Override
   public boolean enqueueReference(ObjectReference addr) {
     Reference<?> reference = (Reference<?>)addr.toObject();
     return reference.enqueueInternal();
@@ -15,6 +15,7 @@ package org.mmtk.harness;
 import static org.vmmagic.unboxed.harness.MemoryConstants.BYTES_IN_PAGE;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -269,6 +270,7 @@ public class Harness {
 
   public static void initOnce() {
     if (!initialized) {
+      initArchitecture(Arrays.asList("bits=32"));
       init("plan=org.mmtk.plan.marksweep.MS","bits=32");
     }
   }
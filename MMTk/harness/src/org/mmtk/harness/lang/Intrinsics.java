@@ -12,6 +12,8 @@
  */
 package org.mmtk.harness.lang;
 
+import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
+
 import org.mmtk.harness.Harness;
 import org.mmtk.harness.Mutator;
 import org.mmtk.harness.lang.runtime.ObjectValue;
@@ -21,6 +23,7 @@ import org.mmtk.harness.lang.runtime.WeakReferenceValue;
 import org.mmtk.harness.scheduler.Scheduler;
 import org.mmtk.harness.vm.Collection;
 import org.mmtk.plan.Plan;
+import org.mmtk.vm.VM;
 
 /**
  * "built in" intrinsic functions
@@ -29,6 +32,10 @@ import org.mmtk.plan.Plan;
  * org.mmtk.harness.lang.parser.GlobalDefs
  */
 public class Intrinsics {
+
+  /** Time origin for {@link #millis(Env)} */
+  private static final long START_TIME = System.nanoTime();
+
   /**
    * Force GC
    * @param env Thread-local environment (language-dependent mutator context)
@@ -45,6 +52,22 @@ public class Intrinsics {
     return Collection.getGcCount();
   }
 
+  /**
+   * @param env Thread-local environment (language-dependent mutator context)
+   * @return the time in milliseconds since the harness started
+   */
+  public static int millis(Env env) {
+    return (int) ((System.nanoTime() - START_TIME) / 1000000);
+  }
+
+  /**
+   * @param env Thread-local environment (language-dependent mutator context)
+   * @return the number of kilobytes of heap in use
+   */
+  public static int usedKBytes(Env env) {
+    return VM.activePlan.global().getPagesUsed() << (LOG_BYTES_IN_PAGE - 10);
+  }
+
   /**
    * Return the thread ID
    * @param env Thread-local environment (language-dependent mutator context)
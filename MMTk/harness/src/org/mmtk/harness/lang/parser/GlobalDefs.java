@@ -47,6 +47,8 @@ public class GlobalDefs {
       new IntrinsicMethod("gc",INTRINSICS,"gc"),
       new IntrinsicMethod("gcCount",INTRINSICS,"gcCount"),
       new IntrinsicMethod("tid",INTRINSICS,"threadId"),
+      new IntrinsicMethod("millis",INTRINSICS,"millis"),
+      new IntrinsicMethod("usedKBytes",INTRINSICS,"usedKBytes"),
       new IntrinsicMethod("hash",INTRINSICS,"hash",
           new Class<?>[] { ObjectValue.class }),
       new IntrinsicMethod("random",INTRINSICS,"random",
@@ -15,6 +15,7 @@ package org.mmtk.harness.lang.runtime;
 import org.mmtk.harness.lang.Trace;
 import org.mmtk.harness.lang.Trace.Item;
 import org.mmtk.harness.vm.ObjectModel;
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.vm.ReferenceProcessor.Semantics;
 import org.vmmagic.unboxed.ObjectReference;
@@ -109,6 +110,25 @@ public abstract class ReferenceValue extends Value {
     processReference(trace);
   }
 
+  /**
+   * GC-time processing of the contained object by a collector that visits
+   * the reference tables rather than tracing through them.  The reference
+   * is cleared, or its referent forwarded, as the visitor directs.
+   *
+   * @param visitor The collector's visitor
+   * @return The visitor's action for this reference
+   */
+  public int visit(ReferenceTableVisitor visitor) {
+    ObjectReference referent = getObjectValue();
+    int action = visitor.visitReference(ObjectReference.nullReference(), referent, semantics);
+    if (action == ReferenceTableVisitor.CLEAR) {
+      clear();
+    } else if (action == ReferenceTableVisitor.KEEP && !referent.isNull()) {
+      ref = visitor.getForwardedReference(referent);
+    }
+    return action;
+  }
+
   @Override
   public boolean equals(Object o) {
     return this == o;
@@ -14,6 +14,7 @@ package org.mmtk.plan;
 
 import org.mmtk.utility.alloc.Allocator;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.statistics.GCEventTrace;
 
 import org.mmtk.vm.VM;
 
@@ -76,6 +77,9 @@ public abstract class CollectorContext {
   /** Used for printing log information in a thread safe manner */
   protected final Log log = new Log();
 
+  /** This collector's ring of GC events */
+  private final GCEventTrace eventTrace = new GCEventTrace();
+
   /****************************************************************************
    *
    * Initialization
@@ -199,4 +203,12 @@ public abstract class CollectorContext {
   public int getId() {
     return id;
   }
+
+  /**
+   * @return This collector's ring of GC events.
+   */
+  @Inline
+  public final GCEventTrace getEventTrace() {
+    return eventTrace;
+  }
 }
@@ -111,6 +111,7 @@ public class ControllerCollectorContext extends CollectorContext {
         }
         HeapGrowthManager.reset();
       }
+      HeapGrowthManager.releaseIdleMemory();
 
       // Reset the triggering information.
       Plan.resetCollectionTrigger();
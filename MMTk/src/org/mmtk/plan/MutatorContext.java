@@ -18,6 +18,7 @@ import org.mmtk.policy.ImmortalLocal;
 import org.mmtk.policy.LargeObjectLocal;
 import org.mmtk.utility.alloc.Allocator;
 import org.mmtk.utility.alloc.BumpPointer;
+import org.mmtk.utility.heap.PageCache;
 import org.mmtk.utility.Log;
 
 import org.mmtk.vm.VM;
@@ -125,6 +126,22 @@ public abstract class MutatorContext {
   /** Per-mutator allocator into the non moving space */
   protected final MarkSweepLocal nonmove = new MarkSweepLocal(Plan.nonMovingSpace);
 
+  /** Per-mutator caches of page runs, indexed by space */
+  private final PageCache[] pageCaches = newPageCaches();
+
+  /**
+   * @return A page cache for each space whose mutators cache page runs
+   */
+  @Interruptible
+  private static PageCache[] newPageCaches() {
+    PageCache[] caches = new PageCache[Space.MAX_SPACES];
+    Space[] spaces = Space.getSpaces();
+    for (int i = 0; i < Space.getSpaceCount(); i++) {
+      caches[i] = spaces[i].newPageCache();
+    }
+    return caches;
+  }
+
 
   /****************************************************************************
    *
@@ -1220,10 +1237,29 @@ public abstract class MutatorContext {
    */
   public void flush() {
     flushRememberedSets();
+    flushPageCaches();
     smcode.flush();
     nonmove.flush();
   }
 
+  /**
+   * @param space A space
+   * @return This mutator's page cache for the space, or {@code null}
+   */
+  @Inline
+  public final PageCache getPageCache(Space space) {
+    return pageCaches[space.getIndex()];
+  }
+
+  /**
+   * Return the page runs cached by this mutator to their spaces.
+   */
+  public final void flushPageCaches() {
+    for (int i = 0; i < pageCaches.length; i++) {
+      if (pageCaches[i] != null) pageCaches[i].flush();
+    }
+  }
+
   /**
    * Flush per-mutator remembered sets into the global remset pool.
    */
@@ -12,6 +12,7 @@
  */
 package org.mmtk.plan;
 
+import org.mmtk.utility.Numa;
 import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
@@ -45,6 +46,7 @@ public abstract class ParallelCollector extends CollectorContext {
   @Override
   @Unpreemptible
   public void run() {
+    Numa.bindWorker(workerOrdinal);
     while (true) {
       park();
       collect();
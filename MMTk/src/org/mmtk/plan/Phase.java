@@ -14,6 +14,7 @@ package org.mmtk.plan;
 
 import org.mmtk.utility.Log;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.GCEventTrace;
 import org.mmtk.utility.statistics.Timer;
 import org.mmtk.vm.VM;
 
@@ -90,6 +91,13 @@ public abstract class Phase {
     return phases[phaseId].name;
   }
 
+  /**
+   * @return One more than the largest phase identifier in use.
+   */
+  public static short getPhaseCount() {
+    return nextPhaseId;
+  }
+
   /**
    * @param scheduledPhase an encoded phase
    * @return the ordering component of an encoded phase
@@ -474,6 +482,10 @@ public abstract class Phase {
         Log.write("\n");
       }
 
+      /* Only collectors that take part in the phase trace it */
+      boolean traceEvent = schedule != SCHEDULE_CONCURRENT && (primary || schedule != SCHEDULE_GLOBAL);
+      if (traceEvent) GCEventTrace.record(GCEventTrace.PHASE_BEGIN, phaseId, order);
+
       /* Execute a single simple scheduled phase */
       switch (schedule) {
         /* Global phase */
@@ -533,6 +545,8 @@ public abstract class Phase {
         }
       }
 
+      if (traceEvent) GCEventTrace.record(GCEventTrace.PHASE_END, phaseId, order);
+
       if (primary) {
         /* Set the next phase by processing the stack */
         int next = getNextPhase();
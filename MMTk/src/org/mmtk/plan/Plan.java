@@ -27,8 +27,11 @@ import org.mmtk.utility.heap.HeapGrowthManager;
 import org.mmtk.utility.heap.Map;
 import org.mmtk.utility.heap.VMRequest;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.Numa;
 import org.mmtk.utility.options.*;
 import org.mmtk.utility.sanitychecker.SanityChecker;
+import org.mmtk.utility.statistics.GCEventTrace;
+import org.mmtk.utility.statistics.Histogram;
 import org.mmtk.utility.statistics.Timer;
 import org.mmtk.utility.statistics.Stats;
 import org.mmtk.vm.VM;
@@ -104,6 +107,9 @@ public abstract class Plan {
   /* Do we support a log bit in the object header?  Some write barriers may use it */
   public static final boolean NEEDS_LOG_BIT_IN_HEADER = VM.activePlan.constraints().needsLogBitInHeader();
 
+  /* The (libpfm) performance events counted when TLB misses are requested */
+  private static final String TLB_PERF_EVENTS = "PERF_COUNT_HW_CACHE_DTLB:READ:MISS,PERF_COUNT_HW_CACHE_ITLB:READ:MISS";
+
   /****************************************************************************
    * Class variables
    */
@@ -143,6 +149,10 @@ public abstract class Plan {
 
   /** Timer that counts total time */
   public static final Timer totalTime = new Timer("time");
+  /** The distribution of stop-the-world pause times */
+  public static final Histogram pauseTimes = new Histogram("pause");
+  /** The distribution of the time concurrent collector threads spend in each concurrent phase */
+  public static final Histogram concurrentTimes = new Histogram("concurrent");
 
   /** Support for allocation-site identification */
   protected static int allocationSiteCount = 0;
@@ -171,10 +181,24 @@ public abstract class Plan {
     Options.nurseryZeroing = new NurseryZeroing();
     Options.pretenureThresholdFraction = new PretenureThresholdFraction();
     Options.variableSizeHeap = new VariableSizeHeap();
+    Options.uncommitDelay = new UncommitDelay();
+    Options.minRetainedHeap = new MinRetainedHeap();
+    Options.heapGrowthPolicy = new HeapGrowthPolicyKind();
+    Options.gcOverheadTarget = new GCOverheadTarget();
+    Options.cgroupMemoryLimitFile = new CgroupMemoryLimitFile();
     Options.eagerMmapSpaces = new EagerMmapSpaces();
+    Options.transparentHugePages = new TransparentHugePages();
+    Options.mediumObjectTier = new MediumObjectTier();
+    Options.pageCacheRuns = new PageCacheRuns();
+    Options.gcEventTraceFile = new GCEventTraceFile();
+    Options.gcEventTraceEntries = new GCEventTraceEntries();
+    Options.tracePrefetchDistance = new TracePrefetchDistance();
+    Options.edgeEnqueuing = new EdgeEnqueuing();
+    Options.numaAware = new NumaAware();
     Options.sanityCheck = new SanityCheck();
     Options.debugAddress = new DebugAddress();
     Options.perfEvents = new PerfEvents();
+    Options.tlbPerfEvents = new TLBPerfEvents();
     Options.useReturnBarrier = new UseReturnBarrier();
     Options.useShortStackScans = new UseShortStackScans();
     Options.threads = new Threads();
@@ -225,7 +249,14 @@ public abstract class Plan {
    */
   @Interruptible
   public void processOptions() {
-    VM.statistics.perfEventInit(Options.perfEvents.getValue());
+    String perfEvents = Options.perfEvents.getValue();
+    if (Options.tlbPerfEvents.getValue()) {
+      perfEvents = (perfEvents.length() == 0) ? TLB_PERF_EVENTS : perfEvents + "," + TLB_PERF_EVENTS;
+    }
+    VM.statistics.perfEventInit(perfEvents);
+    Numa.initialize();
+    HeapGrowthManager.selectPolicy();
+    GCEventTrace.initialize();
     if (Options.verbose.getValue() > 2) Space.printVMMap();
     if (Options.verbose.getValue() > 3) VM.config.printConfig();
     if (Options.verbose.getValue() > 0) Stats.startAll();
@@ -371,6 +402,7 @@ public abstract class Plan {
       Log.writeln(" ms]");
     }
     if (Options.verboseTiming.getValue()) printDetailedTiming(true);
+    GCEventTrace.dump();
   }
 
   /**
@@ -548,6 +580,7 @@ public abstract class Plan {
 
   @Entrypoint
   private static int gcStatus = NOT_IN_GC; // shared variable
+  private static long pauseStart;
 
   /** @return Is the memory management system initialized? */
   public static boolean isInitialized() {
@@ -593,6 +626,8 @@ public abstract class Plan {
       // count (which we need for JMX). This call won't cause
       // gathering of additional stats unless stats are enabled.
       Stats.startGC();
+      pauseStart = VM.statistics.nanoTime();
+      GCEventTrace.record(GCEventTrace.PAUSE_BEGIN, Stats.gcCount(), VM.activePlan.global().getPagesReserved());
       if (Stats.gatheringStats()) {
         VM.activePlan.global().printPreStats();
       }
@@ -602,6 +637,8 @@ public abstract class Plan {
     VM.memory.sync();
     if (gcStatus == NOT_IN_GC) {
       /* From any phase to NOT_IN_GC */
+      pauseTimes.record(VM.statistics.nanoTime() - pauseStart);
+      GCEventTrace.record(GCEventTrace.PAUSE_END, Stats.gcCount(), VM.activePlan.global().getPagesReserved());
       if (Stats.gatheringStats()) {
         Stats.endGC();
         VM.activePlan.global().printPostStats();
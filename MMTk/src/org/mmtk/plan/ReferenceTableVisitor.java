@@ -0,0 +1,73 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan;
+
+import org.mmtk.vm.ReferenceProcessor.Semantics;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * Decides what becomes of the entries in the VM's reference and
+ * finalizable tables, for collectors (such as the reference counting
+ * ones) that do not establish liveness with a {@link TraceLocal}.<p>
+ *
+ * The VM calls the visitor once for each entry and acts on the result:
+ * the entry is kept (at its forwarded address), dropped, cleared or made
+ * ready for finalization.  A cleared reference is <i>not</i> enqueued by
+ * the VM; the collector does that itself with
+ * {@link org.mmtk.vm.ReferenceProcessor#enqueueReference}, at a point
+ * where the write barrier may safely run.
+ */
+@Uninterruptible
+public abstract class ReferenceTableVisitor {
+
+  /** Keep the entry in the table */
+  public static final int KEEP = 0;
+  /** Drop the entry from the table */
+  public static final int DROP = 1;
+  /** Clear the referent of a reference and drop it from the table */
+  public static final int CLEAR = 2;
+  /** Drop a finalizable object from the table and make it ready for finalization */
+  public static final int FINALIZE = 2;
+
+  /**
+   * Visit an entry of a reference table.
+   *
+   * @param reference The reference object, or {@code null} if the VM does
+   * not represent references as heap objects
+   * @param referent The referent, which may be {@code null}
+   * @param semantics The semantics of the table
+   * @return <code>KEEP</code>, <code>DROP</code> or <code>CLEAR</code>
+   */
+  public abstract int visitReference(ObjectReference reference, ObjectReference referent, Semantics semantics);
+
+  /**
+   * Visit an entry of the finalizable table.
+   *
+   * @param object The finalizable object
+   * @return <code>KEEP</code>, <code>DROP</code> or <code>FINALIZE</code>
+   */
+  public abstract int visitFinalizable(ObjectReference object);
+
+  /**
+   * Return the current address of an object that has just been visited:
+   * a kept reference, its referent, or an object made ready for
+   * finalization.  By default objects do not move.
+   *
+   * @param object The object as it was passed to the visitor
+   * @return The object's current address
+   */
+  public ObjectReference getForwardedReference(ObjectReference object) {
+    return object;
+  }
+}
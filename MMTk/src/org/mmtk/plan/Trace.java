@@ -28,6 +28,8 @@ public class Trace {
   // Global pools for load-balancing deques
   final SharedDeque valuePool;
   final SharedDeque rootLocationPool;
+  /** Never blocks: termination is detected on the value pool (see TraceLocal) */
+  final SharedDeque edgePool;
 
   /**
    * @param metaDataSpace the space to use for allocation for this
@@ -36,6 +38,7 @@ public class Trace {
   public Trace(RawPageSpace metaDataSpace) {
     valuePool = new SharedDeque("valuePool",metaDataSpace, 1);
     rootLocationPool = new SharedDeque("rootLocations", metaDataSpace, 1);
+    edgePool = new SharedDeque("edgePool", metaDataSpace, 1);
   }
 
   /**
@@ -44,6 +47,7 @@ public class Trace {
   public void prepareNonBlocking() {
     valuePool.prepareNonBlocking();
     rootLocationPool.prepareNonBlocking();
+    edgePool.prepareNonBlocking();
   }
 
   /**
@@ -53,6 +57,7 @@ public class Trace {
   public void prepare() {
     valuePool.prepare();
     rootLocationPool.prepareNonBlocking();
+    edgePool.prepareNonBlocking();
   }
 
   /**
@@ -61,6 +66,7 @@ public class Trace {
   public void release() {
     valuePool.reset();
     rootLocationPool.reset();
+    edgePool.reset();
   }
 
   /**
@@ -68,6 +74,6 @@ public class Trace {
    *  That is are there any pages in the pools.
    */
   public boolean hasWork() {
-    return (valuePool.enqueuedPages() + rootLocationPool.enqueuedPages()) > 0;
+    return (valuePool.enqueuedPages() + rootLocationPool.enqueuedPages() + edgePool.enqueuedPages()) > 0;
   }
 }
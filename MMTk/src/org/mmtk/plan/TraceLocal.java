@@ -42,6 +42,16 @@ public abstract class TraceLocal extends TransitiveClosure {
   protected final ObjectReferenceDeque values;
   /** delayed root slots */
   protected final AddressDeque rootLocations;
+  /** slots waiting to be traced, when enqueuing edges */
+  protected final AddressDeque edges;
+  /** Can this trace enqueue edges rather than tracing them as they are scanned? */
+  private final boolean edgeEnqueuing;
+
+  /** The largest number of gray objects that may be prefetched ahead of scanning */
+  public static final int MAX_PREFETCH_DISTANCE = 16;
+  private static final int PREFETCH_RING_MASK = MAX_PREFETCH_DISTANCE - 1;
+  /** Gray objects popped and prefetched, but not yet scanned */
+  private final ObjectReferenceArray prefetchRing = ObjectReferenceArray.create(MAX_PREFETCH_DISTANCE);
 
   /****************************************************************************
    *
@@ -64,9 +74,23 @@ public abstract class TraceLocal extends TransitiveClosure {
    * @param trace The global trace class to use.
    */
   public TraceLocal(int specializedScan, Trace trace) {
+    this(specializedScan, trace, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param specializedScan The specialized scan id.
+   * @param trace The global trace class to use.
+   * @param edgeEnqueuing Can this trace enqueue edges?  If so, edges are
+   * enqueued whenever the <code>EdgeEnqueuing</code> option is set.
+   */
+  public TraceLocal(int specializedScan, Trace trace, boolean edgeEnqueuing) {
     super(specializedScan);
     values = new ObjectReferenceDeque("value", trace.valuePool);
     rootLocations = new AddressDeque("roots", trace.rootLocationPool);
+    edges = new AddressDeque("edges", trace.edgePool);
+    this.edgeEnqueuing = edgeEnqueuing;
   }
 
   /****************************************************************************
@@ -93,6 +117,22 @@ public abstract class TraceLocal extends TransitiveClosure {
   @Override
   @Inline
   public final void processEdge(ObjectReference source, Address slot) {
+    if (edgeEnqueuing && Options.edgeEnqueuing.getValue()) {
+      edges.push(slot);
+      return;
+    }
+    traceEdge(slot);
+  }
+
+  /**
+   * Trace the reference held in a slot, updating the slot if the object
+   * moved.
+   *
+   * @param slot The location containing the object reference to be
+   *        traced.  The object reference is <i>NOT</i> an interior pointer.
+   */
+  @Inline
+  private void traceEdge(Address slot) {
     ObjectReference object = VM.activePlan.global().loadObjectReference(slot);
     ObjectReference newObject = traceObject(object, false);
     if (overwriteReferenceDuringTrace()) {
@@ -207,6 +247,7 @@ public abstract class TraceLocal extends TransitiveClosure {
   public final void flush() {
     values.flushLocal();
     rootLocations.flushLocal();
+    edges.flushLocal();
   }
 
   /**
@@ -464,6 +505,7 @@ public abstract class TraceLocal extends TransitiveClosure {
   public void release() {
     values.reset();
     rootLocations.reset();
+    edges.reset();
   }
 
   /**
@@ -489,16 +531,87 @@ public abstract class TraceLocal extends TransitiveClosure {
     }
     logMessage(5, "processing gray objects");
     assertMutatorRemsetsFlushed();
+    boolean enqueue = edgeEnqueuing && Options.edgeEnqueuing.getValue();
+    int distance = Options.tracePrefetchDistance.getValue();
     do {
-      while (!values.isEmpty()) {
-        ObjectReference v = values.pop();
-        scanObject(v);
+      if (enqueue) {
+        traceEdgesAndValues();
+      } else if (distance > 0) {
+        scanValuesPrefetching(distance, Integer.MAX_VALUE);
+      } else {
+        while (!values.isEmpty()) {
+          ObjectReference v = values.pop();
+          scanObject(v);
+        }
       }
       processRememberedSets();
     } while (!values.isEmpty());
     assertMutatorRemsetsFlushed();
   }
 
+  /**
+   * Drain the edge and gray object queues, tracing edges in preference
+   * to scanning objects.  Edges pushed while scanning an object are
+   * popped (last in, first out) straight afterwards, while the object's
+   * fields are still in cache, so the gray object queue stays short and
+   * the edge queue carries most of the work.<p>
+   *
+   * The edge pool is non-blocking; termination is detected on the gray
+   * object pool alone.  A collector only waits there once it has seen
+   * no edges, locally or in the pool, since it last pushed one, so no
+   * edge is left behind when every collector is waiting.
+   */
+  @Inline
+  private void traceEdgesAndValues() {
+    while (true) {
+      if (!edges.isEmpty()) {
+        traceEdge(edges.pop());
+      } else if (!values.isEmpty()) {
+        scanObject(values.pop());
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Scan gray objects, prefetching each one's header a fixed number of
+   * objects before it is scanned.  Objects are popped into a small ring
+   * as they are prefetched, and scanned from the other end of the ring, so
+   * by the time an object is scanned its header and TIB are (hopefully)
+   * in cache.  The ring is always empty on return.<p>
+   *
+   * Only an empty ring may wait on the gray queue: a collector that
+   * waits there while objects remain in its ring would let the others
+   * conclude the trace was complete and leave it to trace alone.
+   *
+   * @param distance The number of objects to prefetch ahead
+   * @param workLimit The number of objects after which to stop taking
+   * more objects from the gray queue
+   * @return The number of objects scanned
+   */
+  @Inline
+  private int scanValuesPrefetching(int distance, int workLimit) {
+    int head = 0;
+    int queued = 0;
+    int units = 0;
+    while (true) {
+      while (queued < distance && units + queued < workLimit &&
+             (queued == 0 ? !values.isEmpty() : values.isNonEmptyNoWait())) {
+        ObjectReference v = values.pop();
+        VM.objectModel.refToAddress(v).prefetch();
+        prefetchRing.set((head + queued) & PREFETCH_RING_MASK, v);
+        queued++;
+      }
+      if (queued == 0) return units;
+      ObjectReference v = prefetchRing.get(head);
+      head = (head + 1) & PREFETCH_RING_MASK;
+      queued--;
+      scanObject(v);
+      units++;
+    }
+  }
+
   /**
    * Process GC work until either complete or workLimit
    * units of work are completed.
@@ -511,14 +624,26 @@ public abstract class TraceLocal extends TransitiveClosure {
     logMessage(4, "Continuing GC in parallel (incremental)");
     logMessage(5, "processing gray objects");
     int units = 0;
+    boolean enqueue = edgeEnqueuing && Options.edgeEnqueuing.getValue();
+    int distance = Options.tracePrefetchDistance.getValue();
     do {
-      while (!values.isEmpty() && units < workLimit) {
-        ObjectReference v = values.pop();
-        scanObject(v);
-        units++;
+      if (enqueue) {
+        while (!edges.isEmpty() && units < workLimit) {
+          traceEdge(edges.pop());
+          units++;
+        }
+      }
+      if (distance > 0) {
+        units += scanValuesPrefetching(distance, workLimit - units);
+      } else {
+        while (!values.isEmpty() && units < workLimit) {
+          ObjectReference v = values.pop();
+          scanObject(v);
+          units++;
+        }
       }
-    } while (!values.isEmpty() && units < workLimit);
-    return values.isEmpty();
+    } while ((!values.isEmpty() || (enqueue && !edges.isEmpty())) && units < workLimit);
+    return values.isEmpty() && (!enqueue || edges.isEmpty());
   }
 
   /**
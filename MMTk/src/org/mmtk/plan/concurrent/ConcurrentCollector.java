@@ -17,7 +17,9 @@ import org.mmtk.plan.Plan;
 import org.mmtk.plan.SimpleCollector;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.Numa;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.GCEventTrace;
 import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
@@ -48,6 +50,7 @@ public abstract class ConcurrentCollector extends SimpleCollector {
   @Override
   @Unpreemptible
   public void run() {
+    Numa.bindWorker(parallelWorkerOrdinal());
     while (true) {
       park();
       if (Plan.concurrentWorkers.isMember(this)) {
@@ -66,7 +69,11 @@ public abstract class ConcurrentCollector extends SimpleCollector {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!Plan.gcInProgress());
     do {
       short phaseId = Phase.getConcurrentPhaseId();
+      long start = VM.statistics.nanoTime();
+      GCEventTrace.record(GCEventTrace.CONCURRENT_BEGIN, phaseId, 0);
       concurrentCollectionPhase(phaseId);
+      GCEventTrace.record(GCEventTrace.CONCURRENT_END, phaseId, 0);
+      Plan.concurrentTimes.record(VM.statistics.nanoTime() - start);
     } while (continueCollecting);
   }
 
@@ -44,7 +44,7 @@ public final class ImmixDefragTraceLocal extends TraceLocal {
    * @param modBuffer TODO
    */
   public ImmixDefragTraceLocal(Trace trace, ObjectReferenceDeque modBuffer) {
-    super(Immix.SCAN_DEFRAG, trace);
+    super(Immix.SCAN_DEFRAG, trace, true);
     this.modBuffer = modBuffer;
   }
 
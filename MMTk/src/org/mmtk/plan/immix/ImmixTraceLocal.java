@@ -44,7 +44,7 @@ public final class ImmixTraceLocal extends TraceLocal {
    * @param modBuffer The modified objects buffer associated with this trace local.  Possibly null.
    */
   public ImmixTraceLocal(Trace trace, ObjectReferenceDeque modBuffer) {
-    super(Immix.SCAN_IMMIX, trace);
+    super(Immix.SCAN_IMMIX, trace, true);
     this.modBuffer = modBuffer;
   }
 
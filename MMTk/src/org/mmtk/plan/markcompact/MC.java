@@ -16,6 +16,9 @@ import org.mmtk.plan.*;
 import org.mmtk.policy.MarkCompactSpace;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.heap.VMRequest;
+import org.mmtk.utility.options.MarkCompactBudget;
+import org.mmtk.utility.options.MarkCompactIncremental;
+import org.mmtk.utility.options.Options;
 import org.mmtk.utility.sanitychecker.SanityChecker;
 
 import org.vmmagic.pragma.*;
@@ -65,6 +68,12 @@ import org.vmmagic.unboxed.ObjectReference;
   public static final short FORWARD_CLOSURE     = Phase.createSimple("fw-closure");
   public static final short RELEASE_FORWARD     = Phase.createSimple("fw-release");
 
+  /** Summarize the live data of each region of the heap */
+  public static final short SUMMARIZE           = Phase.createSimple("summarize");
+
+  /** Choose the regions to compact and divide them between the collectors */
+  public static final short SELECT_REGIONS      = Phase.createSimple("select-regions");
+
   /** Calculate forwarding pointers via a linear scan over the heap */
   public static final short CALCULATE_FP        = Phase.createSimple("calc-fp");
 
@@ -83,6 +92,9 @@ import org.vmmagic.unboxed.ObjectReference;
       Phase.scheduleComplex  (rootClosurePhase),
       Phase.scheduleComplex  (refTypeClosurePhase),
       Phase.scheduleComplex  (completeClosurePhase),
+      Phase.scheduleGlobal   (SUMMARIZE),
+      Phase.scheduleCollector(SUMMARIZE),
+      Phase.scheduleGlobal   (SELECT_REGIONS),
       Phase.scheduleCollector(CALCULATE_FP),
       Phase.scheduleGlobal   (PREPARE_FORWARD),
       Phase.scheduleCollector(PREPARE_FORWARD),
@@ -96,6 +108,7 @@ import org.vmmagic.unboxed.ObjectReference;
       Phase.scheduleCollector(RELEASE_FORWARD),
       Phase.scheduleGlobal   (RELEASE_FORWARD),
       Phase.scheduleCollector(COMPACT),
+      Phase.scheduleGlobal   (COMPACT),
       Phase.scheduleComplex  (finishPhase));
 
   // CHECKSTYLE:ON
@@ -110,6 +123,10 @@ import org.vmmagic.unboxed.ObjectReference;
   /** This trace updates pointers with the forwarded references */
   public final Trace forwardTrace;
 
+  /** Does this collection compact every region? */
+  private boolean fullCompaction = true;
+  private boolean lastGCWasFullCompaction = true;
+
   /**
    * Constructor.
  */
@@ -117,6 +134,8 @@ import org.vmmagic.unboxed.ObjectReference;
     markTrace = new Trace(metaDataSpace);
     forwardTrace = new Trace(metaDataSpace);
     collection = mcCollection;
+    Options.markCompactIncremental = new MarkCompactIncremental();
+    Options.markCompactBudget = new MarkCompactBudget();
   }
 
   /*****************************************************************************
@@ -131,6 +150,12 @@ import org.vmmagic.unboxed.ObjectReference;
   @Override
   @Inline
   public final void collectionPhase(short phaseId) {
+    if (phaseId == SET_COLLECTION_KIND) {
+      super.collectionPhase(phaseId);
+      fullCompaction = !Options.markCompactIncremental.getValue() || emergencyCollection ||
+          collectionAttempt > 1 || (userTriggeredCollection && Options.fullHeapSystemGC.getValue());
+      return;
+    }
     if (phaseId == PREPARE) {
       super.collectionPhase(phaseId);
       markTrace.prepare();
@@ -161,6 +186,20 @@ import org.vmmagic.unboxed.ObjectReference;
       return;
     }
 
+    if (phaseId == SUMMARIZE) {
+      mcSpace.buildSummary();
+      return;
+    }
+    if (phaseId == SELECT_REGIONS) {
+      mcSpace.selectRegions(!fullCompaction);
+      return;
+    }
+    if (phaseId == COMPACT) {
+      mcSpace.endCompaction();
+      lastGCWasFullCompaction = fullCompaction;
+      return;
+    }
+
     super.collectionPhase(phaseId);
   }
 
@@ -179,6 +218,11 @@ import org.vmmagic.unboxed.ObjectReference;
     return (mcSpace.reservedPages() + super.getPagesUsed());
   }
 
+  @Override
+  public boolean lastCollectionWasExhaustive() {
+    return lastGCWasFullCompaction;
+  }
+
   @Override
   public boolean willNeverMove(ObjectReference object) {
     if (Space.isInSpace(MARK_COMPACT, object))
@@ -207,4 +251,10 @@ import org.vmmagic.unboxed.ObjectReference;
     TransitiveClosure.registerSpecializedScan(SCAN_FORWARD, MCForwardTraceLocal.class);
     super.registerSpecializedMethods();
   }
+
+  @Override
+  @Interruptible
+  public void preCollectorSpawn() {
+    mcSpace.initializeRanges();
+  }
 }
@@ -88,6 +88,11 @@ public class MCCollector extends StopTheWorldCollector {
       return;
     }
 
+    if (phaseId == MC.SUMMARIZE) {
+      mc.summarize();
+      return;
+    }
+
     if (phaseId == MC.CALCULATE_FP) {
       mc.calculateForwardingPointers();
       return;
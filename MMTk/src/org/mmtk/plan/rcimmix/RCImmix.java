@@ -275,14 +275,14 @@ public class RCImmix extends StopTheWorld {
         for (int i = N-1; i >0; i--) {
           a[i] = a[i-1];
         }
-        a[0] = (rcSpace.linesUsed - rcSpace.linesCleaned) / rcSpace.linesUsed;
+        a[0] = (rcSpace.linesUsed - rcSpace.getLinesCleaned()) / rcSpace.linesUsed;
       }
 
       lineSurvivalRateExp = max();
       if (lineSurvivalRateExp < 0.0f) lineSurvivalRateExp = 0;
 
       rcSpace.linesUsed = 0;
-      rcSpace.linesCleaned = 0;
+      rcSpace.resetLinesCleaned();
 
       performCycleCollection =  availablePages < cycleTriggerThreshold;
       performDefrag =  availablePages < defragTriggerThreshold;
@@ -15,19 +15,37 @@ package org.mmtk.plan.rcimmixconcurrent;
 import org.mmtk.plan.Phase;
 import org.mmtk.plan.StopTheWorld;
 import org.mmtk.plan.Trace;
+import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.policy.ExplicitLargeObjectSpace;
 import org.mmtk.policy.Space;
 import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
 import org.mmtk.policy.rcimmix.RCImmixSpace;
+import org.mmtk.policy.rcimmix.EWMASurvivalPredictor;
+import org.mmtk.policy.rcimmix.MaxWindowSurvivalPredictor;
+import org.mmtk.policy.rcimmix.SizeClassSurvivalPredictor;
+import org.mmtk.policy.rcimmix.SurvivalPredictor;
 import org.mmtk.utility.Log;
 import org.mmtk.utility.alloc.LinearScan;
 import org.mmtk.utility.deque.SharedDeque;
+import org.mmtk.utility.deque.WorkStealingPool;
 import org.mmtk.utility.heap.VMRequest;
+import org.mmtk.utility.options.ConcurrentBackupTrace;
+import org.mmtk.utility.options.ConcurrentDecBudget;
+import org.mmtk.utility.options.ConcurrentDecPagesPerWorker;
+import org.mmtk.utility.options.ConcurrentLineZeroing;
+import org.mmtk.utility.options.ConcurrentSweep;
 import org.mmtk.utility.options.CycleTriggerFraction;
+import org.mmtk.utility.options.CycleTriggerLookahead;
 import org.mmtk.utility.options.DefragTriggerFraction;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.options.PauseBudget;
+import org.mmtk.utility.options.SurvivalPredictorKind;
+import org.mmtk.utility.options.SurvivalPredictorWindow;
 import org.mmtk.utility.options.SurvivorCopyMultiplier;
 import org.mmtk.utility.sanitychecker.SanityChecker;
+import org.mmtk.utility.statistics.EventCounter;
+import org.mmtk.utility.statistics.GCEventTrace;
+import org.mmtk.utility.statistics.Stats;
 import org.mmtk.vm.VM;
 import org.vmmagic.pragma.Inline;
 import org.vmmagic.pragma.Interruptible;
@@ -36,6 +54,7 @@ import org.vmmagic.unboxed.Address;
 import org.vmmagic.unboxed.ObjectReference;
 import org.vmmagic.unboxed.Word;
 
+import static org.mmtk.policy.rcimmix.RCImmixConstants.BYTES_IN_LINE;
 import static org.mmtk.policy.rcimmix.RCImmixConstants.PAGES_IN_BLOCK;
 
 /**
@@ -47,6 +66,8 @@ public class RCImmixConcurrent extends StopTheWorld {
   public static final short PROCESS_NEWROOTBUFFER  = Phase.createSimple("new-root");
   public static final short PROCESS_MODBUFFER      = Phase.createSimple("mods");
   public static final short PROCESS_DECBUFFER      = Phase.createSimple("decs");
+  public static final short PROCESS_NEWREFS        = Phase.createSimple("new-refs");
+  public static final short PROCESS_REFS           = Phase.createSimple("refs");
 
   public static final boolean VERBOSE = false;
 
@@ -60,13 +81,47 @@ public class RCImmixConcurrent extends StopTheWorld {
 //  public static final boolean CC_BACKUP_TRACE      = false;
   public static final boolean RC_SURVIVOR_COPY = true;
 //  public static final boolean RC_SURVIVOR_COPY = false;
+  /** Coalesce increments to old objects while processing the mod buffer */
+  public static final boolean RC_COALESCE_INCREMENTS = true;
 
   public static boolean performCycleCollection;
   public static boolean performDefrag;
   public static int cycleTriggerThreshold;
   public static int defragTriggerThreshold;
+
+  /** Is a concurrent (snapshot-at-the-beginning) backup trace in progress? */
+  public static volatile boolean concurrentTraceActive = false;
+  /** Has the concurrent backup trace run out of work? */
+  public static volatile boolean concurrentTraceDrained = false;
+  /** Does this collection take the snapshot for a concurrent backup trace? */
+  public static boolean startConcurrentTrace = false;
+  /** Does this collection complete the concurrent backup trace? */
+  public static boolean finishConcurrentTrace = false;
+  /** Should the next collection start a concurrent backup trace? */
+  private static boolean concurrentTraceRequested = false;
+  /** Did the evacuation budget leave fragmented blocks for a later defrag increment? */
+  private static boolean defragIncrementPending = false;
+  /** Has a concurrent backup trace completed since the last defrag increment? */
+  private static boolean tracedSinceDefrag = false;
+  /** Did an emergency collection finish the concurrent backup trace, leaving its defrag to the next pause? */
+  private static boolean defragAfterConcurrentTrace = false;
+  /** Did the last collection trace the heap, either stop-the-world or by finishing a concurrent trace? */
+  private static boolean lastCollectionTraced = false;
+  /** Has concurrent decrement processing fallen far enough behind allocation that this pause must catch up? */
+  public static boolean processDecBacklog = false;
+  /** The number of concurrent collector threads that should process decrements, the rest only sweep and trace */
+  public static int concurrentDecWorkers = Integer.MAX_VALUE;
+  /** The time (in nanoseconds) by which the current pause should finish, or zero if pauses are not budgeted */
+  public static long pauseDeadline = 0;
+  /** When the current pause started */
+  private static long pauseStart = 0;
+  /** Pauses that exceeded the pause budget, and by how long */
+  private static final EventCounter pauseOverruns = new EventCounter("pauseOverruns", true, true);
+  private static final EventCounter pauseOverrunMicros = new EventCounter("pauseOverrunUs", true, true);
   public static final short BT_CLOSURE_INIT        = Phase.createSimple("closure-bt-init");
   public static final short BT_CLOSURE             = Phase.createSimple("closure-bt");
+  public static final short BT_RETAIN_REFS         = Phase.createSimple("retain-refs-bt");
+  public static final short BT_REFS                = Phase.createSimple("refs-bt");
 //  public static final short BT_CLOSURE_FLUSH_POOL  = Phase.createSimple("closure-flush-pool");
 
   // CHECKSTYLE:OFF
@@ -77,18 +132,25 @@ public class RCImmixConcurrent extends StopTheWorld {
   protected static final short refCountCollectionPhase = Phase.createComplex("release", null,
       Phase.scheduleGlobal     (PROCESS_OLDROOTBUFFER),
       Phase.scheduleCollector  (PROCESS_OLDROOTBUFFER),
+      Phase.scheduleGlobal     (PROCESS_NEWREFS),
+      Phase.scheduleCollector  (PROCESS_NEWREFS),
       Phase.scheduleGlobal     (PROCESS_NEWROOTBUFFER),
       Phase.scheduleCollector  (PROCESS_NEWROOTBUFFER),
       Phase.scheduleMutator    (PROCESS_MODBUFFER),
       Phase.scheduleGlobal     (PROCESS_MODBUFFER),
       Phase.scheduleCollector  (PROCESS_MODBUFFER),
+      Phase.scheduleCollector  (PROCESS_REFS),
       Phase.scheduleMutator    (PROCESS_DECBUFFER),
       Phase.scheduleGlobal     (PROCESS_DECBUFFER),
       Phase.scheduleCollector  (PROCESS_DECBUFFER),
       Phase.scheduleGlobal     (BT_CLOSURE_INIT),
       Phase.scheduleCollector  (BT_CLOSURE_INIT),
       Phase.scheduleGlobal     (BT_CLOSURE),
-      Phase.scheduleCollector  (BT_CLOSURE));
+      Phase.scheduleCollector  (BT_CLOSURE),
+      Phase.scheduleCollector  (BT_RETAIN_REFS),
+      Phase.scheduleGlobal     (BT_CLOSURE),
+      Phase.scheduleCollector  (BT_CLOSURE),
+      Phase.scheduleCollector  (BT_REFS));
 
   /**
    * Perform the initial determination of liveness from the roots.
@@ -148,16 +210,31 @@ public class RCImmixConcurrent extends StopTheWorld {
   public static final int REF_COUNT = rcSpace.getDescriptor();
   public static final int REF_COUNT_LOS = rcloSpace.getDescriptor();
 
+  /** Specialized scan used when processing the mod buffer */
+  public static final int SCAN_MOD = 0;
+  /** Specialized scan used to clear the fields of dead objects */
+  public static final int SCAN_ZERO = 1;
+  /** Specialized scan used to enqueue the children of dead objects */
+  public static final int SCAN_DEC = 2;
+
   public final SharedDeque modPool = new SharedDeque("mod", metaDataSpace, 1);
+  /** Per-collector stripes for mod-buffer processing, balanced by work stealing */
+  public final WorkStealingPool modStealPool = new WorkStealingPool("modSteal", metaDataSpace, 1);
 
   //MYNOTE:
   public final SharedDeque decPool0 = new SharedDeque("dec0", metaDataSpace, 1);
   public final SharedDeque decPool1 = new SharedDeque("dec1", metaDataSpace, 1);
   public volatile int currentDecPool;
+  /** Per-collector stripes for recursive decrements, balanced by work stealing */
+  public final WorkStealingPool decStealPool = new WorkStealingPool("decSteal", metaDataSpace, 1);
 
   public final SharedDeque newRootPool = new SharedDeque("newRoot", metaDataSpace, 1);
   public final SharedDeque newRootBackPool = new SharedDeque("newRootBack", metaDataSpace, 1);
   public final SharedDeque oldRootPool = new SharedDeque("oldRoot", metaDataSpace, 1);
+  /** Objects found dead while the concurrent backup trace is running, reclaimed when it completes */
+  public final SharedDeque deferredPool = new SharedDeque("deferred", metaDataSpace, 1);
+  /** References cleared by one pause, which the next enqueues */
+  public final SharedDeque clearedPool = new SharedDeque("cleared", metaDataSpace, 1);
 
   /*****************************************************************************
    *
@@ -165,26 +242,54 @@ public class RCImmixConcurrent extends StopTheWorld {
    */
   public final Trace rootTrace;
   public final Trace backupTrace;
+  public final Trace satbTrace;
   private final RCImmixConcurrentBTLargeSweeper loFreeSweeper;
   public int beginningPagesUsed = 0;
+  /** Pages held by the reference counted spaces at the end of the last pause */
+  private int pacingPagesAtPause = 0;
+  /** Pages held by the large object space at the end of the last pause */
+  private int largePagesAtPause = 0;
+  /** Moving average of the pages reference counting failed to reclaim in each collection */
+  private double leakedPagesPerGC = 0;
+  private static final double LEAKAGE_WEIGHT = 0.5;
   public static double lineSurvivalRateExp = 1.0f;
-
-  // MAX heuristic for proactive copying
-  public static final int N = 4;
-  public static double [] a = new double[N];
+  /** Lines used by a collection whose sweep was deferred, awaiting the lines the sweep cleans */
+  private double deferredLinesUsed = 0;
+  /** Pages held at the start and at the release of a collection whose sweep was deferred, the latter with the large object growth */
+  private int deferredPagesAtStart = 0;
+  private int deferredPagesRetained = 0;
+  private final double[] deferredSurvivorBytes = new double[SurvivalPredictor.SIZE_CLASSES];
+  /** The bytes of young survivors of the last collection, by size class */
+  private final double[] survivorBytes = new double[SurvivalPredictor.SIZE_CLASSES];
+
+  // Survival prediction for proactive copying, selected by the Survival Predictor option
+  private final SurvivalPredictor maxPredictor = new MaxWindowSurvivalPredictor();
+  private final SurvivalPredictor ewmaPredictor = new EWMASurvivalPredictor();
+  private final SurvivalPredictor sizeClassPredictor = new SizeClassSurvivalPredictor();
+  public SurvivalPredictor survivalPredictor = maxPredictor;
 
   /**
    * Constructor
    */
   public RCImmixConcurrent() {
-    Options.noReferenceTypes.setDefaultValue(true);
+    // Finalization is supported but not yet exercised by the test harness
     Options.noFinalizer.setDefaultValue(true);
     Options.cycleTriggerFraction = new CycleTriggerFraction();
+    Options.cycleTriggerLookahead = new CycleTriggerLookahead();
     Options.defragTriggerFraction = new DefragTriggerFraction();
     Options.survivorCopyMultiplier = new SurvivorCopyMultiplier();
+    Options.survivalPredictor = new SurvivalPredictorKind();
+    Options.survivalPredictorWindow = new SurvivalPredictorWindow();
+    Options.concurrentBackupTrace = new ConcurrentBackupTrace();
+    Options.concurrentDecBudget = new ConcurrentDecBudget();
+    Options.concurrentDecPagesPerWorker = new ConcurrentDecPagesPerWorker();
+    Options.concurrentSweep = new ConcurrentSweep();
+    Options.pauseBudget = new PauseBudget();
+    Options.concurrentLineZeroing = new ConcurrentLineZeroing();
 
     rootTrace = new Trace(metaDataSpace);
     backupTrace = new Trace(metaDataSpace);
+    satbTrace = new Trace(metaDataSpace);
     loFreeSweeper = new RCImmixConcurrentBTLargeSweeper();
 
     //MYNOTE:
@@ -195,14 +300,20 @@ public class RCImmixConcurrent extends StopTheWorld {
   @Interruptible
   public void processOptions() {
     super.processOptions();
-    if (!Options.noReferenceTypes.getValue()) {
-      VM.assertions.fail("Reference Types are not supported by RC");
-    }
-    if (!Options.noFinalizer.getValue()) {
-      VM.assertions.fail("Finalizers are not supported by RC");
-    }
     cycleTriggerThreshold = (int)(getTotalPages() * Options.cycleTriggerFraction.getValue());
     defragTriggerThreshold = (int)(getTotalPages() * Options.defragTriggerFraction.getValue());
+    int predictor = Options.survivalPredictor.getValue();
+    if (predictor == Options.survivalPredictor.EWMA) {
+      survivalPredictor = ewmaPredictor;
+    } else if (predictor == Options.survivalPredictor.SIZE_CLASS) {
+      survivalPredictor = sizeClassPredictor;
+    } else {
+      survivalPredictor = maxPredictor;
+    }
+    survivalPredictor.setWindow(Options.survivalPredictorWindow.getValue());
+    if (Options.concurrentLineZeroing.getValue()) {
+      rcSpace.enableConcurrentLineZeroing();
+    }
   }
 
   /*****************************************************************************
@@ -216,7 +327,52 @@ public class RCImmixConcurrent extends StopTheWorld {
   //MYNOTE:
   @Override
   protected boolean concurrentCollectionRequired() {
-    return !Phase.concurrentPhaseActive();
+    return !Phase.concurrentPhaseActive() || decBacklogExceeded();
+  }
+
+  /**
+   * @return The number of pages of decrements still waiting for the
+   * concurrent collector threads.
+   */
+  public final int decBacklogPages() {
+    SharedDeque concurrentPool = currentDecPool == 0 ? decPool1 : decPool0;
+    return concurrentPool.enqueuedPages() + decStealPool.enqueuedPages();
+  }
+
+  /**
+   * Pacing.  The concurrent decrements have fallen behind when more than
+   * the budget is still outstanding although the mutators have already
+   * grown the heap by that much again since the last pause.  The mutators
+   * are then stopped and the pause processes the backlog itself.
+   *
+   * @return <code>true</code> if the decrement backlog exceeds its budget.
+   */
+  private boolean decBacklogExceeded() {
+    int budget = Options.concurrentDecBudget.getPages();
+    if (budget == 0) return false;
+    int allocated = rcSpace.reservedPages() + rcloSpace.reservedPages() - pacingPagesAtPause;
+    return allocated > budget && decBacklogPages() > budget;
+  }
+
+  /**
+   * Predictive cycle collection trigger.  If pages keep escaping reference
+   * counting at the recent rate, will the heap fall below the cycle trigger
+   * threshold within the lookahead?  Collecting cycles early (or starting
+   * the concurrent backup trace early, which needs several pauses to
+   * complete) avoids the full collection forced by a failed allocation.
+   *
+   * @param availablePages The pages available after this collection
+   * @return <code>true</code> if a cycle collection should be scheduled now.
+   */
+  private boolean cycleCollectionPredicted(int availablePages) {
+    int lookahead = Options.cycleTriggerLookahead.getValue();
+    if (lookahead == 0 || availablePages >= cycleTriggerThreshold + (int)(leakedPagesPerGC * lookahead)) {
+      return false;
+    }
+    if (Options.verbose.getValue() > 0) {
+      Log.write(" [CC predicted, leaking "); Log.write((int) leakedPagesPerGC); Log.write(" pages/GC]");
+    }
+    return true;
   }
 
   @Override
@@ -224,18 +380,117 @@ public class RCImmixConcurrent extends StopTheWorld {
     return performCycleCollection;
   }
 
+  /**
+   * {@inheritDoc}<p>
+   *
+   * When cycles are traced concurrently the next collection is rarely
+   * planned as a stop-the-world cycle collection, so a collection that
+   * has just traced the heap counts too.  Otherwise an exhausted heap
+   * never triggers an emergency collection, and so never defragments.
+   */
+  @Override
+  public boolean lastCollectionWasExhaustive() {
+    return performCycleCollection || lastCollectionTraced;
+  }
+
+  /**
+   * @return <code>true</code> if pauses are budgeted and the current
+   * pause has used its budget, so deferrable work should be left to the
+   * concurrent phase.
+   */
+  @Inline
+  public static boolean pauseBudgetExceeded() {
+    return pauseDeadline != 0 && VM.statistics.nanoTime() > pauseDeadline;
+  }
+
+  /**
+   * Fold the pages a reference counting collection failed to reclaim into
+   * the moving average used by the predictive cycle trigger.  This growth
+   * survived reference counting: it is live data, or garbage only a trace
+   * can find.
+   *
+   * @param leaked The growth in pages held by the reference counted spaces
+   */
+  private void updateLeakage(int leaked) {
+    if (leaked < 0) leaked = 0;
+    leakedPagesPerGC = LEAKAGE_WEIGHT * leaked + (1 - LEAKAGE_WEIGHT) * leakedPagesPerGC;
+  }
+
+  /**
+   * Feed the line survival rate of a reference counting collection to the
+   * survival predictor.
+   *
+   * @param linesUsed The lines in use when the collection began
+   * @param linesCleaned The lines the collection freed
+   * @param survivorBytes The bytes of young survivors, per size class
+   */
+  private void updateSurvivalPrediction(double linesUsed, double linesCleaned, double[] survivorBytes) {
+    if (linesUsed <= 0) return;
+    double lineSurvivalRate = (linesUsed - linesCleaned) / linesUsed;
+    survivalPredictor.update(lineSurvivalRate, survivorBytes, linesUsed * BYTES_IN_LINE);
+    if (Options.verbose.getValue() > 0) {
+      Log.write(" [survival "); Log.write(lineSurvivalRate, 3);
+      Log.write(" "); Log.write(survivalPredictor.getName()); Log.write(" -> ");
+      Log.write(survivalPredictor.predict(), 3); Log.write("]");
+    }
+  }
+
   @Override
   public void collectionPhase(short phaseId) {
     if (phaseId == SET_COLLECTION_KIND) {
+      pauseStart = VM.statistics.nanoTime();
+      rcSpace.stopLineZeroing();
+      if (Options.pauseBudget.getValue() > 0) {
+        pauseDeadline = pauseStart + 1000000L * Options.pauseBudget.getValue();
+      }
+      if (rcloSpace.isSweepPending()) {
+        // Finish sweeping large objects before the next trace reuses the mark state
+        rcloSpace.completeSweep();
+        // Large object growth is measured from here, so the swept pages do not hide it
+        largePagesAtPause = rcloSpace.reservedPages();
+      }
+      if (rcSpace.isSweepPending()) {
+        // Finish the previous collection's sweep before anything looks at block states
+        rcSpace.completeDeferredSweep();
+        beginningPagesUsed = rcSpace.reservedPages();
+        // Measured from the pages the sweep released, so allocation since the pause does not count
+        updateLeakage(deferredPagesRetained - rcSpace.getPagesReleased() - deferredPagesAtStart);
+        updateSurvivalPrediction(deferredLinesUsed, rcSpace.getLinesCleaned(), deferredSurvivorBytes);
+        lineSurvivalRateExp = survivalPredictor.predict();
+        if (lineSurvivalRateExp < 0.0f) lineSurvivalRateExp = 0;
+        rcSpace.resetLinesCleaned();
+      }
       super.collectionPhase(phaseId);
       if (CC_ENABLED) {
         CC_FORCE_FULL = Options.fullHeapSystemGC.getValue();
 //        performCycleCollection |= (collectionAttempt > 1) || emergencyCollection || CC_FORCE_FULL;
         performCycleCollection |= (collectionAttempt > 2) || emergencyCollection || CC_FORCE_FULL;
-        RCImmixObjectHeader.performCycleCollection = performCycleCollection;
+        if (concurrentTraceActive) {
+          // A full cycle collection now would race with the marks already made, so instead complete the concurrent trace
+          finishConcurrentTrace = concurrentTraceDrained || performCycleCollection;
+          // The concurrent marks also rule out defragmenting now, so an exhausted heap defragments in the next pause
+          defragAfterConcurrentTrace = emergencyCollection;
+          performCycleCollection = false;
+        } else if (concurrentTraceRequested && !performCycleCollection) {
+          startConcurrentTrace = true;
+          concurrentTraceActive = true;
+          RCImmixObjectHeader.concurrentMarking = true;
+        }
+        concurrentTraceRequested = false;
+        processDecBacklog = !performCycleCollection && !finishConcurrentTrace && decBacklogExceeded();
+        RCImmixObjectHeader.performCycleCollection = performCycleCollection || finishConcurrentTrace;
         if (performCycleCollection && Options.verbose.getValue() > 0){
           Log.write(" [CC]");
         }
+        if (startConcurrentTrace && Options.verbose.getValue() > 0){
+          Log.write(" [CC start]");
+        }
+        if (finishConcurrentTrace && Options.verbose.getValue() > 0){
+          Log.write(" [CC finish]");
+        }
+        if (processDecBacklog && Options.verbose.getValue() > 0){
+          Log.write(" [DEC backlog "); Log.write(decBacklogPages()); Log.write("]");
+        }
         if(Options.verbose.getValue() > 0){
           Log.write("[currentDecPool="); Log.write(currentDecPool); Log.write("] ");
         }
@@ -248,6 +503,10 @@ public class RCImmixConcurrent extends StopTheWorld {
       }
       rcSpace.maxCleanPagesForCopy = getCopyReserve();
       rcSpace.exhaustedCopySpace = false;
+      rcSpace.setCopyDeadline(pauseDeadline);
+      // Tracing and defragmenting collections sweep using line marks, so must finish in the pause
+      rcSpace.setDeferSweep(Options.concurrentSweep.getValue() && !RCImmixObjectHeader.performCycleCollection &&
+          getPagesAvail() >= cycleTriggerThreshold);
 
       if(Options.verbose.getValue() > 0){
         Log.write("[STW]");
@@ -258,15 +517,22 @@ public class RCImmixConcurrent extends StopTheWorld {
 
     if (phaseId == PREPARE) {
       super.collectionPhase(phaseId);
-      VM.finalizableProcessor.clear();
-      VM.weakReferences.clear();
-      VM.softReferences.clear();
-      VM.phantomReferences.clear();
+      if (Options.noFinalizer.getValue()) {
+        VM.finalizableProcessor.clear();
+      }
+      if (Options.noReferenceTypes.getValue()) {
+        VM.weakReferences.clear();
+        VM.softReferences.clear();
+        VM.phantomReferences.clear();
+      }
       rootTrace.prepare();
       rcSpace.prepare(true);
       if (CC_BACKUP_TRACE & performCycleCollection) {
         backupTrace.prepare();
       }
+      if (concurrentTraceActive) {
+        satbTrace.prepareNonBlocking();
+      }
       return;
     }
 
@@ -280,20 +546,27 @@ public class RCImmixConcurrent extends StopTheWorld {
       return;
     }
 
+    if (phaseId == PROCESS_NEWREFS) {
+      clearedPool.prepareNonBlocking();
+      return;
+    }
+
     if (phaseId == PROCESS_NEWROOTBUFFER) {
       newRootPool.prepare();
       return;
     }
 
     if (phaseId == PROCESS_MODBUFFER) {
-      modPool.prepare();
+      GCEventTrace.record(GCEventTrace.MOD_BUFFER, Stats.gcCount(), modPool.enqueuedPages());
+      // Termination is detected by the steal pool; a collector blocked here could not steal
+      modPool.prepareNonBlocking();
       return;
     }
 
     if (phaseId == PROCESS_DECBUFFER) {
       //MYNOTE:
-      decPool0.prepare();
-      decPool1.prepare();
+      decPool0.prepareNonBlocking();
+      decPool1.prepareNonBlocking();
       return;
     }
 
@@ -313,6 +586,10 @@ public class RCImmixConcurrent extends StopTheWorld {
       if (CC_BACKUP_TRACE && performCycleCollection) {
         backupTrace.prepare();
       }
+      if (finishConcurrentTrace) {
+        satbTrace.prepare();
+        deferredPool.prepare();
+      }
       return;
     }
 
@@ -320,34 +597,110 @@ public class RCImmixConcurrent extends StopTheWorld {
       rootTrace.release();
       if (CC_BACKUP_TRACE && performCycleCollection) {
         backupTrace.release();
-        rcloSpace.sweep(loFreeSweeper);
+        loFreeSweeper.setMarkValue();
+        rcloSpace.prepareSweep(loFreeSweeper);
+        RCImmixObjectHeader.markValue = RCImmixObjectHeader.markValue.EQ(RCImmixObjectHeader.MARK_BIT_MASK)? Word.zero() : RCImmixObjectHeader.MARK_BIT_MASK;
+        RCImmixObjectHeader.markAllocValue = RCImmixObjectHeader.markAllocValue.EQ(RCImmixObjectHeader.MARK_BIT_MASK)? Word.zero() : RCImmixObjectHeader.MARK_BIT_MASK;
+      }
+      if (finishConcurrentTrace) {
+        satbTrace.release();
+        deferredPool.reset();
+        loFreeSweeper.setMarkValue();
+        rcloSpace.prepareSweep(loFreeSweeper);
         RCImmixObjectHeader.markValue = RCImmixObjectHeader.markValue.EQ(RCImmixObjectHeader.MARK_BIT_MASK)? Word.zero() : RCImmixObjectHeader.MARK_BIT_MASK;
         RCImmixObjectHeader.markAllocValue = RCImmixObjectHeader.markAllocValue.EQ(RCImmixObjectHeader.MARK_BIT_MASK)? Word.zero() : RCImmixObjectHeader.MARK_BIT_MASK;
+        RCImmixObjectHeader.concurrentMarking = false;
+        concurrentTraceActive = false;
+        concurrentTraceDrained = false;
       }
-      rcSpace.release(true);
+      boolean cycleCollected = performCycleCollection || finishConcurrentTrace;
+      lastCollectionTraced = cycleCollected;
+      startConcurrentTrace = false;
+      finishConcurrentTrace = false;
+      processDecBacklog = false;
+      boolean didDefrag = rcSpace.release(true);
+      rcSpace.startLineZeroing();
       int availablePages = getPagesAvail();
-      beginningPagesUsed = rcSpace.reservedPages();
-
-      // MAX heuristic for proactive copying
-      if (!performCycleCollection) {
-        for (int i = N-1; i >0; i--) {
-          a[i] = a[i-1];
-        }
-        a[0] = (rcSpace.linesUsed - rcSpace.linesCleaned) / rcSpace.linesUsed;
+      int retainedPages = rcSpace.reservedPages();
+      int largePagesLeaked = rcloSpace.reservedPages() - largePagesAtPause;
+      boolean sweepDeferred = rcSpace.isSweepDeferred();
+      if (sweepDeferred) {
+        // Leakage is measured once the sweep completes
+        deferredPagesAtStart = beginningPagesUsed;
+        deferredPagesRetained = retainedPages + largePagesLeaked;
+      } else if (!cycleCollected) {
+        updateLeakage(retainedPages - beginningPagesUsed + largePagesLeaked);
+      }
+      largePagesAtPause = rcloSpace.reservedPages();
+      rcSpace.resetPagesReleased();
+      beginningPagesUsed = retainedPages;
+      pacingPagesAtPause = beginningPagesUsed + rcloSpace.reservedPages();
+
+      // Survival prediction for proactive copying
+      if (sweepDeferred) {
+        // The lines this collection frees are only known once its sweep completes
+        deferredLinesUsed = rcSpace.linesUsed;
+        rcSpace.getSurvivorBytes(deferredSurvivorBytes);
+      } else if (!cycleCollected) {
+        rcSpace.getSurvivorBytes(survivorBytes);
+        updateSurvivalPrediction(rcSpace.linesUsed, rcSpace.getLinesCleaned(), survivorBytes);
       }
 
-      lineSurvivalRateExp = max();
+      lineSurvivalRateExp = survivalPredictor.predict();
       if (lineSurvivalRateExp < 0.0f) lineSurvivalRateExp = 0;
 
       rcSpace.linesUsed = 0;
-      rcSpace.linesCleaned = 0;
-
-      performCycleCollection =  availablePages < cycleTriggerThreshold;
+      rcSpace.resetLinesCleaned();
+      rcSpace.resetSurvivorBytes();
+
+      if (didDefrag) {
+        defragIncrementPending = rcSpace.defragIncomplete();
+        tracedSinceDefrag = false;
+      } else if (cycleCollected) {
+        tracedSinceDefrag = true;
+      }
+      performCycleCollection =  availablePages < cycleTriggerThreshold || cycleCollectionPredicted(availablePages);
       performDefrag =  availablePages < defragTriggerThreshold;
+      // A budget-limited defrag leaves the remaining candidates to a later cycle collection,
+      // but when cycles are traced concurrently a concurrent trace runs between increments
+      performDefrag |= defragIncrementPending && (tracedSinceDefrag || !Options.concurrentBackupTrace.getValue());
+      if (defragAfterConcurrentTrace) {
+        performCycleCollection = true;
+        performDefrag = true;
+        defragAfterConcurrentTrace = false;
+      }
+      if (performCycleCollection && !performDefrag && Options.concurrentBackupTrace.getValue()) {
+        // Defragmentation still needs the stop-the-world trace, plain cycle collection does not
+        if (!concurrentTraceActive) concurrentTraceRequested = true;
+        performCycleCollection = false;
+      }
       RCImmixObjectHeader.performSurvivorCopy = false;
 
       if (performCycleCollection) lineSurvivalRateExp = 0;
 
+      long pauseMicros = (VM.statistics.nanoTime() - pauseStart) / 1000;
+      long budgetMicros = 1000L * Options.pauseBudget.getValue();
+      if (pauseDeadline != 0 && pauseMicros > budgetMicros) {
+        int overrun = (int) (pauseMicros - budgetMicros);
+        pauseOverruns.inc();
+        pauseOverrunMicros.inc(overrun);
+        if (Options.verbose.getValue() > 0) {
+          Log.write(" [over budget by "); Log.write(overrun); Log.write("us]");
+        }
+      }
+      pauseDeadline = 0;
+      rcSpace.setCopyDeadline(0);
+
+      return;
+    }
+
+    if (phaseId == COMPLETE) {
+      if (!rcloSpace.isSweepPending()) {
+        // Count the large objects swept since the release against the pause
+        pacingPagesAtPause = beginningPagesUsed + rcloSpace.reservedPages();
+        largePagesAtPause = rcloSpace.reservedPages();
+      }
+      super.collectionPhase(phaseId);
       return;
     }
 
@@ -359,8 +712,19 @@ public class RCImmixConcurrent extends StopTheWorld {
 
     if (phaseId == CONCURRENT_PREPARE) {
       //MYNOTE:
-      decPool0.prepare();
-      decPool1.prepare();
+      decPool0.prepareNonBlocking();
+      decPool1.prepareNonBlocking();
+      if (concurrentTraceActive) {
+        satbTrace.prepareNonBlocking();
+      }
+      int pagesPerWorker = Options.concurrentDecPagesPerWorker.getPages();
+      int workers = concurrentWorkers.activeWorkerCount();
+      concurrentDecWorkers = pagesPerWorker == 0 ? workers : Math.min(workers, 1 + decBacklogPages() / pagesPerWorker);
+      if (Options.verbose.getValue() >= 2) {
+        Log.write("[CONC]< "); Log.write(concurrentDecWorkers); Log.write(" of "); Log.write(workers);
+        Log.writeln(" threads process decrements >");
+      }
+      GCEventTrace.record(GCEventTrace.DEC_BUFFER, Stats.gcCount(), decBacklogPages());
       return;
     }
 
@@ -427,6 +791,9 @@ public class RCImmixConcurrent extends StopTheWorld {
   @Override
   @Interruptible
   protected void registerSpecializedMethods() {
+    TransitiveClosure.registerSpecializedScan(SCAN_MOD, RCImmixConcurrentModifiedProcessor.class);
+    TransitiveClosure.registerSpecializedScan(SCAN_ZERO, RCImmixConcurrentZero.class);
+    TransitiveClosure.registerSpecializedScan(SCAN_DEC, RCImmixConcurrentDecBuffer.class);
     super.registerSpecializedMethods();
   }
 
@@ -444,15 +811,6 @@ public class RCImmixConcurrent extends StopTheWorld {
     return totalBlocks * PAGES_IN_BLOCK;
   }
 
-  @Inline
-  public static double max() {
-    double max = a[0];
-    for (int i = 1; i < N;i++) {
-      if (a[i] > max) max = a[i];
-    }
-    return max;
-  }
-
   @Override
   public byte setBuildTimeGCByte(Address object, ObjectReference typeRef, int size) {
     byte status = 0;
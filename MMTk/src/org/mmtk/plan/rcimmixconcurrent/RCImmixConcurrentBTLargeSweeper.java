@@ -14,18 +14,37 @@ package org.mmtk.plan.rcimmixconcurrent;
 
 import org.mmtk.policy.ExplicitLargeObjectSpace;
 import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
+import org.mmtk.vm.VM;
 import org.vmmagic.pragma.Uninterruptible;
 import org.vmmagic.unboxed.ObjectReference;
+import org.vmmagic.unboxed.Word;
 
 /**
- * This class implements the freeing of large objects during a backup trace.
+ * This class implements the freeing of large objects during a backup trace.<p>
+ *
+ * The sweep may finish after the mark state has been flipped for the
+ * next trace, so it tests objects against the mark value of the trace
+ * that preceded it.  Objects allocated after the flip carry that value
+ * too, and so are retained.
  */
 @Uninterruptible
 public final class RCImmixConcurrentBTLargeSweeper extends ExplicitLargeObjectSpace.Sweeper {
 
+  /** The value of the mark bit of objects the trace found live */
+  private Word markValue;
+
+  /**
+   * Capture the mark value of the trace just completed.  Called before
+   * the mark state is flipped.
+   */
+  public void setMarkValue() {
+    markValue = RCImmixObjectHeader.markValue;
+  }
+
   @Override
   public boolean sweepLargeObject(ObjectReference object) {
-    if (!RCImmixObjectHeader.isMarked(object)) {
+    Word header = VM.objectModel.readAvailableBitsWord(object);
+    if (!header.and(RCImmixObjectHeader.MARK_BIT_MASK).EQ(markValue)) {
       // Free the object
       return true;
     }
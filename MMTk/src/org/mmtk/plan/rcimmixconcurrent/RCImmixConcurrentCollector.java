@@ -19,11 +19,13 @@ import org.mmtk.policy.rcimmix.RCImmixCollectorLocal;
 import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
 import org.mmtk.utility.ForwardingWord;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.Numa;
 import org.mmtk.utility.alloc.RCImmixAllocator;
 import org.mmtk.utility.deque.AddressDeque;
 import org.mmtk.utility.deque.ObjectReferenceDeque;
 import org.mmtk.utility.deque.SharedDeque;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.GCEventTrace;
 import org.mmtk.vm.VM;
 import org.vmmagic.pragma.Inline;
 import org.vmmagic.pragma.Uninterruptible;
@@ -38,6 +40,9 @@ import org.vmmagic.unboxed.Word;
 @Uninterruptible
 public class RCImmixConcurrentCollector extends SimpleCollector {
 
+  /** How often (in decrements, less one) budgeted decrement processing checks the clock */
+  private static final int BUDGET_CHECK_MASK = 1023;
+
   /************************************************************************
    * Initialization
    */
@@ -46,13 +51,23 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
   public TraceLocal backupTrace;
   private final RCImmixConcurrentBTTraceLocal backTrace;
   private final RCImmixConcurrentBTDefragTraceLocal defragTrace;
+  private final SharedDeque modStripe;
   private final ObjectReferenceDeque modBuffer;
+  private final ObjectReferenceDeque modInjection;
   private final ObjectReferenceDeque oldRootBuffer;
+  private final RCImmixConcurrentSATBTraceLocal satbTrace;
+  private final ObjectReferenceDeque deferredBuffer;
+  /** References cleared by this pause, enqueued at the start of the next */
+  private final ObjectReferenceDeque clearedBuffer;
+  private final RCImmixConcurrentReferenceVisitor referenceVisitor;
 
   //MYNOTE:
   private final RCImmixConcurrentDecBuffer decBuffer0;
   private final RCImmixConcurrentDecBuffer decBuffer1;
   private RCImmixConcurrentDecBuffer decBuffer;
+  /** Decrements of the children of dead objects, kept on this thread's stealable stripe */
+  private final SharedDeque decStripe;
+  private final RCImmixConcurrentDecBuffer childBuffer;
 
   public final RCImmixConcurrentZero zero;
   protected RCImmixCollectorLocal rc;
@@ -60,6 +75,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
   protected final RCImmixAllocator young;
   private final RCImmixConcurrentRootSetTraceLocal rootTrace;
   private final RCImmixConcurrentModifiedProcessor modProcessor;
+  private final RCImmixConcurrentIncBuffer incBuffer = new RCImmixConcurrentIncBuffer();
 
   //MYNOTE:
   private static volatile boolean performCycleCollection = false;
@@ -71,12 +87,21 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
     newRootPointerBuffer = new AddressDeque("new-root", global().newRootPool);
     newRootPointerBackBuffer = new AddressDeque("new-root-back", global().newRootBackPool);
     oldRootBuffer = new ObjectReferenceDeque("old-root", global().oldRootPool);
+    satbTrace = new RCImmixConcurrentSATBTraceLocal(global().satbTrace);
+    deferredBuffer = new ObjectReferenceDeque("deferred", global().deferredPool);
+    clearedBuffer = new ObjectReferenceDeque("cleared", global().clearedPool);
+    referenceVisitor = new RCImmixConcurrentReferenceVisitor(this);
 
     //MYNOTE:
     decBuffer0 = new RCImmixConcurrentDecBuffer(global().decPool0);
     decBuffer1 = new RCImmixConcurrentDecBuffer(global().decPool1);
 
-    modBuffer = new ObjectReferenceDeque("mod buf", global().modPool);
+    decStripe = global().decStealPool.newStripe();
+    childBuffer = new RCImmixConcurrentDecBuffer(decStripe);
+
+    modStripe = global().modStealPool.newStripe();
+    modBuffer = new ObjectReferenceDeque("mod buf", modStripe);
+    modInjection = new ObjectReferenceDeque("mod in", global().modPool);
     backTrace = new RCImmixConcurrentBTTraceLocal(global().backupTrace);
     defragTrace = new RCImmixConcurrentBTDefragTraceLocal(global().backupTrace);
     zero = new RCImmixConcurrentZero();
@@ -112,7 +137,11 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
   public void concurrentCollect() {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!Plan.gcInProgress());
     short phaseId = Phase.getConcurrentPhaseId();
+    long start = VM.statistics.nanoTime();
+    GCEventTrace.record(GCEventTrace.CONCURRENT_BEGIN, phaseId, 0);
     concurrentCollectionPhase(phaseId);
+    GCEventTrace.record(GCEventTrace.CONCURRENT_END, phaseId, 0);
+    Plan.concurrentTimes.record(VM.statistics.nanoTime() - start);
   }
 
   //MYNOTE:
@@ -132,12 +161,30 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
         Log.write("[CONC("); Log.write(getId()); Log.write(")] In CONCURRENT");
       }
 
-      if(!performCycleCollection) {
+      // Publish the blocks freed by the last pause first, unless allocators get there before us
+      if (RCImmixConcurrent.rcSpace.isSweepPending()) {
+        rc.startDeferredSweep();
+        while (!group.isAborted() && rc.sweepNextChunk()) { }
+      }
+      while (!group.isAborted() && RCImmixConcurrent.rcloSpace.sweepNextPartition()) { }
+
+      // Pacing: a small backlog is left to fewer threads
+      if(!performCycleCollection && parallelWorkerOrdinal() < RCImmixConcurrent.concurrentDecWorkers) {
         if(RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0) {
           Log.write(" doing DecBuf ");
         }
         decBuffer = global().currentDecPool == 0 ? decBuffer1 : decBuffer0;
         processDecBuf(decBuffer);
+        if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(decBuffer.isEmpty());
+      }
+
+      if (RCImmixConcurrent.concurrentTraceActive) {
+        while (!satbTrace.incrementalTrace(100)) {
+          if (group.isAborted()) {
+            satbTrace.flush();
+            break;
+          }
+        }
       }
 
       if(RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0){
@@ -153,15 +200,11 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
           Log.write("[CONC("); Log.write(getId()); Log.writeln(")] terminating");
         }
 
-        if (VM.VERIFY_ASSERTIONS && !performCycleCollection) {
-          if(RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0) {
-            Log.write("[CONC(");
-            Log.write(getId());
-            Log.write(")] decBuffer");
-            Log.write(decBuffer == decBuffer0 ? 0 : 1);
-            Log.writeln(" should be empty");
-          }
-          VM.assertions._assert(decBuffer.isEmpty());
+        if (RCImmixConcurrent.concurrentTraceActive && !group.isAborted() && !global().satbTrace.hasWork()) {
+          /* The backup trace is out of work; ask for the pause that completes it. */
+          if (Options.verbose.getValue() >= 2) Log.writeln("[CONC]< backup trace drained >");
+          RCImmixConcurrent.concurrentTraceDrained = true;
+          Plan.triggerInternalCollectionRequest();
         }
 
 //        if (!group.isAborted()) {
@@ -191,6 +234,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
   @Override
   @Unpreemptible
   public void run() {
+    Numa.bindWorker(parallelWorkerOrdinal());
     while (true) {
       park();
       if (Plan.concurrentWorkers.isMember(this)) {
@@ -202,10 +246,17 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
   }
 
   /**
-   * {@inheritDoc}
+   * {@inheritDoc}<p>
+   *
+   * The previous collection ended in the concurrent phase, which this pause
+   * has preempted and whose work it takes over.  Its entries are dropped
+   * rather than resumed, or each preempting pause would grow the phase stack.
    */
   @Override
   public void collect() {
+    if (rendezvous() == 0) {
+      Phase.resetPhaseStack();
+    }
     Phase.beginNewPhaseStack(Phase.scheduleComplex(global().collection));
   }
 
@@ -237,7 +288,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
     if (phaseId == RCImmixConcurrent.ROOTS) {
       VM.scanning.computeGlobalRoots(getCurrentTrace());
       VM.scanning.computeStaticRoots(getCurrentTrace());
-      if (Plan.SCAN_BOOT_IMAGE && RCImmixConcurrent.performCycleCollection) {
+      if (Plan.SCAN_BOOT_IMAGE && (RCImmixConcurrent.performCycleCollection || RCImmixConcurrent.startConcurrentTrace)) {
         VM.scanning.computeBootImageRoots(getCurrentTrace());
       }
       return;
@@ -267,6 +318,19 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
       return;
     }
 
+    if (phaseId == RCImmixConcurrent.PROCESS_NEWREFS) {
+      if (primary) {
+        enqueueClearedReferences();
+        if (!(RCImmixConcurrent.CC_BACKUP_TRACE && RCImmixConcurrent.performCycleCollection)) {
+          // Before any survivor is copied, so that held objects never move
+          referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.HOLD);
+          visitReferenceTables(true);
+          modBuffer.flushLocal();
+        }
+      }
+      return;
+    }
+
     if (phaseId == RCImmixConcurrent.PROCESS_NEWROOTBUFFER) {
       ObjectReference current;
       Address address;
@@ -287,10 +351,14 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
                 if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, current)) {
                   RCImmixObjectHeader.incLines(current);
                 }
+                markSurvivor(current);
                 modBuffer.push(current);
               }
               oldRootBuffer.push(current);
             }
+            if (RCImmixConcurrent.startConcurrentTrace) {
+              satbTrace.traceObject(address.loadObjectReference());
+            }
           }
         }
       }
@@ -305,9 +373,23 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
 
     if (phaseId == RCImmixConcurrent.PROCESS_MODBUFFER) {
       ObjectReference current;
-      while(!(current = modBuffer.pop()).isNull()) {
-        RCImmixObjectHeader.makeUnlogged(current);
-        VM.scanning.scanObject(getModifiedProcessor(), current);
+      global().modStealPool.join();
+      do {
+        while(!(current = modBuffer.pop()).isNull() || !(current = modInjection.pop()).isNull()) {
+          RCImmixObjectHeader.makeUnlogged(current);
+          VM.scanning.specializedScanObject(RCImmixConcurrent.SCAN_MOD, modProcessor, current);
+        }
+      } while (global().modStealPool.awaitWork(modStripe, global().modPool));
+      // Increments must all be applied before any decrement is
+      incBuffer.flush();
+      return;
+    }
+
+    if (phaseId == RCImmixConcurrent.PROCESS_REFS) {
+      // Every increment has been applied, so an object whose count is its hold is unreachable
+      if (primary && !(RCImmixConcurrent.CC_BACKUP_TRACE && RCImmixConcurrent.performCycleCollection)) {
+        checkReferenceTables();
+        clearedBuffer.flushLocal();
       }
       return;
     }
@@ -318,7 +400,15 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
         //XXX:
         processDecBuf(decBuffer0);
         processDecBuf(decBuffer1);
+      } else if (RCImmixConcurrent.finishConcurrentTrace) {
+        // Every pending decrement must be shaded before the snapshot can be closed
+        processDecBuf(decBuffer0);
+        processDecBuf(decBuffer1);
       } else {
+        if (RCImmixConcurrent.processDecBacklog) {
+          // Pacing: concurrent decrements fell behind allocation, so catch up in the pause
+          processDecBuf(global().currentDecPool == 0 ? decBuffer1 : decBuffer0, true);
+        }
         decBuffer0.flushLocal();
         decBuffer1.flushLocal();
       }
@@ -346,7 +436,40 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
       if (RCImmixConcurrent.CC_BACKUP_TRACE && RCImmixConcurrent.performCycleCollection) {
         backupTrace.completeTrace();
       }
+      if (RCImmixConcurrent.finishConcurrentTrace) {
+        satbTrace.completeTrace();
+        processDeferred();
+      }
+      return;
+    }
 
+    if (phaseId == RCImmixConcurrent.BT_RETAIN_REFS) {
+      if (primary) {
+        if (RCImmixConcurrent.CC_BACKUP_TRACE && RCImmixConcurrent.performCycleCollection) {
+          if (!Options.noReferenceTypes.getValue() && !Plan.isEmergencyCollection()) {
+            referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.BT_RETAIN);
+            VM.softReferences.visit(referenceVisitor, false);
+          }
+          backupTrace.flush();
+        }
+        if (RCImmixConcurrent.finishConcurrentTrace) {
+          referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.SATB_RETAIN);
+          visitReferenceTables(false);
+          satbTrace.flush();
+        }
+      }
+      return;
+    }
+
+    if (phaseId == RCImmixConcurrent.BT_REFS) {
+      if (primary) {
+        if (RCImmixConcurrent.CC_BACKUP_TRACE && RCImmixConcurrent.performCycleCollection) {
+          processReferencesAfterBackupTrace();
+        }
+        if (RCImmixConcurrent.finishConcurrentTrace) {
+          processReferencesAfterConcurrentTrace();
+        }
+      }
       return;
     }
 
@@ -355,16 +478,32 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
         backupTrace.release();
       }
       getRootTrace().release();
+      if (RCImmixConcurrent.finishConcurrentTrace) {
+        satbTrace.release();
+      } else if (RCImmixConcurrent.concurrentTraceActive) {
+        satbTrace.flush();
+      }
       rc.release(true);
       if (VM.VERIFY_ASSERTIONS) {
         VM.assertions._assert(newRootPointerBuffer.isEmpty());
         VM.assertions._assert(modBuffer.isEmpty());
+        VM.assertions._assert(modInjection.isEmpty());
+        VM.assertions._assert(incBuffer.isEmpty());
         if(performCycleCollection)
           VM.assertions._assert(decBuffer.isEmpty());
       }
       return;
     }
 
+    if (phaseId == RCImmixConcurrent.COMPLETE) {
+      // Large objects found dead by a cycle collection are swept in parallel
+      if (!Options.concurrentSweep.getValue()) {
+        while (RCImmixConcurrent.rcloSpace.sweepNextPartition()) { }
+      }
+      super.collectionPhase(phaseId, primary);
+      return;
+    }
+
     //MYNOTE: what should we do here
     if (phaseId == RCImmixConcurrent.CONCURRENT_PREEMPT){
       if(RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0) {
@@ -376,6 +515,9 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
 
       if(!performCycleCollection) {
         processDecBuf(decBuffer);
+        if (RCImmixConcurrent.concurrentTraceActive) {
+          satbTrace.flush();
+        }
         if (VM.VERIFY_ASSERTIONS) {
           if(RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0) {
             Log.write(decBuffer == decBuffer0 ? 0 : 1);
@@ -399,7 +541,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
         if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
           RCImmixConcurrent.rcloSpace.free(current);
         } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
-          VM.scanning.scanObject(zero, current);
+          VM.scanning.specializedScanObject(RCImmixConcurrent.SCAN_ZERO, zero, current);
         }
       }
     }
@@ -407,6 +549,17 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
 
   @Inline
   private void processDecBuf(RCImmixConcurrentDecBuffer decBuffer){ // in concurrent collector thread
+    processDecBuf(decBuffer, false);
+  }
+
+  /**
+   * Process a decrement buffer.
+   *
+   * @param decBuffer The buffer (and hence pool) to process
+   * @param budgeted If true, stop once the pause budget is used, leaving
+   * the remaining decrements for concurrent processing.
+   */
+  private void processDecBuf(RCImmixConcurrentDecBuffer decBuffer, boolean budgeted) {
     SharedDeque curDecPool = decBuffer == decBuffer0 ? global().decPool0 : global().decPool1;
 
     if (RCImmixConcurrent.VERBOSE && Options.verbose.getValue() > 0) {
@@ -429,36 +582,291 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
           if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
             RCImmixConcurrent.rcloSpace.free(current);
           } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
-            VM.scanning.scanObject(zero, current);
+            VM.scanning.specializedScanObject(RCImmixConcurrent.SCAN_ZERO, zero, current);
           }
         }
       }
     } else {
-      while (!(current = decBuffer.pop()).isNull()) {
-        //MYNOTE: this will cause issues!!!
-//      while (curDecPool.enqueuedPages() > 0 && !(current = decBuffer.pop()).isNull()) {
-        if (RCImmixObjectHeader.isNew(current)) {
-          if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
-            RCImmixConcurrent.rcloSpace.free(current);
-          } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
-            VM.scanning.scanObject(zero, current);
+      boolean outOfTime = false;
+      int processed = 0;
+      global().decStealPool.join();
+      do {
+        // Children of dead objects first: this keeps the recursion local and stealable
+        while (!(current = childBuffer.pop()).isNull() || !(current = decBuffer.pop()).isNull()) {
+          processDec(current);
+          if (budgeted && (++processed & BUDGET_CHECK_MASK) == 0 && RCImmixConcurrent.pauseBudgetExceeded()) {
+            outOfTime = true;
+            break;
           }
-        } else {
-          if (RCImmixObjectHeader.decRC(current) == RCImmixObjectHeader.DEC_KILL) {
-            decBuffer.processChildren(current);
-            if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, current)) {
-              RCImmixObjectHeader.decLines(current);
-            } else if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
-              RCImmixConcurrent.rcloSpace.free(current);
-            } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
-              VM.scanning.scanObject(zero, current);
-            }
+        }
+      } while (!outOfTime && global().decStealPool.awaitWork(decStripe, curDecPool));
+      if (outOfTime) {
+        // Anything left in the stripe is picked up by the next round of decrement processing
+        childBuffer.flushLocal();
+        decBuffer.flushLocal();
+        global().decStealPool.leave();
+      }
+      deferredBuffer.flushLocal();
+    }
+  }
+
+  /**
+   * Apply one decrement, recursively decrementing the children of the
+   * object if it dies.
+   *
+   * @param current The object whose count is to be decremented
+   */
+  @Inline
+  private void processDec(ObjectReference current) {
+    if (RCImmixObjectHeader.isNew(current)) {
+      if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
+        RCImmixConcurrent.rcloSpace.free(current);
+      } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
+        VM.scanning.specializedScanObject(RCImmixConcurrent.SCAN_ZERO, zero, current);
+      }
+    } else {
+      if (RCImmixConcurrent.concurrentTraceActive) {
+        // Snapshot-at-the-beginning: shade the overwritten referent
+        satbTrace.traceObject(current);
+      }
+      if (RCImmixObjectHeader.decRC(current) == RCImmixObjectHeader.DEC_KILL) {
+        childBuffer.processChildren(current);
+        if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, current)) {
+          if (RCImmixConcurrent.concurrentTraceActive) {
+            deferredBuffer.push(current);
+          } else {
+            RCImmixObjectHeader.decLines(current);
           }
+        } else if (Space.isInSpace(RCImmixConcurrent.REF_COUNT_LOS, current)) {
+          if (RCImmixConcurrent.concurrentTraceActive) {
+            deferredBuffer.push(current);
+          } else {
+            RCImmixConcurrent.rcloSpace.free(current);
+          }
+        } else if (Space.isInSpace(RCImmixConcurrent.IMMORTAL, current)) {
+          VM.scanning.specializedScanObject(RCImmixConcurrent.SCAN_ZERO, zero, current);
+        }
+      }
+    }
+  }
+
+  /****************************************************************************
+   *
+   * Reference and finalizable tables
+   */
+
+  /**
+   * Visit every reference and finalizable table in use.
+   *
+   * @param nursery {@code true} to visit only entries added since the
+   * last visit
+   */
+  private void visitReferenceTables(boolean nursery) {
+    if (!Options.noReferenceTypes.getValue()) {
+      VM.softReferences.visit(referenceVisitor, nursery);
+      VM.weakReferences.visit(referenceVisitor, nursery);
+      VM.phantomReferences.visit(referenceVisitor, nursery);
+    }
+    if (!Options.noFinalizer.getValue()) {
+      VM.finalizableProcessor.visit(referenceVisitor, nursery);
+    }
+  }
+
+  /**
+   * Drop, clear or finalize the entries of objects held by nothing but
+   * the tables, in the order a tracing collector would: soft and weak
+   * referents are cleared before their objects are finalized, phantom
+   * referents only after.  The finalizable holds are set aside while the
+   * soft and weak tables are checked, so that they do not keep a
+   * finalizable referent from being cleared.
+   */
+  private void checkReferenceTables() {
+    boolean finalizers = !Options.noFinalizer.getValue();
+    if (!Options.noReferenceTypes.getValue()) {
+      if (finalizers) {
+        referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.DISCOUNT);
+        VM.finalizableProcessor.visit(referenceVisitor, false);
+      }
+      referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.CHECK);
+      VM.softReferences.visit(referenceVisitor, false);
+      VM.weakReferences.visit(referenceVisitor, false);
+      if (finalizers) {
+        referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.RESTORE);
+        VM.finalizableProcessor.visit(referenceVisitor, false);
+        referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.CHECK);
+      }
+      VM.phantomReferences.visit(referenceVisitor, false);
+    }
+    if (finalizers) {
+      referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.CHECK);
+      VM.finalizableProcessor.visit(referenceVisitor, false);
+    }
+  }
+
+  /**
+   * Enqueue the references cleared by the last pause, and release their
+   * holds.  Enqueueing runs the write barrier, which is only safe before
+   * the mod buffer is processed: the increments it logs are then applied
+   * in this pause, ahead of the decrements.
+   */
+  private void enqueueClearedReferences() {
+    ObjectReference reference;
+    boolean enqueued = false;
+    while (!(reference = clearedBuffer.pop()).isNull()) {
+      // Any table will do: enqueueing does not depend on the semantics
+      VM.weakReferences.enqueueReference(reference);
+      releaseReference(reference);
+      enqueued = true;
+    }
+    if (enqueued) {
+      VM.activePlan.mutator().flushRememberedSets();
+    }
+  }
+
+  /**
+   * Process the tables once the stop-the-world backup trace is complete,
+   * in the order a tracing collector would, then take the holds afresh,
+   * since the trace recomputed every count.  Only the objects made ready
+   * for finalization are traced here, on this thread alone.
+   */
+  private void processReferencesAfterBackupTrace() {
+    global().backupTrace.prepareNonBlocking();
+    referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.BT_SCAN);
+    if (!Options.noReferenceTypes.getValue()) {
+      VM.weakReferences.visit(referenceVisitor, false);
+      VM.softReferences.visit(referenceVisitor, false);
+    }
+    if (!Options.noFinalizer.getValue()) {
+      VM.finalizableProcessor.visit(referenceVisitor, false);
+      backupTrace.completeTrace();
+    }
+    if (!Options.noReferenceTypes.getValue()) {
+      VM.phantomReferences.visit(referenceVisitor, false);
+    }
+    referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.HOLD);
+    visitReferenceTables(false);
+    clearedBuffer.flushLocal();
+  }
+
+  /**
+   * Process the tables once the concurrent backup trace is complete.  A
+   * mutator may have fetched the referent of any reference the trace
+   * reached, so referents are shaded until no more references are
+   * reached; only then are the entries of unreached references dropped.
+   */
+  private void processReferencesAfterConcurrentTrace() {
+    global().satbTrace.prepareNonBlocking();
+    referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.SATB_RETAIN);
+    visitReferenceTables(false);
+    while (referenceVisitor.shadedAny()) {
+      satbTrace.completeTrace();
+      referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.SATB_RETAIN);
+      visitReferenceTables(false);
+    }
+    referenceVisitor.setMode(RCImmixConcurrentReferenceVisitor.SATB_SWEEP);
+    visitReferenceTables(false);
+    decBuffer.flushLocal();
+  }
+
+  /**
+   * Take a reference count on an object held by a reference or
+   * finalizable table.  An object that has not yet survived a collection
+   * survives this one, as it would if a root referred to it.
+   *
+   * @param object The object
+   */
+  @Inline
+  final void holdReference(ObjectReference object) {
+    if (RCImmixConcurrent.isRCObject(object)) {
+      if (RCImmixObjectHeader.incRC(object) == RCImmixObjectHeader.INC_NEW) {
+        if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, object)) {
+          RCImmixObjectHeader.incLines(object);
         }
+        markSurvivor(object);
+        modBuffer.push(object);
+      }
+    }
+  }
+
+  /**
+   * Release a hold taken by {@link #holdReference}.
+   *
+   * @param object The object
+   */
+  @Inline
+  final void releaseReference(ObjectReference object) {
+    if (RCImmixConcurrent.isRCObject(object)) {
+      decBuffer.push(object);
+    }
+  }
+
+  /**
+   * Enqueue a cleared reference at the start of the next pause.  The
+   * reference must be held until then.
+   *
+   * @param reference The reference object
+   */
+  @Inline
+  final void enqueueLater(ObjectReference reference) {
+    if (!reference.isNull()) {
+      clearedBuffer.push(reference);
+    }
+  }
+
+  /**
+   * @param object An object
+   * @return {@code true} if the concurrent backup trace has reached the object
+   */
+  @Inline
+  final boolean isShaded(ObjectReference object) {
+    return satbTrace.isLive(object);
+  }
+
+  /**
+   * Shade an object for the concurrent backup trace.
+   *
+   * @param object The object
+   */
+  @Inline
+  final void shade(ObjectReference object) {
+    satbTrace.traceObject(object);
+  }
+
+  /**
+   * Reclaim the objects that died while the concurrent backup trace was
+   * running.  Their space could not be released earlier because the trace
+   * may still have held references to them in its gray queue.
+   */
+  @Inline
+  private void processDeferred() {
+    ObjectReference current;
+    while (!(current = deferredBuffer.pop()).isNull()) {
+      if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, current)) {
+        RCImmixObjectHeader.decLines(current);
+      } else {
+        RCImmixConcurrent.rcloSpace.free(current);
       }
     }
   }
 
+  /**
+   * An object has survived its first collection.  Count its bytes for
+   * survival prediction.  If a concurrent backup trace is in progress the
+   * object was allocated after the snapshot, so shade it to keep it (and
+   * anything it references) alive.
+   *
+   * @param object The surviving object, after any copy
+   */
+  @Inline
+  final void markSurvivor(ObjectReference object) {
+    if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, object)) {
+      RCImmixConcurrent.rcSpace.countSurvivor(object);
+    }
+    if (RCImmixConcurrent.concurrentTraceActive) {
+      satbTrace.traceSurvivor(object);
+    }
+  }
+
   /****************************************************************************
    *
    * Miscellaneous
@@ -475,6 +883,17 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
     return getRootTrace();
   }
 
+  /**
+   * Defer an increment of an old object, to be applied together with any
+   * other increments of the same object.
+   *
+   * @param object The object whose reference count is to be incremented
+   */
+  @Inline
+  final void coalesceInc(ObjectReference object) {
+    incBuffer.inc(object);
+  }
+
   /** @return The current modBuffer instance. */
   @Inline
   public final ObjectReferenceDeque getModBuffer() {
@@ -554,6 +973,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
              }
              slot.store(newObject);
              RCImmixObjectHeader.incLines(newObject);
+             markSurvivor(newObject);
              modBuffer.push(newObject);
              if (root) oldRootBuffer.push(newObject);
            }
@@ -561,6 +981,7 @@ public class RCImmixConcurrentCollector extends SimpleCollector {
        }
      } else {
        if (RCImmixObjectHeader.incRC(object) == RCImmixObjectHeader.INC_NEW) {
+         markSurvivor(object);
          modBuffer.push(object);
        }
        if (root) oldRootBuffer.push(object);
@@ -15,6 +15,7 @@ package org.mmtk.plan.rcimmixconcurrent;
 import org.mmtk.plan.StopTheWorldConstraints;
 import org.vmmagic.pragma.Uninterruptible;
 
+import static org.mmtk.policy.rcimmix.RCImmixConstants.MAX_COLLECTORS;
 import static org.mmtk.policy.rcimmix.RCImmixConstants.MAX_IMMIX_OBJECT_BYTES;
 
 /**
@@ -39,10 +40,13 @@ public class RCImmixConcurrentConstraints extends StopTheWorldConstraints {
   public boolean movesObjects() { return true;}
   @Override
   public int maxNonLOSCopyBytes() { return MAX_IMMIX_OBJECT_BYTES; }
+  @Override
+  public int numSpecializedScans() { return 3; }
 
   //MYNOTE:
   @Override
   public boolean needsConcurrentWorkers(){ return true; }
+  /** Per-collector state of the reference counted space is sized for MAX_COLLECTORS */
   @Override
-  public int maxNumGCThreads(){ return 1; }
+  public int maxNumGCThreads(){ return MAX_COLLECTORS; }
 }
@@ -36,7 +36,7 @@ public final class RCImmixConcurrentDecBuffer extends ObjectReferenceBuffer {
    * @param queue The shared deque that is used.
    */
   public RCImmixConcurrentDecBuffer(SharedDeque queue) {
-    super("dec", queue);
+    super("dec", queue, RCImmixConcurrent.SCAN_DEC);
   }
 
   @Override
@@ -0,0 +1,102 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.rcimmixconcurrent;
+
+import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.NoInline;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.AddressArray;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * This class coalesces reference count increments to old objects for
+ * one RCImmixConcurrent collector.<p>
+ *
+ * Increments are collected in a fixed-size buffer.  When the buffer
+ * fills, or when the collector asks, the buffer is sorted by address.
+ * Each run of equal entries then becomes a single header update.  Large
+ * object graphs often hold many references to the same few objects, so
+ * this removes most of the atomic header traffic in
+ * <code>PROCESS_MODBUFFER</code>, and the updates that remain are
+ * applied in address order.<p>
+ *
+ * Only objects that are known to be old may be deferred.  An old object
+ * stays old for the rest of the pause and is never forwarded, so
+ * increments to it commute with everything else the collectors do
+ * before decrements are processed.
+ */
+@Uninterruptible
+public final class RCImmixConcurrentIncBuffer {
+
+  /** Entries per batch */
+  private static final int CAPACITY = 1024;
+
+  private final AddressArray entries = AddressArray.create(CAPACITY);
+  private int count = 0;
+
+  /**
+   * Defer an increment of an old object.
+   *
+   * @param object The object whose reference count is to be incremented
+   */
+  @Inline
+  public void inc(ObjectReference object) {
+    if (count == CAPACITY) flush();
+    entries.set(count++, object.toAddress());
+  }
+
+  /**
+   * Apply all deferred increments.
+   */
+  @NoInline
+  public void flush() {
+    sort();
+    int i = 0;
+    while (i < count) {
+      Address object = entries.get(i);
+      int run = 1;
+      while (i + run < count && entries.get(i + run).EQ(object)) run++;
+      RCImmixObjectHeader.incRCOld(object.toObjectReference(), run);
+      i += run;
+    }
+    count = 0;
+  }
+
+  /**
+   * @return <code>true</code> if no increments are deferred.
+   */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * Shell sort the buffered entries by address.
+   */
+  private void sort() {
+    int gap = 1;
+    while (gap < count / 3) gap = 3 * gap + 1;
+    for (; gap > 0; gap /= 3) {
+      for (int i = gap; i < count; i++) {
+        Address value = entries.get(i);
+        int j = i;
+        while (j >= gap && entries.get(j - gap).GT(value)) {
+          entries.set(j, entries.get(j - gap));
+          j -= gap;
+        }
+        entries.set(j, value);
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ public final class RCImmixConcurrentModifiedProcessor extends TransitiveClosure
   private RCImmixConcurrentCollector collector;
 
   public RCImmixConcurrentModifiedProcessor(RCImmixConcurrentCollector ctor) {
+    super(RCImmixConcurrent.SCAN_MOD);
     this.collector = ctor;
   }
 
@@ -44,6 +45,8 @@ public final class RCImmixConcurrentModifiedProcessor extends TransitiveClosure
         if (RCImmixObjectHeader.remainRC(object) == RCImmixObjectHeader.INC_NEW) {
           collector.getModBuffer().push(object);
         }
+      } else if (RCImmixConcurrent.RC_COALESCE_INCREMENTS && RCImmixObjectHeader.isStableOld(object)) {
+        collector.coalesceInc(object);
       } else {
         if (RCImmixConcurrent.RC_SURVIVOR_COPY) {
           collector.survivorCopy(slot, object, false);
@@ -52,6 +55,7 @@ public final class RCImmixConcurrentModifiedProcessor extends TransitiveClosure
             if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, object)) {
               RCImmixObjectHeader.incLines(object);
             }
+            collector.markSurvivor(object);
             collector.getModBuffer().push(object);
           }
         }
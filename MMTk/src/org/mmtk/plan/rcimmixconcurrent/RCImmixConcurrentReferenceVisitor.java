@@ -0,0 +1,257 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.rcimmixconcurrent;
+
+import org.mmtk.plan.ReferenceTableVisitor;
+import org.mmtk.policy.Space;
+import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
+import org.mmtk.utility.ForwardingWord;
+import org.mmtk.vm.ReferenceProcessor.Semantics;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * This class decides what becomes of the entries in the reference and
+ * finalizable tables.<p>
+ *
+ * Each table entry holds one reference count on its reference object and
+ * one on its referent (a finalizable object holds one on itself), taken
+ * when the entry is first seen.  The holds stop reference counting from
+ * reclaiming objects the tables still refer to, and make the test for
+ * reachability simple: once a decrement has brought an object's count
+ * down to its hold, nothing else refers to it.  Holds are released with
+ * ordinary (deferred) decrements.<p>
+ *
+ * The referent of a weak reference is cleared before it is finalized,
+ * as Java requires.  The finalizable holds are set aside while the soft
+ * and weak tables are checked, so that a referent held by one reference
+ * and the finalizable table is found unreachable; it is finalized in a
+ * later pause, once the decrement releasing the reference's hold has
+ * been applied.<p>
+ *
+ * Any other object held more than once, for example the referent of two
+ * references, is never found unreachable this way, and is left to the
+ * backup traces.  Those establish liveness as a tracing collector would:
+ * the stop-the-world trace recomputes all counts, so the holds are taken
+ * afresh once it is done; the concurrent trace treats referents as
+ * strongly reachable, and only drops the entries of references it found
+ * dead.
+ */
+@Uninterruptible
+public final class RCImmixConcurrentReferenceVisitor extends ReferenceTableVisitor {
+
+  /** Take the holds for each entry */
+  public static final int HOLD = 0;
+  /** Drop, clear or finalize the entries of objects held by nothing else */
+  public static final int CHECK = 1;
+  /** Retain the referents of soft references reached by the backup trace */
+  public static final int BT_RETAIN = 2;
+  /** Drop, clear or finalize the entries of objects the backup trace did not reach */
+  public static final int BT_SCAN = 3;
+  /** Shade the referents of references the concurrent trace reached */
+  public static final int SATB_RETAIN = 4;
+  /** Drop the entries of references the concurrent trace did not reach */
+  public static final int SATB_SWEEP = 5;
+  /** Set aside the hold of each finalizable object */
+  public static final int DISCOUNT = 6;
+  /** Restore the holds set aside by <code>DISCOUNT</code> */
+  public static final int RESTORE = 7;
+
+  private final RCImmixConcurrentCollector collector;
+  private int mode;
+  /** Has anything been shaded since the mode was set? */
+  private boolean shaded;
+
+  /**
+   * Constructor
+   *
+   * @param collector The collector whose buffers and traces are used
+   */
+  public RCImmixConcurrentReferenceVisitor(RCImmixConcurrentCollector collector) {
+    this.collector = collector;
+  }
+
+  /**
+   * Set what the next visits do.
+   *
+   * @param mode One of the modes above
+   */
+  public void setMode(int mode) {
+    this.mode = mode;
+    this.shaded = false;
+  }
+
+  /** @return {@code true} if a <code>SATB_RETAIN</code> visit shaded a referent */
+  public boolean shadedAny() {
+    return shaded;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int visitReference(ObjectReference reference, ObjectReference referent, Semantics semantics) {
+    switch (mode) {
+      case HOLD:
+        if (referent.isNull()) return DROP;
+        collector.holdReference(reference);
+        collector.holdReference(referent);
+        return KEEP;
+
+      case CHECK:
+        if (isOnlyHeld(reference)) {
+          collector.releaseReference(referent);
+          collector.releaseReference(reference);
+          return DROP;
+        }
+        if (referent.isNull()) {
+          collector.releaseReference(reference);
+          return DROP;
+        }
+        if (semantics != Semantics.SOFT && isOnlyHeld(referent)) {
+          // The reference keeps its hold until it is enqueued
+          collector.releaseReference(referent);
+          collector.enqueueLater(reference);
+          return CLEAR;
+        }
+        return KEEP;
+
+      case BT_RETAIN:
+        if (isTraced(reference) && !referent.isNull()) {
+          ObjectReference retained = collector.backupTrace.traceObject(referent);
+          // Not a real edge: the referent's hold is taken once the trace is complete
+          if (RCImmixConcurrent.isRCObject(retained)) RCImmixObjectHeader.decRC(retained);
+        }
+        return KEEP;
+
+      case BT_SCAN:
+        if (!isTraced(reference) || referent.isNull()) return DROP;
+        if (isTraced(referent)) return KEEP;
+        reference = getForwardedReference(reference);
+        collector.holdReference(reference);
+        collector.enqueueLater(reference);
+        return CLEAR;
+
+      case SATB_RETAIN:
+        if (isShaded(reference) && !referent.isNull() && !isShaded(referent)) {
+          collector.shade(referent);
+          shaded = true;
+        }
+        return KEEP;
+
+      case SATB_SWEEP:
+        if (isShaded(reference)) return KEEP;
+        // The reference is swept; so is its referent unless something else reached it
+        if (isShaded(referent)) collector.releaseReference(referent);
+        return DROP;
+
+      default:
+        VM.assertions.fail("Unknown reference visitor mode");
+        return KEEP;
+    }
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * The hold on a finalized object stands for its slot in the table of
+   * objects ready for finalization, and is released by the write barrier
+   * when the finalizer thread takes it from there.
+   */
+  @Override
+  public int visitFinalizable(ObjectReference object) {
+    switch (mode) {
+      case HOLD:
+        collector.holdReference(object);
+        return KEEP;
+
+      case CHECK:
+        return isOnlyHeld(object) ? FINALIZE : KEEP;
+
+      case DISCOUNT:
+        // Applied at once, not deferred: nothing else runs until RESTORE
+        if (RCImmixConcurrent.isRCObject(object)) RCImmixObjectHeader.decRC(object);
+        return KEEP;
+
+      case RESTORE:
+        if (RCImmixConcurrent.isRCObject(object)) RCImmixObjectHeader.incRCOld(object);
+        return KEEP;
+
+      case BT_SCAN:
+        if (isTraced(object)) return KEEP;
+        // The edge the trace counts here stands for the slot in the ready table
+        collector.backupTrace.traceObject(object);
+        return FINALIZE;
+
+      case SATB_RETAIN:
+        if (!isShaded(object)) {
+          collector.shade(object);
+          shaded = true;
+        }
+        return KEEP;
+
+      case SATB_SWEEP:
+        if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isShaded(object));
+        return KEEP;
+
+      default:
+        VM.assertions.fail("Unknown finalizable visitor mode");
+        return KEEP;
+    }
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Held objects are never copied as survivors, so only a defragmenting
+   * backup trace moves them.
+   */
+  @Override
+  @Inline
+  public ObjectReference getForwardedReference(ObjectReference object) {
+    if ((mode == BT_RETAIN || mode == BT_SCAN) && RCImmixConcurrent.rcSpace.inImmixDefragCollection() &&
+        !object.isNull() && Space.isInSpace(RCImmixConcurrent.REF_COUNT, object) && ForwardingWord.isForwarded(object)) {
+      return ForwardingWord.extractForwardingPointer(VM.objectModel.readAvailableBitsWord(object));
+    }
+    return object;
+  }
+
+  /**
+   * @param object An object held by a table entry
+   * @return {@code true} if the entry's hold is all that refers to the object
+   */
+  @Inline
+  private static boolean isOnlyHeld(ObjectReference object) {
+    return RCImmixConcurrent.isRCObject(object) && RCImmixObjectHeader.getRC(object) == 1;
+  }
+
+  /**
+   * @param object An object
+   * @return {@code true} if the stop-the-world backup trace reached the object
+   */
+  @Inline
+  private boolean isTraced(ObjectReference object) {
+    return !RCImmixConcurrent.isRCObject(object) || collector.backupTrace.isLive(object);
+  }
+
+  /**
+   * @param object An object
+   * @return {@code true} if the concurrent backup trace reached the object
+   */
+  @Inline
+  private boolean isShaded(ObjectReference object) {
+    return !RCImmixConcurrent.isRCObject(object) || collector.isShaded(object);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.plan.rcimmixconcurrent;
+
+import org.mmtk.plan.Trace;
+import org.mmtk.plan.TraceLocal;
+import org.mmtk.policy.Space;
+import org.mmtk.policy.rcimmix.RCImmixObjectHeader;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * This class implements the thread-local functionality for the concurrent
+ * (snapshot-at-the-beginning) backup trace.<p>
+ *
+ * Unlike the stop-the-world backup trace, this trace only marks: it never
+ * moves objects and never rebuilds object or line reference counts, since
+ * mutators keep changing them while it runs.  The counts it leaves can
+ * only be too high: garbage it reclaims is never decremented, so what that
+ * garbage referenced keeps its counts.  This delays reclaiming those objects
+ * and lines until a later trace finds them unmarked, or a stop-the-world
+ * cycle collection rebuilds the counts, but never frees anything live.<p>
+ *
+ * The coalescing write barrier already logs every overwritten referent
+ * into the decrement buffers, so the snapshot is preserved by shading each
+ * decrement before it is applied.
+ * Objects which have not yet survived a collection were allocated after the
+ * snapshot and are ignored until they survive, when they are shaded too.
+ */
+@Uninterruptible
+public final class RCImmixConcurrentSATBTraceLocal extends TraceLocal {
+
+  /**
+   * Constructor
+   *
+   * @param trace The trace associated with this trace local.
+   */
+  public RCImmixConcurrentSATBTraceLocal(Trace trace) {
+    super(trace);
+  }
+
+  /****************************************************************************
+   *
+   * Externally visible Object processing and tracing
+   */
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isLive(ObjectReference object) {
+    if (object.isNull()) return false;
+    return RCImmixObjectHeader.isNew(object) || RCImmixObjectHeader.isMarked(object);
+  }
+
+  /**
+   * {@inheritDoc}<p>
+   *
+   * Mark (shade) the object and, if it was previously unmarked, enqueue
+   * it for scanning.
+   *
+   * @param object The object to be traced.
+   * @return The object (this trace never moves objects).
+   */
+  @Override
+  @Inline
+  public ObjectReference traceObject(ObjectReference object) {
+    if (RCImmixConcurrent.isRCObject(object) && !RCImmixObjectHeader.isNew(object)) {
+      if (RCImmixObjectHeader.testAndMark(object)) {
+        if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, object)) {
+          RCImmixObjectHeader.markLines(object);
+        }
+        processNode(object);
+      }
+    }
+    return object;
+  }
+
+  /**
+   * Shade an object which has just survived its first collection.  Its
+   * mark state is whatever it was allocated with, so it is marked
+   * unconditionally and enqueued for scanning.
+   *
+   * @param object The surviving object.
+   */
+  @Inline
+  public void traceSurvivor(ObjectReference object) {
+    RCImmixObjectHeader.setMarked(object);
+    if (Space.isInSpace(RCImmixConcurrent.REF_COUNT, object)) {
+      RCImmixObjectHeader.markLines(object);
+    }
+    processNode(object);
+  }
+
+  /**
+   * The trace runs concurrently with the mutators, so it must never write
+   * back to the slots it reads.
+   */
+  @Override
+  protected boolean overwriteReferenceDuringTrace() {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Inline
+  public boolean willNotMoveInCurrentCollection(ObjectReference object) {
+    return true;
+  }
+}
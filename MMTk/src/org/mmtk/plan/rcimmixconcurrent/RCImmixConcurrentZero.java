@@ -27,6 +27,10 @@ import org.vmmagic.unboxed.ObjectReference;
 @Uninterruptible
 public final class RCImmixConcurrentZero extends TransitiveClosure {
 
+  public RCImmixConcurrentZero() {
+    super(RCImmixConcurrent.SCAN_ZERO);
+  }
+
   @Override
   @Inline
   public void processEdge(ObjectReference source, Address slot) {
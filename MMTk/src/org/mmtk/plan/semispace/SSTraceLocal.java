@@ -27,7 +27,7 @@ import org.vmmagic.unboxed.*;
 public class SSTraceLocal extends TraceLocal {
 
   public SSTraceLocal(Trace trace, boolean specialized) {
-    super(specialized ? SS.SCAN_SS : -1, trace);
+    super(specialized ? SS.SCAN_SS : -1, trace, true);
   }
 
   /**
@@ -60,6 +60,7 @@ public abstract class BaseLargeObjectSpace extends Space {
    */
   public BaseLargeObjectSpace(String name, boolean zeroed, VMRequest vmRequest) {
     super(name, false, false, zeroed, vmRequest);
+    hugePageCandidate = true;
     if (vmRequest.isDiscontiguous()) {
       pr = new FreeListPageResource(this, 0);
     } else {
@@ -78,6 +79,24 @@ public abstract class BaseLargeObjectSpace extends Space {
     return superPageHeaderSize() + cellHeaderSize();
   }
 
+  /****************************************************************************
+   *
+   * Allocation
+   */
+
+  /**
+   * Acquire the memory for a new cell.  By default every cell has pages
+   * of its own.
+   *
+   * @param bytes The size of the cell in bytes, including its headers
+   * @return The address of the first byte of the cell, or zero if the
+   * request could not be satisfied.
+   */
+  public Address acquireCell(int bytes) {
+    int pages = (bytes + BYTES_IN_PAGE - 1) >> LOG_BYTES_IN_PAGE;
+    return acquire(pages);
+  }
+
   /****************************************************************************
    *
    * Freeing
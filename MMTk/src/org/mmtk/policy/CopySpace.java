@@ -15,6 +15,7 @@ package org.mmtk.policy;
 import static org.mmtk.utility.Constants.*;
 
 import org.mmtk.plan.TransitiveClosure;
+import org.mmtk.utility.alloc.BumpPointer;
 import org.mmtk.utility.heap.*;
 import org.mmtk.utility.options.Options;
 import org.mmtk.utility.ForwardingWord;
@@ -105,6 +106,7 @@ import org.vmmagic.pragma.*;
     } else {
       pr = new MonotonePageResource(this, start, extent, META_DATA_PAGES_PER_REGION);
     }
+    cachedRunPages = BumpPointer.BLOCK_SIZE >> LOG_BYTES_IN_PAGE;
   }
 
   /****************************************************************************
@@ -12,13 +12,15 @@
  */
 package org.mmtk.policy;
 
-import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
+import static org.mmtk.utility.Constants.*;
 
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.FreeListPageResource;
 import org.mmtk.utility.heap.VMRequest;
+import org.mmtk.utility.options.Options;
 import org.mmtk.utility.DoublyLinkedList;
 
+import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
 
 import org.vmmagic.pragma.*;
@@ -26,7 +28,24 @@ import org.vmmagic.unboxed.*;
 
 /**
  * Each instance of this class corresponds to one explicitly managed
- * large object space.
+ * large object space.<p>
+ *
+ * The cells of the space are spread over several lists (partitions),
+ * chosen by address, so that a sweep can be divided between collector
+ * threads, and can proceed concurrently with mutators and with threads
+ * freeing objects: each partition is swept while holding its lock.<p>
+ *
+ * With the medium object tier enabled, cells of up to
+ * {@link #MAX_MEDIUM_BYTES} are not given pages of their own but are
+ * packed into blocks of same-sized cells, with size classes sixteen to
+ * each power of two.  This bounds the space wasted by rounding to
+ * one sixteenth, and takes pages from the page resource a block at a
+ * time.  A block whose cells are all free returns its pages to the page
+ * resource.<p>
+ *
+ * Every cell starts with padding whose last word holds the block the cell
+ * belongs to (zero if the cell has pages of its own), followed by the
+ * list node and the object.
  */
 @Uninterruptible
 public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
@@ -36,10 +55,71 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
    * Instance variables
    */
 
+  /** The number of partitions the cells are spread over, several per collector thread to balance the sweep */
+  public static final int LOG_PARTITIONS = 6;
+  public static final int PARTITIONS = 1 << LOG_PARTITIONS;
+
+  /** Cells larger than a page and no larger than this may be packed into medium object blocks */
+  private static final int LOG_MAX_MEDIUM_BYTES = 16;
+  public static final int MAX_MEDIUM_BYTES = 1 << LOG_MAX_MEDIUM_BYTES;
+  private static final int LOG_CLASSES_PER_DOUBLING = 4;
+  static final int MEDIUM_SIZE_CLASSES = (LOG_MAX_MEDIUM_BYTES - LOG_BYTES_IN_PAGE) << LOG_CLASSES_PER_DOUBLING;
+  static final int MIN_CELLS_IN_BLOCK = 8;
+
+  /* Cell layout */
+  static final int NODE_OFFSET = 1 << DoublyLinkedList.logNodeAlignment();
+  private static final Offset CELL_BLOCK_OFFSET = Offset.fromIntSignExtend(NODE_OFFSET - BYTES_IN_ADDRESS);
+  private static final Offset NEXT_FREE_CELL_OFFSET = Offset.zero();
+
+  /* Medium object block header layout */
+  private static final Offset SIZE_CLASS_OFFSET = Offset.zero();
+  private static final Offset LIVE_CELLS_OFFSET = Offset.fromIntSignExtend(BYTES_IN_INT);
+  private static final Offset CURSOR_OFFSET = Offset.fromIntSignExtend(2 * BYTES_IN_INT);
+  private static final Offset FREE_CELL_OFFSET = CURSOR_OFFSET.plus(BYTES_IN_ADDRESS);
+  private static final Offset NEXT_BLOCK_OFFSET = FREE_CELL_OFFSET.plus(BYTES_IN_ADDRESS);
+  private static final Offset PREV_BLOCK_OFFSET = NEXT_BLOCK_OFFSET.plus(BYTES_IN_ADDRESS);
+  static final int BLOCK_HEADER_BYTES = (PREV_BLOCK_OFFSET.toInt() + BYTES_IN_ADDRESS + NODE_OFFSET - 1) & ~(NODE_OFFSET - 1);
+
+  /** The size of the cells, the pages in a block and the cells in a block, of each medium object size class */
+  static final int[] cellSize = new int[MEDIUM_SIZE_CLASSES];
+  static final int[] blockPages = new int[MEDIUM_SIZE_CLASSES];
+  static final int[] cellsInBlock = new int[MEDIUM_SIZE_CLASSES];
+
+  /*
+   * Establish the size of the cells and blocks of each medium object
+   * size class.  The classes for each power of two are evenly spaced.
+   */
+  static {
+    for (int sc = 0; sc < MEDIUM_SIZE_CLASSES; sc++) {
+      int log = LOG_BYTES_IN_PAGE + (sc >> LOG_CLASSES_PER_DOUBLING);
+      int step = (sc & ((1 << LOG_CLASSES_PER_DOUBLING) - 1)) + 1;
+      int size = (1 << log) + (step << (log - LOG_CLASSES_PER_DOUBLING));
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert((size & (NODE_OFFSET - 1)) == 0);
+      int pages = (BLOCK_HEADER_BYTES + MIN_CELLS_IN_BLOCK * size + BYTES_IN_PAGE - 1) >> LOG_BYTES_IN_PAGE;
+      cellSize[sc] = size;
+      blockPages[sc] = pages;
+      cellsInBlock[sc] = ((pages << LOG_BYTES_IN_PAGE) - BLOCK_HEADER_BYTES) / size;
+    }
+  }
+
   /**
    *
    */
-  private final DoublyLinkedList cells;
+  private final DoublyLinkedList[] cells = new DoublyLinkedList[PARTITIONS];
+
+  /** Protects the claiming of partitions by a parallel sweep */
+  private final Lock sweepLock = VM.newLock("LOSSweep");
+  /** The sweeper of the pending parallel sweep */
+  private Sweeper pendingSweeper;
+  /** The next partition to be claimed by the pending sweep */
+  private int nextSweepPartition = PARTITIONS;
+  /** The number of partitions the pending sweep has finished */
+  private volatile int sweptPartitions = PARTITIONS;
+
+  /** Medium object blocks with at least one free cell, for each size class */
+  private final AddressArray availableBlockHead = AddressArray.create(MEDIUM_SIZE_CLASSES);
+  /** Protects the blocks of each size class */
+  private final Lock[] mediumLock = new Lock[MEDIUM_SIZE_CLASSES];
 
   /****************************************************************************
    *
@@ -69,7 +149,175 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
    */
   public ExplicitLargeObjectSpace(String name, boolean zeroed, VMRequest vmRequest) {
     super(name, zeroed, vmRequest);
-    cells = new DoublyLinkedList(LOG_BYTES_IN_PAGE, true);
+    for (int p = 0; p < PARTITIONS; p++) {
+      cells[p] = new DoublyLinkedList(DoublyLinkedList.logNodeAlignment(), true);
+    }
+    for (int sc = 0; sc < MEDIUM_SIZE_CLASSES; sc++) {
+      mediumLock[sc] = VM.newLock("LOSMediumBlocks");
+    }
+  }
+
+  /**
+   * @param bytes The size of a cell, greater than a page and no more
+   * than {@link #MAX_MEDIUM_BYTES}
+   * @return The smallest size class whose cells are at least that large
+   */
+  @Inline
+  static int getSizeClass(int bytes) {
+    int log = LOG_BYTES_IN_PAGE;
+    while ((1 << (log + 1)) < bytes) log++;
+    int step = (bytes - (1 << log) - 1) >> (log - LOG_CLASSES_PER_DOUBLING);
+    return ((log - LOG_BYTES_IN_PAGE) << LOG_CLASSES_PER_DOUBLING) + step;
+  }
+
+  /**
+   * @param node The node of a cell
+   * @return The partition holding the cell
+   */
+  @Inline
+  private static int partition(Address node) {
+    int page = node.toWord().rshl(LOG_BYTES_IN_PAGE).toInt();
+    return (page * 0x9E3779B1) >>> (32 - LOG_PARTITIONS);
+  }
+
+  /****************************************************************************
+   *
+   * Allocation
+   */
+
+  /**
+   * Acquire the memory for a new cell, from a medium object block if
+   * the cell is small enough and the medium object tier is enabled.
+   *
+   * @param bytes The size of the cell in bytes, including its headers
+   * @return The address of the first byte of the cell, or zero if the
+   * request could not be satisfied.
+   */
+  @Override
+  public Address acquireCell(int bytes) {
+    if (bytes > BYTES_IN_PAGE && bytes <= MAX_MEDIUM_BYTES && Options.mediumObjectTier.getValue()) {
+      return acquireMediumCell(getSizeClass(bytes));
+    }
+    Address cell = super.acquireCell(bytes);
+    if (!cell.isZero()) cell.store(Address.zero(), CELL_BLOCK_OFFSET);
+    return cell;
+  }
+
+  /**
+   * Acquire a cell of a medium object size class, from a new block
+   * if no block of the class has a free cell.
+   *
+   * @param sc The size class
+   * @return The address of the first byte of the cell, or zero if the
+   * request could not be satisfied.
+   */
+  private Address acquireMediumCell(int sc) {
+    Lock lock = mediumLock[sc];
+    lock.acquire();
+    Address cell = takeMediumCell(sc);
+    lock.release();
+    if (!cell.isZero()) return cell;
+
+    // The lock is not held here, as acquiring pages may trigger a collection
+    Address block = acquire(blockPages[sc]);
+    if (block.isZero()) return block;
+    block.store(sc, SIZE_CLASS_OFFSET);
+    block.store(0, LIVE_CELLS_OFFSET);
+    block.store(block.plus(BLOCK_HEADER_BYTES), CURSOR_OFFSET);
+    block.store(Address.zero(), FREE_CELL_OFFSET);
+    lock.acquire();
+    linkBlock(sc, block);
+    cell = takeMediumCell(sc);
+    lock.release();
+    return cell;
+  }
+
+  /**
+   * Take a free cell from the first available block of a size class,
+   * reusing freed cells before carving new ones from the block.  Called
+   * with the size class's lock held.
+   *
+   * @param sc The size class
+   * @return The cell, or zero if no block of the class has a free cell
+   */
+  @Inline
+  private Address takeMediumCell(int sc) {
+    Address block = availableBlockHead.get(sc);
+    if (block.isZero()) return block;
+    Address cell = block.loadAddress(FREE_CELL_OFFSET);
+    if (!cell.isZero()) {
+      block.store(cell.loadAddress(NEXT_FREE_CELL_OFFSET), FREE_CELL_OFFSET);
+      cell.store(Address.zero(), NEXT_FREE_CELL_OFFSET);
+    } else {
+      cell = block.loadAddress(CURSOR_OFFSET);
+      block.store(cell.plus(cellSize[sc]), CURSOR_OFFSET);
+    }
+    int live = block.loadInt(LIVE_CELLS_OFFSET) + 1;
+    block.store(live, LIVE_CELLS_OFFSET);
+    if (live == cellsInBlock[sc]) unlinkBlock(sc, block);
+    cell.store(block, CELL_BLOCK_OFFSET);
+    return cell;
+  }
+
+  /**
+   * Return a medium object cell to its block.  A block left with no live
+   * cells returns its pages, unless it is the only block of its class
+   * with room.
+   *
+   * @param cell The cell
+   */
+  private void releaseMediumCell(Address cell) {
+    Address block = cell.loadAddress(CELL_BLOCK_OFFSET);
+    int sc = block.loadInt(SIZE_CLASS_OFFSET);
+    // Freed cells are zeroed now, off the allocation path
+    if (zeroed) VM.memory.zero(false, cell, Extent.fromIntZeroExtend(cellSize[sc]));
+    Lock lock = mediumLock[sc];
+    lock.acquire();
+    int live = block.loadInt(LIVE_CELLS_OFFSET);
+    if (live == cellsInBlock[sc]) linkBlock(sc, block);
+    live--;
+    block.store(live, LIVE_CELLS_OFFSET);
+    if (live == 0 && !(availableBlockHead.get(sc).EQ(block) && block.loadAddress(NEXT_BLOCK_OFFSET).isZero())) {
+      unlinkBlock(sc, block);
+      release(block);
+    } else {
+      cell.store(block.loadAddress(FREE_CELL_OFFSET), NEXT_FREE_CELL_OFFSET);
+      block.store(cell, FREE_CELL_OFFSET);
+    }
+    lock.release();
+  }
+
+  /**
+   * Add a block to the head of the available blocks of its size class.
+   *
+   * @param sc The size class
+   * @param block The block
+   */
+  @Inline
+  private void linkBlock(int sc, Address block) {
+    Address head = availableBlockHead.get(sc);
+    block.store(Address.zero(), PREV_BLOCK_OFFSET);
+    block.store(head, NEXT_BLOCK_OFFSET);
+    if (!head.isZero()) head.store(block, PREV_BLOCK_OFFSET);
+    availableBlockHead.set(sc, block);
+  }
+
+  /**
+   * Remove a block from the available blocks of its size class.
+   *
+   * @param sc The size class
+   * @param block The block
+   */
+  @Inline
+  private void unlinkBlock(int sc, Address block) {
+    Address prev = block.loadAddress(PREV_BLOCK_OFFSET);
+    Address next = block.loadAddress(NEXT_BLOCK_OFFSET);
+    if (prev.isZero()) {
+      availableBlockHead.set(sc, next);
+    } else {
+      prev.store(next, NEXT_BLOCK_OFFSET);
+    }
+    if (!next.isZero()) next.store(prev, PREV_BLOCK_OFFSET);
   }
 
   /****************************************************************************
@@ -110,8 +358,8 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
    */
   @Inline
   public void initializeHeader(ObjectReference object, boolean alloc) {
-    Address cell = VM.objectModel.objectStartRef(object);
-    cells.add(DoublyLinkedList.midPayloadToNode(cell));
+    Address node = DoublyLinkedList.midPayloadToNode(VM.objectModel.objectStartRef(object));
+    cells[partition(node)].add(node);
   }
 
   /****************************************************************************
@@ -152,7 +400,7 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
   @Override
   @Inline
   protected int superPageHeaderSize() {
-    return DoublyLinkedList.headerSize();
+    return NODE_OFFSET + DoublyLinkedList.headerSize();
   }
 
   @Override
@@ -168,15 +416,79 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
    */
   @Inline
   public void sweep(Sweeper sweeper) {
-    Address cell = cells.getHead();
+    for (int p = 0; p < PARTITIONS; p++) {
+      sweepPartition(p, sweeper);
+    }
+  }
+
+  /**
+   * Set up a sweep that any number of threads then share by calling
+   * {@link #sweepNextPartition()}.  Called by a single thread.
+   *
+   * @param sweeper The sweeper callback to use.
+   */
+  public void prepareSweep(Sweeper sweeper) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!isSweepPending());
+    pendingSweeper = sweeper;
+    nextSweepPartition = 0;
+    sweptPartitions = 0;
+  }
+
+  /**
+   * Claim and sweep the next partition of the pending sweep.
+   *
+   * @return {@code true} if a partition was swept, {@code false} if
+   * every partition has been claimed.
+   */
+  public boolean sweepNextPartition() {
+    sweepLock.acquire();
+    int p = nextSweepPartition;
+    if (p < PARTITIONS) nextSweepPartition++;
+    sweepLock.release();
+    if (p >= PARTITIONS) return false;
+    sweepPartition(p, pendingSweeper);
+    sweepLock.acquire();
+    sweptPartitions++;
+    sweepLock.release();
+    return true;
+  }
+
+  /**
+   * @return {@code true} if a sweep has been prepared but not finished.
+   */
+  public boolean isSweepPending() {
+    return sweptPartitions < PARTITIONS;
+  }
+
+  /**
+   * Finish the pending sweep.  Called by a single thread, when no other
+   * thread is sweeping.
+   */
+  public void completeSweep() {
+    while (sweepNextPartition()) { }
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!isSweepPending());
+  }
+
+  /**
+   * Sweep the objects of one partition.
+   *
+   * @param p The partition
+   * @param sweeper The sweeper callback to use.
+   */
+  private void sweepPartition(int p, Sweeper sweeper) {
+    DoublyLinkedList list = cells[p];
+    list.lock();
+    Address cell = list.getHead();
     while (!cell.isZero()) {
-      Address next = cells.getNext(cell);
+      Address next = list.getNext(cell);
       ObjectReference obj = VM.objectModel.getObjectFromStartAddress(cell.plus(DoublyLinkedList.headerSize()));
       if (sweeper.sweepLargeObject(obj)) {
-        free(obj);
+        list.removeLocked(cell);
+        releaseCell(cell);
       }
       cell = next;
     }
+    list.unlock();
   }
 
   /**
@@ -186,9 +498,24 @@ public final class ExplicitLargeObjectSpace extends BaseLargeObjectSpace {
    */
   @Inline
   public void free(ObjectReference object) {
-    Address cell = getSuperPage(VM.objectModel.refToAddress(object));
-    cells.remove(cell);
-    release(cell);
+    Address node = DoublyLinkedList.midPayloadToNode(VM.objectModel.objectStartRef(object));
+    cells[partition(node)].remove(node);
+    releaseCell(node);
+  }
+
+  /**
+   * Return the memory of a cell that is no longer on any list.
+   *
+   * @param node The list node of the cell
+   */
+  @Inline
+  private void releaseCell(Address node) {
+    Address cell = node.minus(NODE_OFFSET);
+    if (cell.loadAddress(CELL_BLOCK_OFFSET).isZero()) {
+      release(cell);
+    } else {
+      releaseMediumCell(cell);
+    }
   }
 
   /**
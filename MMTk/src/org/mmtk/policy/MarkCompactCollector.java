@@ -34,10 +34,11 @@ import org.vmmagic.unboxed.ObjectReference;
  *  <li>Performs the compaction pass over the heap.</li>
  * </ul>
  *<p>
- * Each collector thread maintains a private list of the pages that it compacts.
- * If it runs out of work during the calculateForwardingPointers pass, it requests
- * a new region from the global MarkCompactSpace.  Regions compacted by a collector
- * remain local to the collector.
+ * Before either pass, the collectors summarize the regions of the space in
+ * parallel, and the space then hands each collector a range of regions
+ * holding a similar amount of live data.  A collector slides the objects of its
+ * range into the range's own regions, and returns the regions that remain to
+ * the space once it has compacted them.
  *
  * @see MarkCompactSpace
  * @see MarkCompactLocal
@@ -56,6 +57,9 @@ public final class MarkCompactCollector {
    */
   private Address regions = Address.zero();
 
+  /** The end of the current run of dead objects found while summarizing */
+  private Address deadRunEnd = Address.zero();
+
   private final FromCursor fromCursor = new FromCursor();
   private final ToCursor toCursor = new ToCursor();
 
@@ -264,34 +268,18 @@ public final class MarkCompactCollector {
     }
 
     /**
-     * Advances the cursor to the end of the given object.
+     * Advances the cursor to the end of the given object, or to the end of
+     * the run of dead objects that it starts.
      *
      * @param current the object's reference
      */
     @Inline
     void advanceToObjectEnd(ObjectReference current) {
-      cursor = VM.objectModel.getObjectEndAddress(current);
-      if (VM.VERIFY_ASSERTIONS) assertCursorInBounds();
-    }
-
-    /**
-     * Advance the cursor either to the next region in the list,
-     * or to a new region allocated from the global list.
-     * @param space the space that acts as the global list
-     */
-    void advanceToNextForwardableRegion(MarkCompactSpace space) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(get().EQ(getLimit()));
-      Address nextRegion = BumpPointer.getNextRegion(region);
-      if (nextRegion.isZero()) {
-        nextRegion = space.getNextRegion();
-        if (nextRegion.isZero()) {
-          region = Address.zero();
-          return;
-        }
-        MarkCompactLocal.setNextRegion(region,nextRegion);
-        MarkCompactLocal.clearNextRegion(nextRegion);
+      if (MarkCompactSpace.isDeadRun(current)) {
+        cursor = MarkCompactSpace.getDeadRunEnd(current);
+      } else {
+        cursor = VM.objectModel.getObjectEndAddress(current);
       }
-      init(nextRegion);
       if (VM.VERIFY_ASSERTIONS) assertCursorInBounds();
     }
 
@@ -410,6 +398,63 @@ public final class MarkCompactCollector {
 
   /* ***************************************************************************************** */
 
+  /**
+   * Summarize the regions of the space, in batches claimed from the
+   * space's summary table.
+   */
+  public void summarize() {
+    int entries = space.getSummaryEntries();
+    int batch = space.getSummaryBatchSize();
+    for (int first = space.claimSummaryEntries(); first < entries; first = space.claimSummaryEntries()) {
+      int last = first + batch < entries ? first + batch : entries;
+      for (int i = first; i < last; i++) {
+        space.setSummaryLive(i, summarizeRegion(space.getSummaryRegion(i)));
+      }
+    }
+  }
+
+  /**
+   * Total the bytes the marked objects of a region will occupy once
+   * copied, recording each run of dead objects in its first object as we
+   * go.
+   *
+   * @param region The region
+   * @return The live bytes of the region
+   */
+  private int summarizeRegion(Address region) {
+    int live = 0;
+    ObjectReference deadRun = ObjectReference.nullReference();
+    fromCursor.init(region);
+    while (fromCursor.hasMoreObjects()) {
+      ObjectReference current = fromCursor.advanceToObject();
+      fromCursor.advanceToObjectEnd(current);
+      if (MarkCompactSpace.isMarked(current)) {
+        live += VM.objectModel.getSizeWhenCopied(current);
+        if (!deadRun.isNull()) {
+          endDeadRun(deadRun);
+          deadRun = ObjectReference.nullReference();
+        }
+      } else {
+        if (deadRun.isNull()) deadRun = current;
+        deadRunEnd = fromCursor.get();
+      }
+    }
+    if (!deadRun.isNull()) endDeadRun(deadRun);
+    return live;
+  }
+
+  /**
+   * Record a run of dead objects, unless it is already recorded.
+   *
+   * @param deadRun The first object of the run, which ends at {@code deadRunEnd}
+   */
+  @Inline
+  private void endDeadRun(ObjectReference deadRun) {
+    if (!MarkCompactSpace.isDeadRun(deadRun) || MarkCompactSpace.getDeadRunEnd(deadRun).NE(deadRunEnd)) {
+      MarkCompactSpace.setDeadRun(deadRun, deadRunEnd);
+    }
+  }
+
   /**
    * Perform a linear scan through the objects allocated by this bump pointer,
    * calculating where each live object will be post collection.<p>
@@ -423,9 +468,7 @@ public final class MarkCompactCollector {
    * The outer loop advances the 'from' pointer
    */
   public void calculateForwardingPointers() {
-    if (regions.isZero()) {
-      regions = space.getNextRegion();
-    }
+    regions = space.getCompactionRange(VM.activePlan.collector().parallelWorkerOrdinal());
 
     if (regions.isZero())
       return;
@@ -433,8 +476,6 @@ public final class MarkCompactCollector {
     fromCursor.init(regions);
     toCursor.init(regions);
 
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(true);
-
     /* Loop through active regions or until the last region */
     while (fromCursor.isValid()) {
       if (VERBOSE) {
@@ -480,7 +521,7 @@ public final class MarkCompactCollector {
           }
         }
       }
-      fromCursor.advanceToNextForwardableRegion(space);
+      fromCursor.advanceToNextRegion();
     }
   }
 
@@ -504,6 +545,10 @@ public final class MarkCompactCollector {
       /* Loop through the objects in the region */
       while (fromCursor.hasMoreObjects()) {
         ObjectReference current = fromCursor.advanceToObject();
+        if (MarkCompactSpace.isDeadRun(current)) {
+          fromCursor.advanceToObjectEnd(current);
+          continue;
+        }
         fromCursor.advanceToObjectEnd(current);
 
         ObjectReference copyTo = MarkCompactSpace.getForwardingPointer(current);
@@ -536,13 +581,17 @@ public final class MarkCompactCollector {
 
 
     /*
-     * Return unused pages to the global page resource
+     * Return unused pages to the global page resource, and the remaining
+     * regions to the space
      */
+    Address tail = toCursor.getRegion();
     Address region = toCursor.snip();
     while (!region.isZero()) {
       Address nextRegion = MarkCompactLocal.getNextRegion(region);
       space.release(region);
       region = nextRegion;
     }
+    space.setCompactedRange(VM.activePlan.collector().parallelWorkerOrdinal(), regions, tail);
+    regions = Address.zero();
   }
 }
@@ -12,11 +12,15 @@
  */
 package org.mmtk.policy;
 
+import static org.mmtk.utility.Constants.*;
+
+import org.mmtk.plan.Plan;
 import org.mmtk.plan.TraceLocal;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.alloc.BumpPointer;
 import org.mmtk.utility.heap.*;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.options.Options;
 
 import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
@@ -26,7 +30,20 @@ import org.vmmagic.pragma.*;
 
 /**
  * This class implements functionality for a simple sliding mark-compact
- * space.
+ * space.<p>
+ *
+ * Between collections the space owns a single list of occupied regions.
+ * At the start of compaction the list is moved into a <i>summary
+ * table</i>, and the collectors fill in the live bytes of each region in
+ * parallel.  The regions to be compacted are then partitioned into one
+ * range per collector, balanced by live bytes, and each collector slides
+ * the objects of its range down into the range's own regions.<p>
+ *
+ * An incremental compaction selects only the least occupied regions, up
+ * to a budget.  The remaining regions keep their objects in place, dead
+ * ones included.  So that the heap remains parseable once the types of
+ * those dead objects may have moved, the summary pass records each run of
+ * dead objects in the forwarding word of its first object.
  */
 @Uninterruptible public final class MarkCompactSpace extends Space {
 
@@ -45,10 +62,24 @@ import org.vmmagic.pragma.*;
   private static final Word GC_MARK_BIT_MASK = Word.one();
   private static final Offset FORWARDING_POINTER_OFFSET = VM.objectModel.GC_HEADER_OFFSET();
 
+  /** Tags a forwarding word holding the end of a run of dead objects */
+  private static final Word DEAD_RUN_TAG = Word.one();
+
   private static final Lock lock = VM.newLock("mcSpace");
 
-  /** The list of occupied regions */
-  private Address regionList = Address.zero();
+  /* Summary table entries: the region, its live bytes and its data bytes */
+  private static final Offset SUMMARY_LIVE_OFFSET = Offset.fromIntZeroExtend(BYTES_IN_ADDRESS);
+  private static final Offset SUMMARY_DATA_OFFSET = SUMMARY_LIVE_OFFSET.plus(BYTES_IN_INT);
+  private static final int BYTES_IN_SUMMARY_ENTRY = BYTES_IN_ADDRESS + 2 * BYTES_IN_INT;
+
+  /** The number of summary entries claimed at a time by a collector */
+  private static final int SUMMARY_ENTRIES_PER_CLAIM = 16;
+
+  /** Regions are classified by occupancy into this many buckets */
+  private static final int OCCUPANCY_BUCKETS = 32;
+
+  /** Incremental compactions leave alone regions at least three quarters live */
+  private static final int INCREMENTAL_BUCKET_LIMIT = OCCUPANCY_BUCKETS * 3 / 4;
 
   // TODO - maintain a separate list of partially allocated regions
   // for threads to allocate into immediately after a collection.
@@ -58,6 +89,34 @@ import org.vmmagic.pragma.*;
    * Instance variables
    */
 
+  /** The list of occupied regions */
+  private Address regionList = Address.zero();
+  private Address regionListTail = Address.zero();
+
+  /** The summary table, in pages acquired from the meta-data space */
+  private Address summary = Address.zero();
+  private int summaryPages = 0;
+  private int summaryEntries = 0;
+
+  /** The next summary entry to be claimed by a collector */
+  private int summaryCursor = 0;
+
+  /** The data bytes and the live bytes of the regions in each occupancy bucket */
+  private final long[] dataHistogram = new long[OCCUPANCY_BUCKETS];
+  private final long[] liveHistogram = new long[OCCUPANCY_BUCKETS];
+
+  /** Is every non-empty region being compacted? */
+  private boolean compactingAll = true;
+
+  /** The regions each collector compacts, as lists */
+  private Address[] rangeHeads;
+  private Address[] rangeTails;
+
+  /** The regions left in place, and those with no live objects */
+  private Address keptRegions = Address.zero();
+  private Address keptRegionsTail = Address.zero();
+  private Address emptyRegions = Address.zero();
+
   /****************************************************************************
    *
    * Initialization
@@ -80,6 +139,19 @@ import org.vmmagic.pragma.*;
     }
   }
 
+  /**
+   * Allocate the per-collector compaction ranges.<p>
+   *
+   * This needs to happen at runtime because the collector count is not known
+   * at build time.
+   */
+  @Interruptible
+  public void initializeRanges() {
+    int collectorCount = VM.activePlan.collectorCount();
+    rangeHeads = new Address[collectorCount];
+    rangeTails = new Address[collectorCount];
+  }
+
   /**
    * Prepare for a collection
    */
@@ -172,8 +244,9 @@ import org.vmmagic.pragma.*;
       Log.write("forwarding "); Log.write(object);
       Log.write(" -> "); Log.writeln(newObject);
     }
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!newObject.isNull());
-    return getForwardingPointer(object);
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!newObject.isNull() || !compactingAll);
+    // Objects in regions that are not being compacted stay where they are
+    return newObject.isNull() ? object : newObject;
   }
 
   @Override
@@ -316,20 +389,33 @@ import org.vmmagic.pragma.*;
   }
 
   /**
-   * @return A region of this space that has net yet been compacted during
-   *   the current collection
+   * Record a run of dead objects in the forwarding word of its first
+   * object, so that it can be skipped without looking at the objects.
+   *
+   * @param object The first object of the run
+   * @param end The end of the last object of the run
    */
-  public Address getNextRegion() {
-    lock.acquire();
-    if (regionList.isZero()) {
-      lock.release();
-      return Address.zero();
-    }
-    Address result = regionList;
-    regionList = BumpPointer.getNextRegion(regionList);
-    BumpPointer.clearNextRegion(result);
-    lock.release();
-    return result;
+  @Inline
+  public static void setDeadRun(ObjectReference object, Address end) {
+    object.toAddress().store(end.toWord().or(DEAD_RUN_TAG), FORWARDING_POINTER_OFFSET);
+  }
+
+  /**
+   * @param object An object
+   * @return {@code true} if the object starts a recorded run of dead objects
+   */
+  @Inline
+  public static boolean isDeadRun(ObjectReference object) {
+    return !object.toAddress().loadWord(FORWARDING_POINTER_OFFSET).and(DEAD_RUN_TAG).isZero();
+  }
+
+  /**
+   * @param object The first object of a recorded run of dead objects
+   * @return The end of the run
+   */
+  @Inline
+  public static Address getDeadRunEnd(ObjectReference object) {
+    return object.toAddress().loadWord(FORWARDING_POINTER_OFFSET).and(DEAD_RUN_TAG.not()).toAddress();
   }
 
   /**
@@ -337,6 +423,11 @@ import org.vmmagic.pragma.*;
    * @param region the region to append
    */
   public void append(Address region) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!region.isZero());
+    Address tail = region;
+    while (!BumpPointer.getNextRegion(tail).isZero()) {
+      tail = BumpPointer.getNextRegion(tail);
+    }
     lock.acquire();
     if (MarkCompactCollector.VERBOSE) {
       Log.write("Appending region "); Log.write(region);
@@ -345,18 +436,273 @@ import org.vmmagic.pragma.*;
     if (regionList.isZero()) {
       regionList = region;
     } else {
-      appendRegion(regionList,region);
+      BumpPointer.setNextRegion(regionListTail, region);
     }
+    regionListTail = tail;
     lock.release();
   }
 
-  public static void appendRegion(Address listHead, Address region) {
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!listHead.isZero());
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!region.isZero());
-    Address cursor = listHead;
-    while (!BumpPointer.getNextRegion(cursor).isZero()) {
-      cursor = BumpPointer.getNextRegion(cursor);
+  /****************************************************************************
+   *
+   * Compaction planning
+   */
+
+  /**
+   * Move the occupied regions into the summary table, ready for the
+   * collectors to summarize them.
+   */
+  public void buildSummary() {
+    int entries = 0;
+    for (Address region = regionList; !region.isZero(); region = BumpPointer.getNextRegion(region)) {
+      entries++;
+    }
+    ensureSummaryCapacity(entries);
+    Address region = regionList;
+    for (int i = 0; i < entries; i++) {
+      Address entry = getSummaryEntry(i);
+      entry.store(region);
+      entry.store(0, SUMMARY_LIVE_OFFSET);
+      entry.store(MarkCompactLocal.getDataEnd(region).diff(MarkCompactLocal.getDataStart(region)).toInt(), SUMMARY_DATA_OFFSET);
+      region = BumpPointer.getNextRegion(region);
+    }
+    summaryEntries = entries;
+    summaryCursor = 0;
+    regionList = Address.zero();
+    regionListTail = Address.zero();
+  }
+
+  /**
+   * Grow the summary table if it cannot hold a number of entries.
+   *
+   * @param entries The number of entries required
+   */
+  private void ensureSummaryCapacity(int entries) {
+    int pages = (int) (((long) entries * BYTES_IN_SUMMARY_ENTRY + BYTES_IN_PAGE - 1) >>> LOG_BYTES_IN_PAGE);
+    if (pages <= summaryPages) return;
+    if (!summary.isZero()) Plan.metaDataSpace.release(summary);
+    if (pages < 2 * summaryPages) pages = 2 * summaryPages;
+    summary = Plan.metaDataSpace.acquire(pages);
+    if (summary.isZero()) {
+      Space.printUsageMB();
+      VM.assertions.fail("Failed to allocate the mark-compact summary table.  Is metadata virtual memory exhausted?");
+    }
+    summaryPages = pages;
+  }
+
+  /**
+   * @param index The index of a summary entry
+   * @return The address of the entry
+   */
+  @Inline
+  private Address getSummaryEntry(int index) {
+    return summary.plus(index * BYTES_IN_SUMMARY_ENTRY);
+  }
+
+  /**
+   * Claim a batch of summary entries for the calling collector.
+   *
+   * @return The index of the first entry claimed.  The batch holds
+   * {@link #getSummaryBatchSize()} entries, or fewer at the end of the
+   * table.
+   */
+  public int claimSummaryEntries() {
+    lock.acquire();
+    int first = summaryCursor;
+    summaryCursor += SUMMARY_ENTRIES_PER_CLAIM;
+    lock.release();
+    return first;
+  }
+
+  /** @return The number of summary entries claimed at a time */
+  public int getSummaryBatchSize() {
+    return SUMMARY_ENTRIES_PER_CLAIM;
+  }
+
+  /** @return The number of entries in the summary table */
+  public int getSummaryEntries() {
+    return summaryEntries;
+  }
+
+  /**
+   * @param index The index of a summary entry
+   * @return The region the entry describes
+   */
+  public Address getSummaryRegion(int index) {
+    return getSummaryEntry(index).loadAddress();
+  }
+
+  /**
+   * @param index The index of a summary entry
+   * @param live The bytes the marked objects of the region will
+   * occupy when copied
+   */
+  public void setSummaryLive(int index, int live) {
+    getSummaryEntry(index).store(live, SUMMARY_LIVE_OFFSET);
+  }
+
+  /**
+   * @param live The live bytes of a region
+   * @param data The data bytes of the region
+   * @return The occupancy bucket of the region
+   */
+  @Inline
+  private static int occupancyBucket(int live, int data) {
+    if (live >= data) return OCCUPANCY_BUCKETS - 1;
+    return (int) (((long) live * OCCUPANCY_BUCKETS) / data);
+  }
+
+  /**
+   * Decide which summarized regions are compacted, and partition them
+   * into one range per collector with similar live bytes.<p>
+   *
+   * An incremental compaction selects regions in increasing order of
+   * occupancy, whole buckets at a time, while the data they hold fits in
+   * the budget.  The emptiest bucket is always selected.  Regions with no
+   * live objects are released once compaction is complete.
+   *
+   * @param incremental Should only the most fragmented regions be compacted?
+   */
+  public void selectRegions(boolean incremental) {
+    for (int b = 0; b < OCCUPANCY_BUCKETS; b++) {
+      dataHistogram[b] = 0;
+      liveHistogram[b] = 0;
+    }
+    long totalData = 0;
+    for (int i = 0; i < summaryEntries; i++) {
+      Address entry = getSummaryEntry(i);
+      int live = entry.loadInt(SUMMARY_LIVE_OFFSET);
+      int data = entry.loadInt(SUMMARY_DATA_OFFSET);
+      totalData += data;
+      if (live == 0) continue;
+      int bucket = occupancyBucket(live, data);
+      dataHistogram[bucket] += data;
+      liveHistogram[bucket] += live;
+    }
+
+    int threshold = OCCUPANCY_BUCKETS - 1;
+    if (incremental) {
+      long budget = (long) (totalData * Options.markCompactBudget.getValue());
+      long selected = dataHistogram[0];
+      threshold = 0;
+      while (threshold + 1 < INCREMENTAL_BUCKET_LIMIT && selected + dataHistogram[threshold + 1] <= budget) {
+        threshold++;
+        selected += dataHistogram[threshold];
+      }
+    }
+    compactingAll = threshold == OCCUPANCY_BUCKETS - 1;
+    long selectedLive = 0;
+    for (int b = 0; b <= threshold; b++) selectedLive += liveHistogram[b];
+
+    int ranges = rangeHeads.length;
+    for (int r = 0; r < ranges; r++) {
+      rangeHeads[r] = Address.zero();
+      rangeTails[r] = Address.zero();
+    }
+    keptRegions = Address.zero();
+    keptRegionsTail = Address.zero();
+    emptyRegions = Address.zero();
+    int range = 0;
+    long cumulativeLive = 0;
+    int compacted = 0;
+    for (int i = 0; i < summaryEntries; i++) {
+      Address entry = getSummaryEntry(i);
+      Address region = entry.loadAddress();
+      int live = entry.loadInt(SUMMARY_LIVE_OFFSET);
+      BumpPointer.clearNextRegion(region);
+      if (live == 0) {
+        BumpPointer.setNextRegion(region, emptyRegions);
+        emptyRegions = region;
+      } else if (occupancyBucket(live, entry.loadInt(SUMMARY_DATA_OFFSET)) > threshold) {
+        if (keptRegions.isZero()) {
+          keptRegions = region;
+        } else {
+          BumpPointer.setNextRegion(keptRegionsTail, region);
+        }
+        keptRegionsTail = region;
+      } else {
+        while (range < ranges - 1 && cumulativeLive * ranges >= selectedLive * (range + 1)) {
+          range++;
+        }
+        if (rangeHeads[range].isZero()) {
+          rangeHeads[range] = region;
+        } else {
+          BumpPointer.setNextRegion(rangeTails[range], region);
+        }
+        rangeTails[range] = region;
+        cumulativeLive += live;
+        compacted++;
+      }
+    }
+
+    if (Options.verbose.getValue() > 2) {
+      Log.write("[MC: compacting "); Log.write(compacted);
+      Log.write(" of "); Log.write(summaryEntries);
+      Log.write(" regions, "); Log.write(selectedLive >>> LOG_BYTES_IN_KBYTE);
+      Log.write("KB live]");
+    }
+  }
+
+  /**
+   * @param ordinal The ordinal of a collector
+   * @return The list of regions the collector compacts
+   */
+  public Address getCompactionRange(int ordinal) {
+    return rangeHeads[ordinal];
+  }
+
+  /**
+   * Record the regions that remain in a collector's range once it has
+   * compacted it.
+   *
+   * @param ordinal The ordinal of the collector
+   * @param head The first remaining region, or zero if none remain
+   * @param tail The last remaining region
+   */
+  public void setCompactedRange(int ordinal, Address head, Address tail) {
+    rangeHeads[ordinal] = head;
+    rangeTails[ordinal] = tail;
+  }
+
+  /**
+   * Gather the regions left in place and the compacted ranges back into
+   * the list of occupied regions, and release the regions that held no
+   * live objects.
+   */
+  public void endCompaction() {
+    Address head = keptRegions;
+    Address tail = keptRegionsTail;
+    for (int r = 0; r < rangeHeads.length; r++) {
+      if (rangeHeads[r].isZero()) continue;
+      if (head.isZero()) {
+        head = rangeHeads[r];
+      } else {
+        BumpPointer.setNextRegion(tail, rangeHeads[r]);
+      }
+      tail = rangeTails[r];
+      rangeHeads[r] = Address.zero();
+      rangeTails[r] = Address.zero();
+    }
+    lock.acquire();
+    if (!regionList.isZero()) {
+      /* Regions appended during the collection */
+      if (head.isZero()) {
+        head = regionList;
+      } else {
+        BumpPointer.setNextRegion(tail, regionList);
+      }
+      tail = regionListTail;
+    }
+    regionList = head;
+    regionListTail = tail;
+    lock.release();
+
+    while (!emptyRegions.isZero()) {
+      Address next = BumpPointer.getNextRegion(emptyRegions);
+      release(emptyRegions);
+      emptyRegions = next;
     }
-    BumpPointer.setNextRegion(cursor,region);
+    keptRegions = Address.zero();
+    keptRegionsTail = Address.zero();
+    summaryEntries = 0;
   }
 }
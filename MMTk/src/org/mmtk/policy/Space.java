@@ -18,6 +18,7 @@ import org.mmtk.plan.Plan;
 import org.mmtk.plan.TransitiveClosure;
 import org.mmtk.utility.heap.Map;
 import org.mmtk.utility.heap.Mmapper;
+import org.mmtk.utility.heap.PageCache;
 import org.mmtk.utility.heap.PageResource;
 import org.mmtk.utility.heap.SpaceDescriptor;
 import org.mmtk.utility.heap.VMRequest;
@@ -103,6 +104,10 @@ public abstract class Space {
   protected final boolean movable;
   protected final boolean contiguous;
   protected final boolean zeroed;
+  /** Should this space's memory be backed by transparent huge pages (when enabled)? */
+  protected boolean hugePageCandidate = false;
+  /** The size of the requests mutators may serve from a page cache, or zero */
+  protected int cachedRunPages = 0;
 
   protected PageResource pr;
   protected final Address start;
@@ -249,6 +254,22 @@ public abstract class Space {
     return movable;
   }
 
+  /** @return {@code true} if this space's memory is backed by transparent huge pages */
+  public final boolean usesHugePages() {
+    return hugePageCandidate && Options.transparentHugePages.getValue();
+  }
+
+  /**
+   * Create a page cache for one mutator, if this space has its mutators
+   * cache page runs.
+   *
+   * @return The new cache, or {@code null}
+   */
+  @Interruptible
+  public final PageCache newPageCache() {
+    return cachedRunPages == 0 ? null : pr.newPageCache(cachedRunPages);
+  }
+
   /** @return The number of reserved pages */
   public final int reservedPages() {
     return pr.reservedPages();
@@ -266,7 +287,11 @@ public abstract class Space {
 
   /** @return Cumulative committed pages. */
   public static long cumulativeCommittedPages() {
-    return PageResource.cumulativeCommittedPages();
+    long pages = 0;
+    for (int i = 0; i < spaceCount; i++) {
+      pages += spaces[i].pr.cumulativeCommittedPages();
+    }
+    return pages;
   }
 
   /****************************************************************************
@@ -445,6 +470,16 @@ public abstract class Space {
   public final Address acquire(int pages) {
     boolean allowPoll = VM.activePlan.isMutator() && Plan.isInitialized();
 
+    if (allowPoll && pages == cachedRunPages && Options.pageCacheRuns.getValue() > 1) {
+      PageCache cache = VM.activePlan.mutator().getPageCache(this);
+      if (cache != null) {
+        Address rtn = cache.take();
+        if (rtn.isZero() && refillCache(cache)) rtn = cache.take();
+        if (rtn.isZero()) VM.collection.blockForGC(); // GC required, return failure
+        return rtn;
+      }
+    }
+
     /* Check page budget */
     int pagesReserved = pr.reservePages(pages);
 
@@ -470,6 +505,31 @@ public abstract class Space {
     return rtn;
   }
 
+  /**
+   * Refill a mutator's empty page cache with several runs, checking the
+   * page budget and polling as {@link #acquire(int)} does for a single
+   * run.  The caller blocks for the GC if this fails.
+   *
+   * @param cache The mutator's cache for this space
+   * @return {@code true} if the cache was refilled, {@code false} if a
+   * GC is required.
+   */
+  private boolean refillCache(PageCache cache) {
+    int runs = Options.pageCacheRuns.getValue();
+    int pagesReserved = pr.reservePages(cachedRunPages * runs);
+    if (VM.activePlan.global().poll(false, this)) {
+      pr.clearRequest(pagesReserved);
+      return false;
+    }
+    if (pr.getNewPageRuns(pagesReserved, cachedRunPages, runs, zeroed, cache) == 0) {
+      boolean gcPerformed = VM.activePlan.global().poll(true, this);
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(gcPerformed, "GC not performed when forced.");
+      pr.clearRequest(pagesReserved);
+      return false;
+    }
+    return true;
+  }
+
   /**
    * Extend the virtual memory associated with a particular discontiguous
    * space.  This simply involves requesting a suitable number of chunks
@@ -72,13 +72,13 @@ public class Chunk {
     }
   }
 
-  static void clearMetaData(Address chunk) {
+  static void clearMetaData(Address chunk, boolean hugePages) {
     if (VM.VERIFY_ASSERTIONS) {
       VM.assertions._assert(isAligned(chunk));
       VM.assertions._assert(Conversions.isPageAligned(chunk));
       VM.assertions._assert(Conversions.isPageAligned(ROUNDED_METADATA_BYTES_PER_CHUNK));
     }
-    Mmapper.ensureMapped(chunk, ROUNDED_METADATA_PAGES_PER_CHUNK);
+    Mmapper.ensureMapped(chunk, ROUNDED_METADATA_PAGES_PER_CHUNK, hugePages);
     VM.memory.zero(false, chunk, Extent.fromIntZeroExtend(ROUNDED_METADATA_BYTES_PER_CHUNK));
     if (VM.VERIFY_ASSERTIONS) checkMetaDataCleared(chunk, chunk);
   }
@@ -111,6 +111,8 @@ public final class ImmixSpace extends Space {
    */
   public ImmixSpace(String name, boolean zeroed, VMRequest vmRequest) {
     super(name, false, false, zeroed, vmRequest);
+    hugePageCandidate = true;
+    cachedRunPages = PAGES_IN_BLOCK;
     if (vmRequest.isDiscontiguous())
       pr = new FreeListPageResource(this, Chunk.getRequiredMetaDataPages());
     else
@@ -293,7 +295,7 @@ public final class ImmixSpace extends Space {
      if (newChunk) {
       Address chunk = chunkAlign(start.plus(bytes), true);
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(chunkAlign(start.plus(bytes), true).EQ(chunk));
-      Chunk.clearMetaData(chunk);
+      Chunk.clearMetaData(chunk, usesHugePages());
       chunkMap.addNewChunkToMap(chunk);
     }
   }
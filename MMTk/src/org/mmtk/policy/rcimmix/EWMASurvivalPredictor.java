@@ -0,0 +1,56 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.rcimmix;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * Predicts an exponentially weighted moving average of the line survival
+ * rate.  The weight of the newest sample is <code>2 / (window + 1)</code>,
+ * so that the average has the same centre of mass as a window of that
+ * many collections.  Tracks steady workloads closely, at the cost of
+ * under-reserving for a sudden burst of survivors.
+ */
+@Uninterruptible
+public final class EWMASurvivalPredictor extends SurvivalPredictor {
+
+  private double average = 0;
+  private boolean primed = false;
+
+  @Override
+  public void update(double lineSurvivalRate, double[] survivorBytes, double youngBytes) {
+    if (!primed) {
+      average = lineSurvivalRate;
+      primed = true;
+    } else {
+      double alpha = 2.0 / (window + 1);
+      average = alpha * lineSurvivalRate + (1 - alpha) * average;
+    }
+  }
+
+  @Override
+  protected void reset() {
+    average = 0;
+    primed = false;
+  }
+
+  @Override
+  public double predict() {
+    return average;
+  }
+
+  @Override
+  public String getName() {
+    return "ewma";
+  }
+}
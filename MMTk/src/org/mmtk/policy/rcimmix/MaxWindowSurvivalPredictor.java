@@ -0,0 +1,53 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.rcimmix;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * Predicts the highest line survival rate seen in the last
+ * <code>window</code> collections.  Conservative: a single collection
+ * with high survival keeps the copy reserve large for the whole window.
+ */
+@Uninterruptible
+public final class MaxWindowSurvivalPredictor extends SurvivalPredictor {
+
+  private final double[] history = new double[MAX_WINDOW];
+  private int next = 0;
+
+  @Override
+  public void update(double lineSurvivalRate, double[] survivorBytes, double youngBytes) {
+    history[next] = lineSurvivalRate;
+    next = (next + 1) % window;
+  }
+
+  @Override
+  protected void reset() {
+    for (int i = 0; i < MAX_WINDOW; i++) history[i] = 0;
+    next = 0;
+  }
+
+  @Override
+  public double predict() {
+    double max = history[0];
+    for (int i = 1; i < window; i++) {
+      if (history[i] > max) max = history[i];
+    }
+    return max;
+  }
+
+  @Override
+  public String getName() {
+    return "max";
+  }
+}
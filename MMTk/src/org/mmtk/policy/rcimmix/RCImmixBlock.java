@@ -222,6 +222,8 @@ public class RCImmixBlock {
   private static final short UNALLOCATED_BLOCK_STATE = 0;
   private static final short UNMARKED_BLOCK_STATE = (short) (MAX_BLOCK_MARK_STATE + 1);
   private static final short REUSED_BLOCK_STATE = (short) (MAX_BLOCK_MARK_STATE + 2);
+  /** Found empty by a deferred sweep, but not yet released (never reusable) */
+  static final short RELEASE_PENDING_BLOCK_STATE = (short) (MAX_BLOCK_MARK_STATE + 3);
 
   private static final short BLOCK_IS_NOT_DEFRAG_SOURCE = 0;
   private static final short BLOCK_IS_DEFRAG_SOURCE = 1;
@@ -52,6 +52,7 @@ public class RCImmixChunk {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
     Address start = getFirstUsableBlock(chunk);
     Address cursor = RCImmixBlock.getBlockMarkStateAddress(start);
+    int[] counts = space.sweepCounts();
     for (int index = FIRST_USABLE_BLOCK_INDEX; index < BLOCKS_IN_CHUNK; index++) {
       Address block = chunk.plus(index<<LOG_BYTES_IN_BLOCK);
       if (block.GT(end)) break;
@@ -64,7 +65,7 @@ public class RCImmixChunk {
       }
       if (marked == 0) {
         if (!RCImmixBlock.isUnusedState(cursor)) {
-          space.release(block);
+          space.release(block, counts);
           if (defragSource) RCImmixDefrag.defragBytesFreed.inc(BYTES_IN_BLOCK);
         }
         if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(RCImmixBlock.isUnused(block));
@@ -72,7 +73,7 @@ public class RCImmixChunk {
         if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(marked > 0 && marked <= LINES_IN_BLOCK);
         RCImmixBlock.setState(cursor, marked);
         if (RCImmixBlock.getRCAddress(block).loadByte() == RCImmixObjectHeader.ZERO) {
-          space.linesCleaned += (LINES_IN_BLOCK - marked);
+          RCImmixSpace.countLinesCleaned(counts, LINES_IN_BLOCK - marked);
         }
         RCImmixBlock.getRCAddress(block).store(RCImmixObjectHeader.ONE);
         if (defragSource) RCImmixDefrag.defragBytesNotFreed.inc(BYTES_IN_BLOCK);
@@ -83,13 +84,102 @@ public class RCImmixChunk {
   }
 
 
-  static void clearMetaData(Address chunk) {
+  /**
+   * Sweep a chunk while mutators run.  Unlike {@link #sweep}, no block is
+   * released until every block has been examined and the chunk has been
+   * recorded as swept: releasing the last live block may free the chunk,
+   * which can then be handed straight back to an allocator, so the sweep
+   * must not touch it afterwards.
+   *
+   * @param chunk The chunk to sweep, already claimed with {@link #claimSweep}
+   * @param space The space the chunk belongs to
+   * @param markHistogram The spill histogram to accumulate into
+   * @param counts The sweep counts to accumulate into
+   * @param epoch The current sweep epoch
+   */
+  static void sweepDeferred(Address chunk, RCImmixSpace space, int[] markHistogram, int[] counts, int epoch) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    Address end = getHighWater(chunk);
+    Address start = getFirstUsableBlock(chunk);
+    Address cursor = RCImmixBlock.getBlockMarkStateAddress(start);
+    int toRelease = 0;
+    for (int index = FIRST_USABLE_BLOCK_INDEX; index < BLOCKS_IN_CHUNK; index++) {
+      Address block = chunk.plus(index<<LOG_BYTES_IN_BLOCK);
+      if (block.GT(end)) break;
+      if (!RCImmixBlock.isUnusedState(cursor)) {
+        short marked = RCImmixBlock.sweepOneBlock(block, markHistogram);
+        if (marked == 0) {
+          RCImmixBlock.setState(cursor, RCImmixBlock.RELEASE_PENDING_BLOCK_STATE);
+          toRelease++;
+        } else {
+          RCImmixBlock.setState(cursor, marked);
+          if (RCImmixBlock.getRCAddress(block).loadByte() == RCImmixObjectHeader.ZERO) {
+            RCImmixSpace.countLinesCleaned(counts, LINES_IN_BLOCK - marked);
+          }
+          RCImmixBlock.getRCAddress(block).store(RCImmixObjectHeader.ONE);
+        }
+      }
+      cursor = cursor.plus(RCImmixBlock.BYTES_IN_BLOCK_STATE_ENTRY);
+    }
+    setSwept(chunk, epoch);
+    cursor = RCImmixBlock.getBlockMarkStateAddress(start);
+    for (int index = FIRST_USABLE_BLOCK_INDEX; toRelease > 0; index++) {
+      if (RCImmixBlock.getMarkState(cursor) == RCImmixBlock.RELEASE_PENDING_BLOCK_STATE) {
+        toRelease--;
+        space.release(chunk.plus(index<<LOG_BYTES_IN_BLOCK), counts);
+      }
+      cursor = cursor.plus(RCImmixBlock.BYTES_IN_BLOCK_STATE_ENTRY);
+    }
+  }
+
+  /**
+   * Claim the deferred sweep of a chunk for the given epoch.
+   *
+   * @param chunk The chunk
+   * @param epoch The current sweep epoch
+   * @return <code>true</code> if the caller must sweep the chunk,
+   * <code>false</code> if it has been swept or another thread is sweeping it.
+   */
+  static boolean claimSweep(Address chunk, int epoch) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    Address state = chunk.plus(SWEEP_STATE_OFFSET);
+    int oldValue;
+    do {
+      oldValue = state.prepareInt();
+      if (oldValue >= (epoch << 1) - 1) return false;
+    } while (!state.attempt(oldValue, (epoch << 1) - 1));
+    return true;
+  }
+
+  /**
+   * @param chunk The chunk
+   * @param epoch The current sweep epoch
+   * @return <code>true</code> if the chunk has been swept in this epoch.
+   */
+  static boolean isSwept(Address chunk, int epoch) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    return chunk.plus(SWEEP_STATE_OFFSET).loadInt() == epoch << 1;
+  }
+
+  /**
+   * Record that a chunk has been swept in this epoch (or, for a new
+   * chunk, needs no sweep).
+   *
+   * @param chunk The chunk
+   * @param epoch The current sweep epoch
+   */
+  static void setSwept(Address chunk, int epoch) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isAligned(chunk));
+    chunk.plus(SWEEP_STATE_OFFSET).store(epoch << 1);
+  }
+
+  static void clearMetaData(Address chunk, boolean hugePages) {
     if (VM.VERIFY_ASSERTIONS) {
       VM.assertions._assert(isAligned(chunk));
       VM.assertions._assert(Conversions.isPageAligned(chunk));
       VM.assertions._assert(Conversions.isPageAligned(ROUNDED_METADATA_BYTES_PER_CHUNK));
     }
-    Mmapper.ensureMapped(chunk, ROUNDED_METADATA_PAGES_PER_CHUNK);
+    Mmapper.ensureMapped(chunk, ROUNDED_METADATA_PAGES_PER_CHUNK, hugePages);
     VM.memory.zero(false, chunk, Extent.fromIntZeroExtend(ROUNDED_METADATA_BYTES_PER_CHUNK));
     if (VM.VERIFY_ASSERTIONS) checkMetaDataCleared(chunk, chunk);
   }
@@ -159,6 +249,7 @@ public class RCImmixChunk {
   private static final int HIGHWATER_BYTES = 1<<LOG_BYTES_IN_HIGHWATER_ENTRY;
   private static final int LOG_BYTES_IN_MAP_ENTRY = LOG_BYTES_IN_INT;
   private static final int MAP_BYTES = 1<<LOG_BYTES_IN_MAP_ENTRY;
+  private static final int SWEEP_STATE_BYTES = 1<<LOG_BYTES_IN_INT;
 
   /* byte offsets for each type of metadata */
   static final int LINE_RC_TABLE_OFFSET = 0;
@@ -168,7 +259,8 @@ public class RCImmixChunk {
   static final int HIGHWATER_OFFSET = BLOCK_DEFRAG_STATE_TABLE_OFFSET + RCImmixBlock.BLOCK_DEFRAG_STATE_TABLE_BYTES;
 
   static final int MAP_OFFSET = HIGHWATER_OFFSET + HIGHWATER_BYTES;
-  static final int METADATA_BYTES_PER_CHUNK = MAP_OFFSET + MAP_BYTES;
+  static final int SWEEP_STATE_OFFSET = MAP_OFFSET + MAP_BYTES;
+  static final int METADATA_BYTES_PER_CHUNK = SWEEP_STATE_OFFSET + SWEEP_STATE_BYTES;
 
   /* FIXME we round the metadata up to block sizes just to ensure the underlying allocator gives us aligned requests */
   private static final int BLOCK_MASK = (1<<LOG_BYTES_IN_BLOCK) - 1;
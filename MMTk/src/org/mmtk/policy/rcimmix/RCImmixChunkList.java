@@ -151,6 +151,31 @@ public final class RCImmixChunkList {
     return entry == start ? Address.zero() : chunk;
   }
 
+  /**
+   * @return The highest entry of the map that existed at the last
+   * collection, for iterators that must not follow chunk links.
+   */
+  public int getLimit() {
+    return chunkMapLimit;
+  }
+
+  /**
+   * @param entry An entry no higher than {@link #getLimit()}
+   * @return The chunk at the entry of the map, or zero if it has been released.
+   */
+  public Address getChunk(int entry) {
+    return getMapAddress(entry).loadAddress();
+  }
+
+  /**
+   * @param chunk A chunk of this list's space
+   * @return <code>true</code> if the chunk is still in the map
+   */
+  boolean contains(Address chunk) {
+    int entry = RCImmixChunk.getMap(chunk);
+    return entry >= 0 && entry <= chunkMapCursor && getMapAddress(entry).loadAddress().EQ(chunk);
+  }
+
   public Address firstChunk(int ordinal, int stride) {
     if (ordinal > chunkMapCursor) return Address.zero();
     if (VM.VERIFY_ASSERTIONS) checkMap();
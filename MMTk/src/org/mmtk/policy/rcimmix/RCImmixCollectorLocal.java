@@ -41,7 +41,8 @@ public final class RCImmixCollectorLocal {
   private final RCImmixSpace rCImmixSpace;
   private final RCImmixChunkList chunkMap;
   private final RCImmixDefrag rCImmixDefrag;
-
+  /** The next chunk map entry this collector sweeps in a deferred sweep */
+  private int sweepCursor;
 
   /****************************************************************************
    *
@@ -95,7 +96,35 @@ public final class RCImmixCollectorLocal {
    * We help sweeping all the blocks in parallel.
    */
   public void release(boolean majorGC) {
-    sweepAllBlocks(majorGC);
+    if (!rCImmixSpace.isSweepDeferred()) sweepAllBlocks(majorGC);
+  }
+
+  /**
+   * Start helping with a deferred sweep while mutators run.
+   */
+  public void startDeferredSweep() {
+    sweepCursor = VM.activePlan.collector().parallelWorkerOrdinal();
+  }
+
+  /**
+   * Sweep this collector's next chunk of a deferred sweep, unless an
+   * allocator has already swept it.  We step through the chunk map by
+   * entry rather than with {@link RCImmixChunkList#nextChunk(Address, int, int)},
+   * because a chunk freed by the sweep may already have been reused.
+   *
+   * @return <code>false</code> if this collector has no chunks left.
+   */
+  public boolean sweepNextChunk() {
+    int stride = VM.activePlan.collector().parallelWorkerCount();
+    while (rCImmixSpace.isSweepPending() && sweepCursor <= chunkMap.getLimit()) {
+      Address chunk = chunkMap.getChunk(sweepCursor);
+      sweepCursor += stride;
+      if (!chunk.isZero()) {
+        rCImmixSpace.ensureSwept(chunk);
+        return true;
+      }
+    }
+    return false;
   }
 
   private void sweepAllBlocks(boolean majorGC) {
@@ -18,6 +18,7 @@ import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
 
 import org.mmtk.utility.Log;
 import org.mmtk.utility.heap.FreeListPageResource;
+import org.mmtk.utility.options.DefragEvacuationBudget;
 import org.mmtk.utility.options.DefragFreeHeadroom;
 import org.mmtk.utility.options.DefragFreeHeadroomFraction;
 import org.mmtk.utility.options.DefragHeadroom;
@@ -37,7 +38,10 @@ public class RCImmixDefrag {
   //private int debugBytesDefraged = 0;
   private int availableCleanPagesForDefrag;
   private boolean defragSpaceExhausted = true;
-  private int[][] spillMarkHistograms = new int[MAX_COLLECTORS][SPILL_HISTOGRAM_BUCKETS];
+  /* did the evacuation budget leave fragmented blocks for a later defrag? */
+  private boolean defragIncomplete = false;
+  /* one histogram per collector, and a last one for mutators sweeping lazily */
+  private int[][] spillMarkHistograms = new int[MAX_COLLECTORS + 1][SPILL_HISTOGRAM_BUCKETS];
   private int[] spillAvailHistogram = new int[SPILL_HISTOGRAM_BUCKETS];
   public static SizeCounter defragCleanBytesUsed = new SizeCounter("cleanUsed");
 
@@ -60,6 +64,7 @@ public class RCImmixDefrag {
     Options.defragFreeHeadroomFraction = new DefragFreeHeadroomFraction();
     Options.defragSimpleSpillThreshold = new DefragSimpleSpillThreshold();
     Options.defragStress = new DefragStress();
+    Options.defragEvacuationBudget = new DefragEvacuationBudget();
     defragReusableMarkStateThreshold = (short) (Options.defragLineReuseRatio.getValue() * MAX_BLOCK_MARK_STATE);
   }
 
@@ -69,6 +74,8 @@ public class RCImmixDefrag {
 
   boolean inDefrag() { return inDefragCollection; }
 
+  boolean incomplete() { return defragIncomplete; }
+
   void prepare(RCImmixChunkList chunkMap, RCImmixSpace space) {
     availableCleanPagesForDefrag = VM.activePlan.global().getTotalPages() - VM.activePlan.global().getPagesReserved() + getDefragHeadroomPages();
     if (availableCleanPagesForDefrag < 0) availableCleanPagesForDefrag = 0;
@@ -134,10 +141,15 @@ public class RCImmixDefrag {
 
   boolean determined(boolean inDefrag) { return debugCollectionTypeDetermined && !(inDefrag ^ inDefragCollection); }
 
-  void getBlock() {
+  void getBlock(boolean pastDeadline) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!inDefragCollection || !defragSpaceExhausted);
     if (availableCleanPagesForDefrag <= 0)
       defragSpaceExhausted = true;
+    if (pastDeadline && inDefragCollection) {
+      /* out of time: leave the remaining candidates to the next defrag */
+      defragSpaceExhausted = true;
+      defragIncomplete = true;
+    }
     availableCleanPagesForDefrag -= PAGES_IN_BLOCK;
     //debugBytesDefraged += BYTES_IN_BLOCK;
     RCImmixDefrag.defragCleanBytesUsed.inc(BYTES_IN_BLOCK);
@@ -150,17 +162,25 @@ public class RCImmixDefrag {
     int requiredLines = 0;
     short threshold = (short) MAX_CONSV_SPILL_COUNT;
     int limit = (int) (availableLines / Options.defragLineReuseRatio.getValue());
+    int budget = Options.defragEvacuationBudget.getPages() << (LOG_BYTES_IN_PAGE - LOG_BYTES_IN_LINE);
+    defragIncomplete = false;
     if (VM.VERIFY_ASSERTIONS && Options.verbose.getValue() > 2) {
       Log.write("[threshold: "); Log.write("cl: "); Log.write(cleanLines);
       Log.write(" al: "); Log.write(availableLines);
       Log.write(" lm: "); Log.write(limit);
+      Log.write(" bg: "); Log.write(budget);
     }
     int collectors = VM.activePlan.collectorCount();
     for (short index = MAX_CONSV_SPILL_COUNT; index >= TMP_MIN_SPILL_THRESHOLD && limit > requiredLines; index--) {
-      threshold = (short) index;
       int thisBucketMark = 0;
       int thisBucketAvail = 0;
-      for (int c = 0; c < collectors; c++) thisBucketMark += spillMarkHistograms[c][threshold];
+      for (int c = 0; c < collectors; c++) thisBucketMark += spillMarkHistograms[c][index];
+      if (budget > 0 && requiredLines > 0 && requiredLines + thisBucketMark > budget) {
+        /* the least fragmented candidates wait for a later defrag */
+        defragIncomplete = true;
+        break;
+      }
+      threshold = (short) index;
 
       thisBucketAvail = spillAvailHistogram[threshold];
       limit -= thisBucketAvail;
@@ -178,6 +198,36 @@ public class RCImmixDefrag {
 
   boolean spaceExhausted() { return defragSpaceExhausted; }
 
+  /**
+   * Zero every histogram, ready for a deferred sweep.  Each thread that
+   * sweeps accumulates into its own histogram.
+   */
+  void zeroSpillMarkHistograms() {
+    for (int c = 0; c <= MAX_COLLECTORS; c++)
+      getAndZeroSpillMarkHistogram(c);
+  }
+
+  /**
+   * @param slot A collector ordinal, or <code>MAX_COLLECTORS</code> for mutators
+   * @return The histogram of the slot
+   */
+  int[] getSpillMarkHistogram(int slot) {
+    return spillMarkHistograms[slot];
+  }
+
+  /**
+   * Add the histogram of mutator sweeps to that of the first collector,
+   * which is where the spill threshold looks for it, once a deferred
+   * sweep has finished.
+   */
+  void mergeMutatorSpillMarkHistogram() {
+    int[] mutator = spillMarkHistograms[MAX_COLLECTORS];
+    for (int i = 0; i < SPILL_HISTOGRAM_BUCKETS; i++) {
+      spillMarkHistograms[0][i] += mutator[i];
+      mutator[i] = 0;
+    }
+  }
+
   int[] getAndZeroSpillMarkHistogram(int ordinal) {
     int[] rtn = spillMarkHistograms[ordinal];
     for (int i = 0; i < SPILL_HISTOGRAM_BUCKETS; i++)
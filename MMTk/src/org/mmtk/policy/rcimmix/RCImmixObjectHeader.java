@@ -14,6 +14,8 @@ package org.mmtk.policy.rcimmix;
 
 import static org.mmtk.utility.Constants.BITS_IN_BYTE;
 import static org.mmtk.utility.Constants.BITS_IN_ADDRESS;
+import static org.mmtk.utility.Constants.BYTES_IN_INT;
+import static org.mmtk.utility.Constants.LOG_BITS_IN_BYTE;
 
 import org.mmtk.utility.ForwardingWord;
 import org.mmtk.utility.Log;
@@ -30,6 +32,8 @@ public class RCImmixObjectHeader {
 
   public static boolean performCycleCollection = false;
   public static boolean performSurvivorCopy = false;
+  /** Is a concurrent backup trace in progress?  If so, mark bits must survive logging. */
+  public static boolean concurrentMarking = false;
   public static final byte LINE_INCREMENT = 2;
   public static final byte LIVE_THRESHOLD = 2;
   public static final byte LINE_MARK_BIT_MASK = 1;
@@ -125,7 +129,7 @@ public class RCImmixObjectHeader {
     do {
       oldValue = VM.objectModel.prepareAvailableBits(object);
       newValue = oldValue.or(UNLOGGED);
-      newValue = newValue.and(MARK_BIT_MASK.not()).or(markAllocValue);
+      if (!concurrentMarking) newValue = newValue.and(MARK_BIT_MASK.not()).or(markAllocValue);
     } while (!VM.objectModel.attemptAvailableBits(object, oldValue, newValue));
   }
 
@@ -245,6 +249,20 @@ public class RCImmixObjectHeader {
     return true;
   }
 
+  /**
+   * Unconditionally mark this object, regardless of the (possibly stale)
+   * mark state it was allocated with.  Used for objects surviving their
+   * first collection while a concurrent backup trace is in progress.
+   */
+  @Inline
+  public static void setMarked(ObjectReference object) {
+    Word oldValue, newValue;
+    do {
+      oldValue = VM.objectModel.prepareAvailableBits(object);
+      newValue = oldValue.and(MARK_BIT_MASK.not()).or(markValue);
+    } while (!VM.objectModel.attemptAvailableBits(object, oldValue, newValue));
+  }
+
   @Inline
   public static void writeMarkState(ObjectReference object, boolean straddling) {
     byte oldValue = VM.objectModel.readAvailableByte(object);
@@ -466,14 +484,39 @@ public class RCImmixObjectHeader {
     return value.and(refSticky).EQ(refSticky);
   }
 
+  /**
+   * Attempt to change a line's reference count byte.  Concurrent
+   * decrements, collectors and the backup trace may update neighbouring
+   * bytes at the same time, so the byte is replaced with a compare and
+   * swap on the aligned int that contains it.
+   *
+   * @param line The address of the line's reference count byte
+   * @param oldValue The value the byte is expected to hold
+   * @param newValue The value to store
+   * @return <code>true</code> if the byte still held <code>oldValue</code>
+   * and was updated.
+   */
+  @Inline
+  private static boolean attemptLineRC(Address line, byte oldValue, byte newValue) {
+    Word byteInInt = line.toWord().and(Word.fromIntZeroExtend(BYTES_IN_INT - 1));
+    Address cell = line.minus(byteInInt.toInt());
+    int shift = (VM.LITTLE_ENDIAN ? byteInInt.toInt() : BYTES_IN_INT - 1 - byteInInt.toInt()) << LOG_BITS_IN_BYTE;
+    int oldCell = cell.prepareInt();
+    if ((byte) (oldCell >>> shift) != oldValue) return false;
+    int newCell = (oldCell & ~(0xFF << shift)) | ((newValue & 0xFF) << shift);
+    return cell.attempt(oldCell, newCell);
+  }
+
   @Inline
   private static void incLineRC(Address address) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!RCImmixBlock.isUnused(RCImmixBlock.align(address)));
     address = RCImmixLine.align(address);
     Address line = RCImmixLine.getRCAddress(address);
-    byte oldValue = line.loadByte();
-    byte newValue = (byte)(oldValue + LINE_INCREMENT);
-    line.store(newValue);
+    byte oldValue, newValue;
+    do {
+      oldValue = line.loadByte();
+      newValue = (byte)(oldValue + LINE_INCREMENT);
+    } while (!attemptLineRC(line, oldValue, newValue));
   }
 
   @Inline
@@ -504,9 +547,11 @@ public class RCImmixObjectHeader {
 
     address = RCImmixLine.align(address);
     Address line = RCImmixLine.getRCAddress(address);
-    byte oldValue = line.loadByte();
-    byte newValue = (byte) (oldValue - LINE_INCREMENT);
-    line.store(newValue);
+    byte oldValue, newValue;
+    do {
+      oldValue = line.loadByte();
+      newValue = (byte) (oldValue - LINE_INCREMENT);
+    } while (!attemptLineRC(line, oldValue, newValue));
   }
 
   @Inline
@@ -524,17 +569,40 @@ public class RCImmixObjectHeader {
   private static boolean testAndMarkLine(Address address) {
     address = RCImmixLine.align(address);
     Address line = RCImmixLine.getRCAddress(address);
-    byte oldValue = line.loadByte();
-    byte newValue;
-    if ((oldValue & LINE_MARK_BIT_MASK) == LINE_MARK_BIT_MASK) {
-      newValue = (byte) (oldValue + LINE_INCREMENT);
-    } else {
-      newValue = LINE_INCREMENT_MARK;
-    }
-    line.store(newValue);
+    byte oldValue, newValue;
+    do {
+      oldValue = line.loadByte();
+      if ((oldValue & LINE_MARK_BIT_MASK) == LINE_MARK_BIT_MASK) {
+        newValue = (byte) (oldValue + LINE_INCREMENT);
+      } else {
+        newValue = LINE_INCREMENT_MARK;
+      }
+    } while (!attemptLineRC(line, oldValue, newValue));
     return true;
   }
 
+  @Inline
+  private static void markLine(Address address) {
+    address = RCImmixLine.align(address);
+    Address line = RCImmixLine.getRCAddress(address);
+    byte oldValue;
+    do {
+      oldValue = line.loadByte();
+      if ((oldValue & LINE_MARK_BIT_MASK) == LINE_MARK_BIT_MASK) return;
+    } while (!attemptLineRC(line, oldValue, (byte) (oldValue | LINE_MARK_BIT_MASK)));
+  }
+
+  @Inline
+  private static void markMultiLine(Address start, ObjectReference object) {
+    Address endLine = RCImmixLine.align(VM.objectModel.getObjectEndAddress(object).minus(1));
+    Address line = RCImmixLine.align(start.plus(RCImmixConstants.BYTES_IN_LINE));
+    while (line.LT(endLine)) {
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(RCImmixBlock.align(start).EQ(RCImmixBlock.align(line)));
+      markLine(line);
+      line = line.plus(RCImmixConstants.BYTES_IN_LINE);
+    }
+  }
+
   @Inline
   private static void testAndMarkMultiLine(Address start, ObjectReference object) {
     Address endLine = RCImmixLine.align(VM.objectModel.getObjectEndAddress(object).minus(1));
@@ -564,6 +632,20 @@ public class RCImmixObjectHeader {
     }
   }
 
+  /**
+   * Set the mark bit of the lines spanned by this object without
+   * touching their reference counts.  Used by the concurrent backup
+   * trace, which cannot rebuild line counts while mutators run.
+   */
+  @Inline
+  public static void markLines(ObjectReference object) {
+    Address address = VM.objectModel.objectStartRef(object);
+    markLine(address);
+    if (isStraddlingObject(object)) {
+      markMultiLine(address, object);
+    }
+  }
+
   @Inline
   public static void testAndMarkLines(ObjectReference object) {
     Address address = VM.objectModel.objectStartRef(object);
@@ -615,4 +697,37 @@ public class RCImmixObjectHeader {
       newValue = oldValue.plus(INCREMENT);
     } while (!VM.objectModel.attemptAvailableBits(object, oldValue, newValue));
   }
+
+  /**
+   * Apply several increments to an old object with a single update,
+   * saturating at the sticky count.
+   *
+   * @param object The object whose reference count is to be incremented
+   * @param delta The number of increments
+   */
+  @Inline
+  public static void incRCOld(ObjectReference object, int delta) {
+    Word oldValue, newValue;
+    do {
+      oldValue = VM.objectModel.prepareAvailableBits(object);
+      if (isStuck(oldValue)) return;
+      int count = oldValue.and(READ_MASK).rshl(INCREMENT_SHIFT).toInt() + delta;
+      if (count > refStickyValue) count = refStickyValue;
+      newValue = oldValue.and(WRITE_MASK).or(Word.fromIntZeroExtend(count).lsh(INCREMENT_SHIFT));
+    } while (!VM.objectModel.attemptAvailableBits(object, oldValue, newValue));
+  }
+
+  /**
+   * Is this object old and not being forwarded?  Both hold for the rest of
+   * a pause once they hold, so increments to such an object may be
+   * deferred and coalesced.
+   *
+   * @param object The object in question
+   * @return <code>true</code> if the object is old and not being forwarded
+   */
+  @Inline
+  public static boolean isStableOld(ObjectReference object) {
+    Word header = VM.objectModel.readAvailableBitsWord(object);
+    return !isHeaderNew(header) && !ForwardingWord.stateIsForwardedOrBeingForwarded(header);
+  }
 }
@@ -13,6 +13,8 @@
 package org.mmtk.policy.rcimmix;
 
 import static org.mmtk.policy.rcimmix.RCImmixConstants.*;
+import static org.mmtk.utility.Constants.BITS_IN_INT;
+import static org.mmtk.utility.Constants.LOG_BITS_IN_INT;
 import static org.mmtk.utility.Constants.LOG_BYTES_IN_PAGE;
 
 import org.mmtk.plan.TransitiveClosure;
@@ -69,12 +71,57 @@ public final class RCImmixSpace extends Space {
   private Address allocBlockSentinel = Address.zero();
   private boolean exhaustedReusableSpace = true;
   public boolean exhaustedCopySpace = false;
+  /** The time (in nanoseconds) after which this pause should stop copying, or zero for no limit */
+  private long copyDeadline = 0;
   public int maxCleanPagesForCopy = 0;
   public double linesUsed = 0;
-  public double linesCleaned = 0;
+
+  /*
+   * Counts gathered while sweeping and copying.  Each collector counts in
+   * the slot of its ordinal, so parallel sweeps and copies never update a
+   * shared counter; the slots are summed when the counts are read.
+   * Mutators sweeping lazily share a slot, which they update under
+   * mutatorSweepLock.
+   */
+  /** The slot of mutators sweeping lazily */
+  private static final int MUTATOR_SLOT = MAX_COLLECTORS;
+  private static final int LINES_CLEANED = 0;
+  private static final int PAGES_RELEASED = 1;
+  private static final int SWEEP_COUNTS = 2;
+  /** Lines freed and pages returned by sweeps, in each slot */
+  private final int[][] sweepCounts = new int[MAX_COLLECTORS + 1][SWEEP_COUNTS];
+  /** Bytes of young objects that survived their first collection, by collector and size class */
+  private final long[][] survivorBytes = new long[MAX_COLLECTORS][SurvivalPredictor.SIZE_CLASSES];
 
 
   private final RCImmixChunkList chunkMap = new RCImmixChunkList();
+
+  /* Deferred sweeping */
+  /** Should the sweep of this collection be left until mutators have resumed? */
+  private boolean deferSweep = false;
+  /** Are chunks left unswept by the last collection? */
+  private volatile boolean sweepPending = false;
+  /** Incremented by each collection that defers its sweep */
+  private int sweepEpoch = 0;
+  /** Serialises the deferred sweeps of mutators, which share a slot of the counts and histograms */
+  private final Lock mutatorSweepLock = VM.newLock(getName()+"mutatorSweep");
+  /** Protects the chunk map against chunks being added or released while a sweep is claimed */
+  private final Lock chunkMapLock = VM.newLock(getName()+"chunkMap");
+
+  /* Background line zeroing */
+  private static final int BLOCKS_IN_RECYCLE_ALLOC_CHUNK = BYTES_IN_RECYCLE_ALLOC_CHUNK >> LOG_BYTES_IN_BLOCK;
+  /** Words in the bitmap of pre-zeroed lines of one recycle allocation chunk */
+  public static final int PREZEROED_BITMAP_WORDS = (BLOCKS_IN_RECYCLE_ALLOC_CHUNK * LINES_IN_BLOCK) >> LOG_BITS_IN_INT;
+  /** The number of recycle allocation chunks zeroed ahead of the allocators */
+  private static final int PREZEROED_REGIONS = 8;
+  private RCImmixZeroingContext zeroingContext;
+  private final Lock zeroingLock = VM.newLock(getName()+"zeroing");
+  private final AddressArray preZeroedRegions = AddressArray.create(PREZEROED_REGIONS);
+  private final int[] preZeroedLines = new int[PREZEROED_REGIONS * PREZEROED_BITMAP_WORDS];
+  private int preZeroedHead = 0;
+  private int preZeroedCount = 0;
+  private boolean zeroingEnabled = false;
+  private volatile boolean zeroingBusy = false;
   private final RCImmixDefrag rCImmixDefrag;
 
   /****************************************************************************
@@ -110,6 +157,8 @@ public final class RCImmixSpace extends Space {
    */
   public RCImmixSpace(String name, boolean zeroed, VMRequest vmRequest) {
     super(name, false, false, zeroed, vmRequest);
+    hugePageCandidate = true;
+    cachedRunPages = PAGES_IN_BLOCK;
     if (vmRequest.isDiscontiguous())
       pr = new FreeListPageResource(this, RCImmixChunk.getRequiredMetaDataPages());
     else
@@ -140,6 +189,12 @@ public final class RCImmixSpace extends Space {
   public boolean release(boolean majorGC) {
     boolean didDefrag = rCImmixDefrag.inDefrag();
     chunkMap.reset();
+    if (deferSweep) {
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(!sweepPending && !didDefrag);
+      rCImmixDefrag.zeroSpillMarkHistograms();
+      sweepEpoch++;
+      sweepPending = true;
+    }
     rCImmixDefrag.globalRelease();
     inCollection = false;
 
@@ -206,6 +261,27 @@ public final class RCImmixSpace extends Space {
     return inCollection && rCImmixDefrag.inDefrag();
   }
 
+  /**
+   * Set the time after which collectors stop copying objects (survivor
+   * copying and defragmentation) when they next need a block to copy into.
+   *
+   * @param deadline A time as given by <code>VM.statistics.nanoTime()</code>,
+   * or zero for no deadline.
+   */
+  public void setCopyDeadline(long deadline) {
+    copyDeadline = deadline;
+  }
+
+  /**
+   * Did the last defragmenting collection leave candidate blocks behind
+   * because of the evacuation budget?
+   *
+   * @return True if more defragmentation work is pending
+   */
+  public boolean defragIncomplete() {
+    return rCImmixDefrag.incomplete();
+  }
+
   /**
    * Return the number of pages allocated since the last collection
    *
@@ -244,11 +320,14 @@ public final class RCImmixSpace extends Space {
    */
   public Address getSpace(boolean hot, boolean copy, int lineUseCount) {
     Address rtn;
+    boolean pastDeadline = copyDeadline != 0 && !VM.activePlan.isMutator() && VM.statistics.nanoTime() > copyDeadline;
     if (copy)
-      rCImmixDefrag.getBlock();
+      rCImmixDefrag.getBlock(pastDeadline);
 
     if (!VM.activePlan.isMutator() && RCImmixObjectHeader.performSurvivorCopy) {
-      if ((maxCleanPagesForCopy - PAGES_IN_BLOCK) >= 0) {
+      if (pastDeadline) {
+        exhaustedCopySpace = true;
+      } else if ((maxCleanPagesForCopy - PAGES_IN_BLOCK) >= 0) {
         maxCleanPagesForCopy-= PAGES_IN_BLOCK;
       } else {
         exhaustedCopySpace = true; // this flag is used to control survivor copy
@@ -269,6 +348,7 @@ public final class RCImmixSpace extends Space {
     }
 
     if (!rtn.isZero()) {
+      ensureSwept(chunkAlign(rtn, true));
       RCImmixBlock.setBlockAsInUse(rtn);
       RCImmixChunk.updateHighWater(rtn);
       //MYNOTE:
@@ -287,8 +367,11 @@ public final class RCImmixSpace extends Space {
      if (newChunk) {
       Address chunk = chunkAlign(start.plus(bytes), true);
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(chunkAlign(start.plus(bytes), true).EQ(chunk));
-      RCImmixChunk.clearMetaData(chunk);
+      chunkMapLock.acquire();
+      RCImmixChunk.clearMetaData(chunk, usesHugePages());
+      RCImmixChunk.setSwept(chunk, sweepEpoch);
       chunkMap.addNewChunkToMap(chunk);
+      chunkMapLock.release();
     }
   }
 
@@ -305,6 +388,7 @@ public final class RCImmixSpace extends Space {
     else {
       rtn = allocBlockCursor;
       Address lastAllocChunk = chunkAlign(allocBlockCursor, true);
+      ensureSwept(lastAllocChunk);
       allocBlockCursor = allocBlockCursor.plus(BYTES_IN_RECYCLE_ALLOC_CHUNK);
       if (allocBlockCursor.GT(RCImmixChunk.getHighWater(lastAllocChunk)))
         allocBlockCursor = chunkMap.nextChunk(lastAllocChunk);
@@ -333,13 +417,25 @@ public final class RCImmixSpace extends Space {
   @Override
   @Inline
   public void release(Address block) {
+    release(block, sweepCounts());
+  }
+
+  /**
+   * Release a block, counting the lines and pages it frees.
+   *
+   * @param block The address of the block to be released
+   * @param counts The sweep counts of the calling thread
+   */
+  @Inline
+  void release(Address block, int[] counts) {
     if (RCImmixBlock.getRCAddress(block).loadByte() == RCImmixObjectHeader.ONE) {
       RCImmixBlock.getRCAddress(block).store(RCImmixObjectHeader.ZERO);
     } else {
-      linesCleaned += LINES_IN_BLOCK;
+      counts[LINES_CLEANED] += LINES_IN_BLOCK;
     }
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(RCImmixBlock.isAligned(block));
     RCImmixBlock.setBlockAsUnallocated(block);
+    counts[PAGES_RELEASED] += PAGES_IN_BLOCK;
 
     //MYNOTE:
     if(Options.verbose.getValue() > 3) {
@@ -361,7 +457,9 @@ public final class RCImmixSpace extends Space {
    */
   @Override
   public int releaseDiscontiguousChunks(Address chunk) {
+    chunkMapLock.acquire();
     chunkMap.removeChunkFromMap(chunk);
+    chunkMapLock.release();
     return super.releaseDiscontiguousChunks(chunk);
   }
 
@@ -706,6 +804,241 @@ public final class RCImmixSpace extends Space {
   }
 
 
+  /****************************************************************************
+   *
+   * Deferred sweeping
+   */
+
+  /**
+   * Choose whether the current collection sweeps its blocks in the pause
+   * or leaves them to be swept while mutators run.  Only a collection
+   * that neither traces nor defragments may defer its sweep, since those
+   * rely on line marks that the next collection would overwrite.
+   *
+   * @param defer <code>true</code> if the sweep should be deferred
+   */
+  public void setDeferSweep(boolean defer) {
+    deferSweep = defer;
+  }
+
+  /**
+   * @return <code>true</code> if this collection leaves its sweep until
+   * after the pause.
+   */
+  public boolean isSweepDeferred() {
+    return deferSweep;
+  }
+
+  /**
+   * @return <code>true</code> if chunks may still need a deferred sweep.
+   */
+  public boolean isSweepPending() {
+    return sweepPending;
+  }
+
+  /**
+   * Sweep a chunk if the deferred sweep has not yet reached it, or wait
+   * for another thread that is sweeping it.  Blocks of a chunk may only be
+   * handed out once it has been swept, so allocators call this (lazily
+   * publishing recyclable blocks) as well as background collectors.<p>
+   *
+   * The caller may have found the chunk in the chunk map just before the
+   * sweep of a neighbour released it, so the claim is only made while the
+   * chunk map lock shows the chunk still belongs to this space.
+   *
+   * @param chunk The chunk
+   */
+  @Inline
+  public void ensureSwept(Address chunk) {
+    if (!sweepPending) return;
+    chunkMapLock.acquire();
+    boolean mapped = isInSpace(getDescriptor(), chunk) && chunkMap.contains(chunk);
+    boolean claimed = mapped && RCImmixChunk.claimSweep(chunk, sweepEpoch);
+    chunkMapLock.release();
+    if (claimed) {
+      sweepDeferred(chunk);
+    } else if (mapped) {
+      while (!RCImmixChunk.isSwept(chunk, sweepEpoch) && isInSpace(getDescriptor(), chunk)) {
+        /* another thread is sweeping this chunk */
+      }
+    }
+  }
+
+  /**
+   * Sweep a claimed chunk, counting into the calling thread's slot.
+   *
+   * @param chunk The chunk
+   */
+  private void sweepDeferred(Address chunk) {
+    if (VM.activePlan.isMutator()) {
+      mutatorSweepLock.acquire();
+      RCImmixChunk.sweepDeferred(chunk, this, rCImmixDefrag.getSpillMarkHistogram(MUTATOR_SLOT),
+          sweepCounts[MUTATOR_SLOT], sweepEpoch);
+      mutatorSweepLock.release();
+    } else {
+      int ordinal = VM.activePlan.collector().parallelWorkerOrdinal();
+      RCImmixChunk.sweepDeferred(chunk, this, rCImmixDefrag.getSpillMarkHistogram(ordinal),
+          sweepCounts[ordinal], sweepEpoch);
+    }
+  }
+
+  /**
+   * Finish any deferred sweep.  Called at the start of a collection,
+   * before anything examines block states.
+   */
+  public void completeDeferredSweep() {
+    if (!sweepPending) return;
+    int limit = chunkMap.getLimit();
+    for (int entry = 0; entry <= limit; entry++) {
+      Address chunk = chunkMap.getChunk(entry);
+      if (!chunk.isZero()) ensureSwept(chunk);
+    }
+    rCImmixDefrag.mergeMutatorSpillMarkHistogram();
+    sweepPending = false;
+  }
+
+  /****************************************************************************
+   *
+   * Background line zeroing
+   */
+
+  /**
+   * Start a background thread that zeroes the free lines of recyclable
+   * blocks ahead of the allocators.
+   */
+  @Interruptible
+  public void enableConcurrentLineZeroing() {
+    zeroingContext = new RCImmixZeroingContext(this);
+    VM.collection.spawnCollectorContext(zeroingContext);
+  }
+
+  /**
+   * Stop background zeroing for a collection, waiting for a chunk being
+   * zeroed to be finished, and drop the chunks the allocators did not
+   * reach (they are found again by the allocators in a later cycle).
+   */
+  public void stopLineZeroing() {
+    if (zeroingContext == null) return;
+    zeroingLock.acquire();
+    zeroingEnabled = false;
+    zeroingLock.release();
+    while (zeroingBusy) { }
+    preZeroedHead = 0;
+    preZeroedCount = 0;
+  }
+
+  /**
+   * Resume background zeroing once the reusable space has been
+   * established at the end of a collection.
+   */
+  public void startLineZeroing() {
+    if (zeroingContext == null) return;
+    zeroingLock.acquire();
+    zeroingEnabled = true;
+    zeroingLock.release();
+    zeroingContext.trigger();
+  }
+
+  /**
+   * The entry point for the background zeroing context.  Take recycle
+   * allocation chunks in the order the allocators would, zero the holes of
+   * their recyclable blocks, and queue them until the queue is full.
+   */
+  public void concurrentLineZeroing() {
+    while (true) {
+      zeroingLock.acquire();
+      if (!zeroingEnabled || preZeroedCount == PREZEROED_REGIONS) {
+        zeroingLock.release();
+        return;
+      }
+      zeroingBusy = true;
+      int slot = (preZeroedHead + preZeroedCount) % PREZEROED_REGIONS;
+      zeroingLock.release();
+
+      Address region = acquireReusableBlocks();
+      if (!region.isZero()) {
+        zeroRecyclableLines(region, slot * PREZEROED_BITMAP_WORDS);
+      }
+
+      zeroingLock.acquire();
+      if (!region.isZero()) {
+        preZeroedRegions.set(slot, region);
+        preZeroedCount++;
+      }
+      zeroingBusy = false;
+      zeroingLock.release();
+      if (region.isZero()) return;
+    }
+  }
+
+  /**
+   * Zero every hole of every recyclable block in a recycle allocation
+   * chunk, recording the zeroed lines in the bitmap at the given offset.
+   * Lines freed after this by concurrent decrements are not recorded, so
+   * the allocator zeroes them itself.
+   *
+   * @param region The recycle allocation chunk, owned by the caller
+   * @param bitmap The offset of the chunk's bitmap in <code>preZeroedLines</code>
+   */
+  private void zeroRecyclableLines(Address region, int bitmap) {
+    for (int i = 0; i < PREZEROED_BITMAP_WORDS; i++) preZeroedLines[bitmap + i] = 0;
+    for (int b = 0; b < BLOCKS_IN_RECYCLE_ALLOC_CHUNK; b++) {
+      Address block = region.plus(b << LOG_BYTES_IN_BLOCK);
+      short markState = RCImmixBlock.getBlockMarkState(block);
+      if (markState <= 0 || markState > reusableMarkStateThreshold) continue;
+      int line = getNextAvailableLine(block, 0);
+      while (line < LINES_IN_BLOCK) {
+        int endLine = getNextUnavailableLine(block, line);
+        VM.memory.zero(false, block.plus(line << LOG_BYTES_IN_LINE), Extent.fromIntZeroExtend((endLine - line) << LOG_BYTES_IN_LINE));
+        for (int l = line; l < endLine; l++) {
+          int bit = (b << LOG_LINES_IN_BLOCK) + l;
+          preZeroedLines[bitmap + (bit >> LOG_BITS_IN_INT)] |= 1 << (bit & (BITS_IN_INT - 1));
+        }
+        line = getNextAvailableLine(block, endLine);
+      }
+    }
+  }
+
+  /**
+   * Take a recycle allocation chunk whose free lines have been zeroed.
+   *
+   * @param zeroedLines Receives the bitmap of the lines that were zeroed
+   * @return The chunk, or zero if the background thread has none ready,
+   * in which case the caller should fall back to {@link #acquireReusableBlocks()}.
+   */
+  public Address acquirePreZeroedBlocks(int[] zeroedLines) {
+    if (preZeroedCount == 0) return Address.zero();
+    Address rtn = Address.zero();
+    zeroingLock.acquire();
+    if (preZeroedCount > 0) {
+      rtn = preZeroedRegions.get(preZeroedHead);
+      int bitmap = preZeroedHead * PREZEROED_BITMAP_WORDS;
+      for (int i = 0; i < PREZEROED_BITMAP_WORDS; i++) zeroedLines[i] = preZeroedLines[bitmap + i];
+      preZeroedHead = (preZeroedHead + 1) % PREZEROED_REGIONS;
+      preZeroedCount--;
+    }
+    zeroingLock.release();
+    if (!rtn.isZero()) zeroingContext.trigger();
+    return rtn;
+  }
+
+  /**
+   * @param zeroedLines The bitmap of a chunk from {@link #acquirePreZeroedBlocks(int[])}
+   * @param block A block of that chunk
+   * @param start The first line of a hole
+   * @param end The line after the hole
+   * @return <code>true</code> if every line of the hole has been zeroed
+   */
+  @Inline
+  public static boolean linesPreZeroed(int[] zeroedLines, Address block, int start, int end) {
+    int base = block.toWord().and(RECYCLE_ALLOC_CHUNK_MASK).rshl(LOG_BYTES_IN_LINE).toInt();
+    for (int bit = base + start; bit < base + end; bit++) {
+      if ((zeroedLines[bit >> LOG_BITS_IN_INT] & (1 << (bit & (BITS_IN_INT - 1)))) == 0)
+        return false;
+    }
+    return true;
+  }
+
   /****************************************************************************
    *
    * Locks
@@ -753,6 +1086,87 @@ public final class RCImmixSpace extends Space {
     if (VM.VERIFY_ASSERTIONS && HeaderByte.NEEDS_UNLOGGED_BIT) VM.assertions._assert(HeaderByte.isUnlogged(object));
   }
 
+  /****************************************************************************
+   *
+   * Sweep and copy counts
+   */
+
+  /**
+   * @return The sweep counts of the calling thread.
+   */
+  @Inline
+  int[] sweepCounts() {
+    return sweepCounts[VM.activePlan.isMutator() ? MUTATOR_SLOT : VM.activePlan.collector().parallelWorkerOrdinal()];
+  }
+
+  /**
+   * Count lines of a block that a sweep found free.
+   *
+   * @param counts The sweep counts of the calling thread
+   * @param lines The number of lines
+   */
+  @Inline
+  static void countLinesCleaned(int[] counts, int lines) {
+    counts[LINES_CLEANED] += lines;
+  }
+
+  /**
+   * @return The lines freed by sweeps since the last call to {@link #resetLinesCleaned()}.
+   */
+  public int getLinesCleaned() {
+    int lines = 0;
+    for (int s = 0; s <= MAX_COLLECTORS; s++) lines += sweepCounts[s][LINES_CLEANED];
+    return lines;
+  }
+
+  public void resetLinesCleaned() {
+    for (int s = 0; s <= MAX_COLLECTORS; s++) sweepCounts[s][LINES_CLEANED] = 0;
+  }
+
+  /**
+   * @return The pages sweeps have returned since the last call to {@link #resetPagesReleased()}.
+   */
+  public int getPagesReleased() {
+    int pages = 0;
+    for (int s = 0; s <= MAX_COLLECTORS; s++) pages += sweepCounts[s][PAGES_RELEASED];
+    return pages;
+  }
+
+  public void resetPagesReleased() {
+    for (int s = 0; s <= MAX_COLLECTORS; s++) sweepCounts[s][PAGES_RELEASED] = 0;
+  }
+
+  /**
+   * Count a young object that has survived its first collection, whether
+   * it was copied or stays in place.
+   *
+   * @param object The object, after any copy
+   */
+  @Inline
+  public void countSurvivor(ObjectReference object) {
+    int bytes = VM.objectModel.getCurrentSize(object);
+    survivorBytes[VM.activePlan.collector().parallelWorkerOrdinal()][SurvivalPredictor.sizeClass(bytes)] += bytes;
+  }
+
+  /**
+   * Sum the bytes of young survivors counted by every collector.
+   *
+   * @param bytes The array to hold the bytes of each size class
+   */
+  public void getSurvivorBytes(double[] bytes) {
+    for (int c = 0; c < SurvivalPredictor.SIZE_CLASSES; c++) {
+      long sum = 0;
+      for (int s = 0; s < MAX_COLLECTORS; s++) sum += survivorBytes[s][c];
+      bytes[c] = sum;
+    }
+  }
+
+  public void resetSurvivorBytes() {
+    for (int s = 0; s < MAX_COLLECTORS; s++) {
+      for (int c = 0; c < SurvivalPredictor.SIZE_CLASSES; c++) survivorBytes[s][c] = 0;
+    }
+  }
+
   RCImmixChunkList getChunkMap() { return chunkMap; }
   RCImmixDefrag getDefrag() { return rCImmixDefrag; }
 }
@@ -0,0 +1,63 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.rcimmix;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * Predicts survival from the bytes of young objects that survived,
+ * accounted separately for each object size class.  Survivors are counted
+ * when they take their first reference count, whether they are copied or
+ * stay in place.  Each class contributes the highest share of young bytes
+ * it has needed in the last <code>window</code> collections, and the
+ * prediction is the sum of the contributions.  Unlike the line survival
+ * rate, this does not count lines kept alive by a few small survivors.
+ */
+@Uninterruptible
+public final class SizeClassSurvivalPredictor extends SurvivalPredictor {
+
+  private final double[] history = new double[SIZE_CLASSES * MAX_WINDOW];
+  private int next = 0;
+
+  @Override
+  public void update(double lineSurvivalRate, double[] survivorBytes, double youngBytes) {
+    for (int c = 0; c < SIZE_CLASSES; c++) {
+      history[c * MAX_WINDOW + next] = youngBytes > 0 ? survivorBytes[c] / youngBytes : 0;
+    }
+    next = (next + 1) % window;
+  }
+
+  @Override
+  protected void reset() {
+    for (int i = 0; i < SIZE_CLASSES * MAX_WINDOW; i++) history[i] = 0;
+    next = 0;
+  }
+
+  @Override
+  public double predict() {
+    double prediction = 0;
+    for (int c = 0; c < SIZE_CLASSES; c++) {
+      double max = 0;
+      for (int i = 0; i < window; i++) {
+        if (history[c * MAX_WINDOW + i] > max) max = history[c * MAX_WINDOW + i];
+      }
+      prediction += max;
+    }
+    return prediction > 1.0 ? 1.0 : prediction;
+  }
+
+  @Override
+  public String getName() {
+    return "size-class";
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.rcimmix;
+
+import static org.mmtk.policy.rcimmix.RCImmixConstants.BYTES_IN_LINE;
+
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.*;
+
+/**
+ * Predicts what fraction of the lines mutators fill between two
+ * collections will still be live at the second one, and so sizes the
+ * copy reserve for survivor copying.<p>
+ *
+ * Predictors are fed once per collection that does not collect cycles
+ * (a cycle collection reclaims more than reference counting alone, so
+ * its survival rate says nothing about the next collection).  They are
+ * all created at build time; the <code>Survival Predictor</code> option
+ * selects one at boot.
+ */
+@Uninterruptible
+public abstract class SurvivalPredictor {
+
+  /** The number of object size classes survivors are accounted in */
+  public static final int SIZE_CLASSES = 3;
+  /** The longest history a predictor may be asked to keep */
+  public static final int MAX_WINDOW = 32;
+
+  /** The number of collections of history to consider */
+  protected int window = 4;
+
+  /**
+   * @param bytes The size of an object
+   * @return The size class of the object: sub-line, line-sized or multi-line.
+   */
+  @Inline
+  public static int sizeClass(int bytes) {
+    if (bytes > BYTES_IN_LINE) return 2;
+    return bytes > (BYTES_IN_LINE >> 2) ? 1 : 0;
+  }
+
+  /**
+   * Set the number of collections of history to consider.  The history
+   * gathered so far is discarded.
+   *
+   * @param window The window length, at most {@link #MAX_WINDOW}
+   */
+  public void setWindow(int window) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(window >= 1 && window <= MAX_WINDOW);
+    this.window = window;
+    reset();
+  }
+
+  /**
+   * Discard the history of collections.
+   */
+  protected abstract void reset();
+
+  /**
+   * Record the outcome of a collection.
+   *
+   * @param lineSurvivalRate The fraction of newly filled lines that survived
+   * @param survivorBytes The bytes of young survivors, by size class
+   * @param youngBytes The bytes in the lines filled since the last collection
+   */
+  public abstract void update(double lineSurvivalRate, double[] survivorBytes, double youngBytes);
+
+  /**
+   * @return The predicted fraction of newly filled lines that will survive
+   * the next collection.
+   */
+  public abstract double predict();
+
+  /**
+   * @return The name of the predictor, for verbose output.
+   */
+  public abstract String getName();
+}
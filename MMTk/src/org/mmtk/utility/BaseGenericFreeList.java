@@ -201,6 +201,20 @@ import org.vmmagic.pragma.*;
     return freed;
   }
 
+  /**
+   * Iterate over the lumps on the free list: return the first unit of
+   * the lump after the given one.
+   *
+   * @param unit The first unit of a free lump, or <code>FAILURE</code>
+   * to start at the beginning of the free list
+   * @return The first unit of the next free lump, or <code>FAILURE</code>
+   * if there are no more
+   */
+  public final int nextFree(int unit) {
+    int next = getNext(unit == FAILURE ? head : unit);
+    return (next == head) ? FAILURE : next;
+  }
+
   /**
    * Return the size of the specified lump of units
    *
@@ -84,10 +84,16 @@ import org.vmmagic.unboxed.*;
   private static Offset HEADER_SIZE = Offset.fromIntSignExtend(2 * BYTES_IN_ADDRESS);
 
   private static final Word nodeMask;
+  private static final int logNodeAlignment;
   static {
     Word mask = Word.one();
-    while (mask.LE(HEADER_SIZE.plus(MAX_BYTES_PADDING).toWord())) mask = mask.lsh(1);
+    int log = 0;
+    while (mask.LE(HEADER_SIZE.plus(MAX_BYTES_PADDING).toWord())) {
+      mask = mask.lsh(1);
+      log++;
+    }
     nodeMask = mask.minus(Word.one()).not();
+    logNodeAlignment = log;
   }
 
   @Inline
@@ -95,6 +101,15 @@ import org.vmmagic.unboxed.*;
     return HEADER_SIZE.toInt();
   }
 
+  /**
+   * @return The log of the alignment (in bytes) that nodes need for
+   * {@link #midPayloadToNode(Address)} to find them
+   */
+  @Inline
+  public static int logNodeAlignment() {
+    return logNodeAlignment;
+  }
+
   public boolean isNode(Address node) {
     return node.toWord().rshl(logGranularity).lsh(logGranularity).EQ(node.toWord());
   }
@@ -124,8 +139,19 @@ import org.vmmagic.unboxed.*;
 
   @Inline
   public void remove(Address node) {
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isNode(node));
     if (lock != null) lock.acquire();
+    removeLocked(node);
+    if (lock != null) lock.release();
+  }
+
+  /**
+   * Remove a node while the caller holds the list's lock (see {@link #lock()}).
+   *
+   * @param node The node to remove
+   */
+  @Inline
+  public void removeLocked(Address node) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(isNode(node));
     Address prev = node.loadAddress(PREV_OFFSET);
     Address next = node.loadAddress(NEXT_OFFSET);
     // Splice the node out of the list
@@ -138,6 +164,22 @@ import org.vmmagic.unboxed.*;
     // Null out node's reference to the list
     node.store(Address.zero(), PREV_OFFSET);
     node.store(Address.zero(), NEXT_OFFSET);
+  }
+
+  /**
+   * Acquire the list's lock (if it is shared), so that the caller can walk
+   * the list and remove nodes from it without racing other threads.
+   */
+  @Inline
+  public void lock() {
+    if (lock != null) lock.acquire();
+  }
+
+  /**
+   * Release the list's lock.
+   */
+  @Inline
+  public void unlock() {
     if (lock != null) lock.release();
   }
 
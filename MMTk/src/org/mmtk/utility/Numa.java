@@ -0,0 +1,97 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility;
+
+import org.mmtk.utility.options.Options;
+
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+
+/**
+ * NUMA topology, as used by MMTk when the NumaAware option is set.<p>
+ *
+ * Collector workers are spread round-robin across the memory nodes and
+ * bound to the processors of their node.  Chunks remember the node of
+ * the thread that first populated them, so that (by the operating
+ * system's first-touch placement) their memory is local to that node,
+ * and free chunks are handed back preferentially to threads on the same
+ * node.  When the option is not set, or the machine has a single node,
+ * everything behaves as node 0.
+ */
+@Uninterruptible
+public final class Numa {
+
+  /** The most nodes tracked (node numbers are kept in bytes) */
+  public static final int MAX_NODES = 64;
+
+  /** The number of nodes in use; one unless NUMA awareness is enabled */
+  private static int nodes = 1;
+
+  /**
+   * Establish the topology.  Called once options are available and
+   * before the collector threads are spawned.
+   */
+  @Interruptible
+  public static void initialize() {
+    if (!Options.numaAware.getValue()) return;
+    int n = VM.collection.getNumaNodes();
+    nodes = (n < 1) ? 1 : (n > MAX_NODES) ? MAX_NODES : n;
+    if (Options.verbose.getValue() > 0) {
+      Log.write("[NUMA: "); Log.write(nodes); Log.writeln(" nodes]");
+    }
+  }
+
+  /** @return {@code true} if allocation and collection are node aware */
+  @Inline
+  public static boolean enabled() {
+    return nodes > 1;
+  }
+
+  /** @return The number of nodes in use */
+  @Inline
+  public static int nodes() {
+    return nodes;
+  }
+
+  /** @return The node of the processor the current thread is running on */
+  @Inline
+  public static int currentNode() {
+    if (!enabled()) return 0;
+    int node = VM.collection.getCurrentNumaNode();
+    return (node < 0 || node >= nodes) ? 0 : node;
+  }
+
+  /**
+   * @param ordinal The ordinal of a worker within its collector group
+   * @return The node the worker is bound to
+   */
+  @Inline
+  public static int nodeOfWorker(int ordinal) {
+    return ordinal % nodes;
+  }
+
+  /**
+   * Bind the current (collector) thread to the node of its ordinal.
+   *
+   * @param ordinal The ordinal of the worker within its collector group
+   */
+  public static void bindWorker(int ordinal) {
+    if (!enabled()) return;
+    int node = nodeOfWorker(ordinal);
+    if (!VM.collection.bindToNumaNode(node)) {
+      Log.write("Warning: could not bind collector "); Log.write(ordinal);
+      Log.write(" to NUMA node "); Log.writeln(node);
+    }
+  }
+}
@@ -86,7 +86,7 @@ import org.vmmagic.unboxed.Word;
   private static final int STEP_SIZE = 1 << (SUPPORT_CARD_SCANNING ? LOG_CARD_BYTES : LOG_DEFAULT_STEP_SIZE);
   protected static final int LOG_BLOCK_SIZE = LOG_BYTES_IN_PAGE + 3;
   protected static final Word BLOCK_MASK = Word.one().lsh(LOG_BLOCK_SIZE).minus(Word.one());
-  private static final int BLOCK_SIZE = (1 << LOG_BLOCK_SIZE);
+  public static final int BLOCK_SIZE = (1 << LOG_BLOCK_SIZE);
 
 
   // Offsets into header
@@ -85,7 +85,7 @@ public abstract class LargeObjectAllocator extends Allocator {
 
   /**
    * Allocate a large object.  Large objects are directly allocted and
-   * freed in page-grained units via the vm resource.  This routine
+   * freed via the space, by default in page-grained units.  This routine
    * returned zeroed memory.
    *
    * @param bytes The required size of this space in bytes.
@@ -98,8 +98,7 @@ public abstract class LargeObjectAllocator extends Allocator {
   protected final Address allocSlowOnce(int bytes, int align, int offset) {
     int header = space.getHeaderSize();
     int maxbytes = getMaximumAlignedSize(bytes + header, align);
-    int pages = (maxbytes + BYTES_IN_PAGE - 1) >> LOG_BYTES_IN_PAGE;
-    Address sp = space.acquire(pages);
+    Address sp = space.acquireCell(maxbytes);
     if (sp.isZero()) return sp;
     Address cell = sp.plus(header);
     return cell;
@@ -51,6 +51,8 @@ public class RCImmixAllocator extends Allocator {
   private Address recyclableBlock;
   private int line;
   private boolean recyclableExhausted;
+  private boolean recyclablePreZeroed;  /* were the holes of the current recycle chunk zeroed in the background? */
+  private final int[] preZeroedLines = new int[RCImmixSpace.PREZEROED_BITMAP_WORDS];
 
   /**
    * Constructor.
@@ -77,6 +79,7 @@ public class RCImmixAllocator extends Allocator {
     recyclableBlock = Address.zero();
     requestForLarge = false;
     recyclableExhausted = false;
+    recyclablePreZeroed = false;
     line = LINES_IN_BLOCK;
     lineUseCount = 0;
   }
@@ -251,7 +254,8 @@ public class RCImmixAllocator extends Allocator {
           Address end = start.plus(bytes);
           VM.assertions._assert(end.LE(limit));
         }
-        VM.memory.zero(false, cursor, limit.diff(cursor).toWord().toExtent());
+        if (!recyclablePreZeroed || !RCImmixSpace.linesPreZeroed(preZeroedLines, recyclableBlock, line, endLine))
+          VM.memory.zero(false, cursor, limit.diff(cursor).toWord().toExtent());
         if (VM.VERIFY_ASSERTIONS && Options.verbose.getValue() >= 9) {
           Log.write("Z["); Log.write(cursor); Log.write("->"); Log.write(limit); Log.writeln("]");
         }
@@ -288,7 +292,9 @@ public class RCImmixAllocator extends Allocator {
     while (!usable) {
       Address next = recyclableBlock.plus(BYTES_IN_BLOCK);
       if (recyclableBlock.isZero() || RCImmixSpace.isRecycleAllocChunkAligned(next)) {
-        recyclableBlock = space.acquireReusableBlocks();
+        recyclableBlock = copy ? Address.zero() : space.acquirePreZeroedBlocks(preZeroedLines);
+        recyclablePreZeroed = !recyclableBlock.isZero();
+        if (!recyclablePreZeroed) recyclableBlock = space.acquireReusableBlocks();
         if (recyclableBlock.isZero()) {
           recyclableExhausted = true;
           if (VM.VERIFY_ASSERTIONS && Options.verbose.getValue() >= 9) {
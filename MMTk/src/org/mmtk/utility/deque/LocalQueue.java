@@ -79,7 +79,26 @@ import org.vmmagic.unboxed.*;
   @Inline
   protected final boolean checkDequeue(int arity) {
     if (bufferOffset(head).isZero()) {
-      return dequeueUnderflow(arity);
+      return dequeueUnderflow(arity, true);
+    } else {
+      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(bufferOffset(head).sGE(Word.fromIntZeroExtend(arity).lsh(LOG_BYTES_IN_ADDRESS).toOffset()));
+      return true;
+    }
+  }
+
+  /**
+   * Check whether there are values in the buffer for a pending dequeue,
+   * as <code>checkDequeue()</code> does, but never wait on the shared
+   * queue for other clients to produce more.
+   *
+   * @param arity The arity of the values stored in this queue: the
+   * buffer must contain enough space for this many words.
+   * @return whether there are values available for a dequeue
+   */
+  @Inline
+  protected final boolean checkDequeueNoWait(int arity) {
+    if (bufferOffset(head).isZero()) {
+      return dequeueUnderflow(arity, false);
     } else {
       if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(bufferOffset(head).sGE(Word.fromIntZeroExtend(arity).lsh(LOG_BYTES_IN_ADDRESS).toOffset()));
       return true;
@@ -114,10 +133,7 @@ import org.vmmagic.unboxed.*;
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(arity == queue.getArity());
 
     // If the tail has entries...
-    if (tail.NE(tailBufferEnd)) {
-      head = normalizeTail(arity).plus(BYTES_IN_ADDRESS);
-      tail = Deque.TAIL_INITIAL_VALUE;
-      tailBufferEnd = Deque.TAIL_INITIAL_VALUE;
+    if (consumeTail(arity)) {
       // Return that we acquired more entries
       return false;
     }
@@ -139,11 +155,12 @@ import org.vmmagic.unboxed.*;
    * if entries cannot be acquired.
    *
    * @param arity The arity of this buffer (used for sanity test only).
+   * @param wait If false, consume the tail but never wait on the shared queue.
    * @return True if there the head buffer has been successfully
    * replenished.
    */
   @NoInline
-  private boolean dequeueUnderflow(int arity) {
+  private boolean dequeueUnderflow(int arity, boolean wait) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(arity == queue.getArity());
     do {
       if (head.NE(Deque.HEAD_INITIAL_VALUE))
@@ -152,8 +169,24 @@ import org.vmmagic.unboxed.*;
     } while (head.NE(Deque.HEAD_INITIAL_VALUE) && bufferOffset(head).isZero());
 
     if (head.EQ(Deque.HEAD_INITIAL_VALUE))
-      return !headStarved(arity);
+      return wait ? !headStarved(arity) : consumeTail(arity);
 
     return true;
   }
+
+  /**
+   * If the tail has entries, make it the head buffer.
+   *
+   * @param arity The arity of this buffer
+   * @return True if the tail had entries
+   */
+  private boolean consumeTail(int arity) {
+    if (tail.NE(tailBufferEnd)) {
+      head = normalizeTail(arity).plus(BYTES_IN_ADDRESS);
+      tail = Deque.TAIL_INITIAL_VALUE;
+      tailBufferEnd = Deque.TAIL_INITIAL_VALUE;
+      return true;
+    }
+    return false;
+  }
 }
@@ -48,6 +48,19 @@ public abstract class ObjectReferenceBuffer extends TransitiveClosure {
    * @param queue The shared deque that is used.
    */
   public ObjectReferenceBuffer(String name, SharedDeque queue) {
+    this(name, queue, -1);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param name The name of the underlying deque.
+   * @param queue The shared deque that is used.
+   * @param specializedScan The specialized scan used to process children,
+   * or -1 to use the generic scan.
+   */
+  public ObjectReferenceBuffer(String name, SharedDeque queue, int specializedScan) {
+    super(specializedScan);
     values = new ObjectReferenceDeque(name, queue);
   }
 
@@ -72,7 +85,11 @@ public abstract class ObjectReferenceBuffer extends TransitiveClosure {
    */
   @Inline
   public final void processChildren(ObjectReference object) {
-    VM.scanning.scanObject(this, object);
+    if (specializedScan >= 0) {
+      VM.scanning.specializedScanObject(specializedScan, this, object);
+    } else {
+      VM.scanning.scanObject(this, object);
+    }
   }
 
   /**
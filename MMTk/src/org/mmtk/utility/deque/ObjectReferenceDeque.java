@@ -106,4 +106,16 @@ import org.vmmagic.pragma.*;
     return checkDequeue(1);
   }
 
+  /**
+   * Unlike {@link #isNonEmpty()}, never wait for other threads sharing
+   * the queue to finish their work.
+   *
+   * @return True if an object can be popped from this queue, or taken
+   * from the shared queue, now.
+   */
+  @Inline
+  public final boolean isNonEmptyNoWait() {
+    return checkDequeueNoWait(1);
+  }
+
 }
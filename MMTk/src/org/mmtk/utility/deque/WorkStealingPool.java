@@ -0,0 +1,206 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.deque;
+
+import org.mmtk.policy.RawPageSpace;
+import org.mmtk.utility.Numa;
+import org.mmtk.vm.Lock;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.Interruptible;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * A set of shared deques, one per worker (a <i>stripe</i>), supporting
+ * work stealing.<p>
+ *
+ * Each worker binds its local deque to its own stripe, so the buffers it
+ * overflows and later consumes are taken from the head of a deque that
+ * nobody else normally touches.  A worker that runs dry steals a whole
+ * buffer from the tail of another worker's stripe.  Work produced outside
+ * the workers (for example by mutators) continues to arrive through an
+ * ordinary injection {@link SharedDeque}, which workers drain alongside
+ * their stripes.<p>
+ *
+ * Every worker drains its own stripe before it leaves, so termination
+ * detection only affects load balance, never correctness: idle workers
+ * keep looking for work to steal while any worker is still active.<p>
+ *
+ * When NUMA awareness is enabled, each stripe remembers the node its
+ * worker is bound to, and thieves look for work on their own node before
+ * stealing across nodes.
+ */
+@Uninterruptible
+public class WorkStealingPool {
+
+  /** The maximum number of stripes (one per collector context) */
+  public static final int MAX_STRIPES = 128;
+
+  private final String name;
+  private final RawPageSpace rps;
+  private final int arity;
+  private final SharedDeque[] stripes = new SharedDeque[MAX_STRIPES];
+  /** The NUMA node each stripe's worker is bound to */
+  private final int[] stripeNodes = new int[MAX_STRIPES];
+  private int numStripes = 0;
+
+  /** Protects <code>activeWorkers</code> */
+  private final Lock lock;
+  /** The number of workers currently processing (rather than looking for) work */
+  private volatile int activeWorkers = 0;
+
+  /**
+   * @param name the pool's human-readable name
+   * @param rps the space to get pages from
+   * @param arity the arity (number of words per entry) of the deques
+   */
+  public WorkStealingPool(String name, RawPageSpace rps, int arity) {
+    this.name = name;
+    this.rps = rps;
+    this.arity = arity;
+    lock = VM.newLock("WorkStealingPool");
+  }
+
+  /**
+   * Create the stripe for a new worker.  Called once per collector
+   * context as it is constructed.
+   *
+   * @return The shared deque the worker should bind its local deque to
+   */
+  @Interruptible
+  public SharedDeque newStripe() {
+    if (numStripes == MAX_STRIPES) {
+      VM.assertions.fail("WorkStealingPool: too many stripes");
+    }
+    SharedDeque stripe = new SharedDeque(name, rps, arity);
+    stripe.prepareNonBlocking();
+    stripes[numStripes++] = stripe;
+    return stripe;
+  }
+
+  /**
+   * A worker is about to start processing work from this pool.
+   */
+  public void join() {
+    lock.acquire();
+    activeWorkers++;
+    lock.release();
+  }
+
+  /**
+   * A worker stops processing before the work is complete, having
+   * flushed everything it holds to its stripe, where other workers (or
+   * a later round of processing) will find it.
+   */
+  public void leave() {
+    lock.acquire();
+    activeWorkers--;
+    lock.release();
+  }
+
+  /**
+   * A worker has exhausted its own stripe and the injection deque.  Wait
+   * until either more work becomes available to it or every worker is
+   * idle with no work left anywhere.
+   *
+   * @param stripe The worker's own stripe, into which stolen work is moved
+   * @param injection The deque through which external work arrives,
+   * prepared non-blocking: a worker blocked in it could not steal
+   * @return <code>true</code> if the worker should look for work again,
+   * <code>false</code> if processing is complete.
+   */
+  public boolean awaitWork(SharedDeque stripe, SharedDeque injection) {
+    if (Numa.enabled()) {
+      /* Workers are bound to their node, so there is no need to ask the OS */
+      stripeNodes[indexOf(stripe)] = Numa.nodeOfWorker(VM.activePlan.collector().parallelWorkerOrdinal());
+    }
+    lock.acquire();
+    activeWorkers--;
+    lock.release();
+    while (true) {
+      if (injection.enqueuedPages() > 0 || steal(stripe)) {
+        join();
+        return true;
+      }
+      if (activeWorkers == 0) {
+        /* Re-check: a worker may have overflowed a buffer just before going idle */
+        if (injection.enqueuedPages() > 0 || steal(stripe)) {
+          join();
+          return true;
+        }
+        return false;
+      }
+      VM.memory.isync();
+    }
+  }
+
+  /**
+   * Move one buffer from the tail of another stripe to the head of the
+   * thief's stripe.
+   *
+   * @param thief The stripe of the worker looking for work
+   * @return <code>true</code> if a buffer was stolen
+   */
+  private boolean steal(SharedDeque thief) {
+    if (Numa.enabled() && steal(thief, stripeNodes[indexOf(thief)])) {
+      return true;
+    }
+    return steal(thief, -1);
+  }
+
+  /**
+   * Move one buffer from the tail of another stripe, optionally only
+   * considering stripes on a given node.
+   *
+   * @param thief The stripe of the worker looking for work
+   * @param node The node to steal from, or -1 for any node
+   * @return <code>true</code> if a buffer was stolen
+   */
+  private boolean steal(SharedDeque thief, int node) {
+    for (int i = 0; i < numStripes; i++) {
+      SharedDeque victim = stripes[i];
+      if (node >= 0 && stripeNodes[i] != node) continue;
+      if (victim != thief && victim.enqueuedPages() > 0) {
+        Address buf = victim.dequeue(arity, true);
+        if (!buf.isZero()) {
+          thief.enqueue(buf, arity, false);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param stripe A stripe of this pool
+   * @return The index of the stripe
+   */
+  private int indexOf(SharedDeque stripe) {
+    for (int i = 0; i < numStripes; i++) {
+      if (stripes[i] == stripe) return i;
+    }
+    VM.assertions.fail("WorkStealingPool: unknown stripe");
+    return -1;
+  }
+
+  /**
+   * @return The total number of pages held in all stripes
+   */
+  public int enqueuedPages() {
+    int pages = 0;
+    for (int i = 0; i < numStripes; i++) {
+      pages += stripes[i].enqueuedPages();
+    }
+    return pages;
+  }
+}
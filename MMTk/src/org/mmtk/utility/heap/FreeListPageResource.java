@@ -145,6 +145,57 @@ public final class FreeListPageResource extends PageResource {
   protected Address allocPages(int reservedPages, int requiredPages, boolean zeroed) {
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(metaDataPagesPerRegion == 0 || requiredPages <= PAGES_IN_CHUNK - metaDataPagesPerRegion);
     lock();
+    Address rtn = allocRun(requiredPages);
+    if (rtn.isZero()) {
+      unlock();
+      return rtn;
+    }
+    // The meta-data portion of reserved Pages was committed above.
+    commitPages(reservedPages, requiredPages);
+    unlock();
+    prepareRun(rtn, requiredPages, zeroed);
+    return rtn;
+  }
+
+  /**
+   * Allocate separately releasable runs for a page cache, taking the
+   * lock only once.
+   *
+   * @param reservedPages The number of pages reserved for all the runs
+   * @param pages The number of pages in each run
+   * @param runs The number of runs requested
+   * @param zeroed If true allocated pages are zeroed.
+   * @param cache The cache to add the runs to
+   * @return The number of runs allocated, zero on failure.
+   */
+  @Override
+  int allocPageRuns(int reservedPages, int pages, int runs, boolean zeroed, PageCache cache) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(metaDataPagesPerRegion == 0 || pages <= PAGES_IN_CHUNK - metaDataPagesPerRegion);
+    lock();
+    int allocated = 0;
+    while (allocated < runs) {
+      Address rtn = allocRun(pages);
+      if (rtn.isZero()) break;
+      cache.add(rtn);
+      allocated++;
+    }
+    if (allocated > 0) commitPages(reservedPages, allocated * pages);
+    unlock();
+    for (int i = 0; i < allocated; i++) {
+      prepareRun(cache.getRun(i), pages, zeroed);
+    }
+    return allocated;
+  }
+
+  /**
+   * Find a run of pages, extending the space if necessary.  Called with
+   * the lock held.
+   *
+   * @param requiredPages The number of pages required
+   * @return The start of the run, zero on failure
+   */
+  @Inline
+  private Address allocRun(int requiredPages) {
     boolean newChunk = false;
     int pageOffset = freeList.alloc(requiredPages);
     if (pageOffset == GenericFreeList.FAILURE && !contiguous) {
@@ -152,32 +203,44 @@ public final class FreeListPageResource extends PageResource {
       newChunk = true;
     }
     if (pageOffset == GenericFreeList.FAILURE) {
-      unlock();
       return Address.zero();
-    } else {
-      pagesCurrentlyOnFreeList -= requiredPages;
-      if (pageOffset > highWaterMark) {
-        if (highWaterMark == 0 || (pageOffset ^ highWaterMark) > EmbeddedMetaData.PAGES_IN_REGION) {
-          int regions = 1 + ((pageOffset - highWaterMark) >> EmbeddedMetaData.LOG_PAGES_IN_REGION);
-          int metapages = regions * metaDataPagesPerRegion;
-          reserved += metapages;
-          committed += metapages;
-          newChunk = true;
-        }
-        highWaterMark = pageOffset;
+    }
+    pagesCurrentlyOnFreeList -= requiredPages;
+    if (pageOffset > highWaterMark) {
+      if (highWaterMark == 0 || (pageOffset ^ highWaterMark) > EmbeddedMetaData.PAGES_IN_REGION) {
+        int regions = 1 + ((pageOffset - highWaterMark) >> EmbeddedMetaData.LOG_PAGES_IN_REGION);
+        int metapages = regions * metaDataPagesPerRegion;
+        reserved += metapages;
+        committed += metapages;
+        newChunk = true;
       }
-      Address rtn = start.plus(Conversions.pagesToBytes(pageOffset));
-      Extent bytes = Conversions.pagesToBytes(requiredPages);
-      // The meta-data portion of reserved Pages was committed above.
-      commitPages(reservedPages, requiredPages);
-      space.growSpace(rtn, bytes, newChunk);
-      unlock();
-      Mmapper.ensureMapped(rtn, requiredPages);
-      if (zeroed)
-        VM.memory.zero(zeroNT, rtn, bytes);
-      VM.events.tracePageAcquired(space, rtn, requiredPages);
-      return rtn;
+      highWaterMark = pageOffset;
     }
+    Address rtn = start.plus(Conversions.pagesToBytes(pageOffset));
+    space.growSpace(rtn, Conversions.pagesToBytes(requiredPages), newChunk);
+    return rtn;
+  }
+
+  /**
+   * Map and (optionally) zero a newly allocated run.  Called without the
+   * lock held.
+   *
+   * @param rtn The start of the run
+   * @param pages The number of pages in the run
+   * @param zeroed If true the pages are zeroed.
+   */
+  @Inline
+  private void prepareRun(Address rtn, int pages, boolean zeroed) {
+    Mmapper.ensureMapped(rtn, pages, space.usesHugePages());
+    if (zeroed)
+      VM.memory.zero(zeroNT, rtn, Conversions.pagesToBytes(pages));
+    VM.events.tracePageAcquired(space, rtn, pages);
+  }
+
+  @Override
+  boolean releaseCachedRun(Address first) {
+    releasePages(first);
+    return true;
   }
 
   /**
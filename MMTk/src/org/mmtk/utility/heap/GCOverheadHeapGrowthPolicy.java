@@ -0,0 +1,59 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import org.mmtk.utility.options.Options;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * A throughput controller: grows the heap while the GC load is above
+ * the <code>GC Overhead Target</code>, and shrinks it while the load is
+ * below, in proportion to the relative error.<p>
+ *
+ * The cost of collection per unit of mutator time falls roughly as the
+ * free space in the heap grows, so scaling the heap by the relative
+ * error converges on the target without a table.  Steps are bounded in
+ * both directions, and the heap always keeps some headroom over the
+ * reserved memory.
+ */
+@Uninterruptible
+public class GCOverheadHeapGrowthPolicy extends HeapGrowthPolicy {
+
+  /** How strongly the heap reacts to a difference between the GC load and the target */
+  private static final double GAIN = 0.5;
+  /** The most the heap grows at one decision */
+  private static final double MAX_GROWTH = 2.0;
+  /** The most the heap shrinks at one decision */
+  private static final double MAX_SHRINK = 0.8;
+  /** The heap is not shrunk below this multiple of the reserved memory */
+  private static final double MIN_HEADROOM = 1.25;
+
+  @Override
+  public double computeHeapChangeRatio(double liveRatio, double gcLoad, Extent currentHeapSize) {
+    double target = Options.gcOverheadTarget.getValue() / 100.0;
+    double factor = 1 + GAIN * (gcLoad - target) / target;
+    if (factor > MAX_GROWTH) factor = MAX_GROWTH;
+    if (factor < MAX_SHRINK) factor = MAX_SHRINK;
+    if (factor < 1 && factor < liveRatio * MIN_HEADROOM) {
+      factor = liveRatio * MIN_HEADROOM < 1 ? liveRatio * MIN_HEADROOM : 1;
+    }
+    return factor;
+  }
+
+  @Override
+  public String getName() {
+    return "gc-overhead";
+  }
+}
@@ -15,6 +15,7 @@ package org.mmtk.utility.heap;
 import static org.mmtk.utility.Constants.*;
 
 import org.mmtk.plan.Plan;
+import org.mmtk.policy.Space;
 import org.mmtk.utility.*;
 import org.mmtk.utility.options.Options;
 
@@ -45,48 +46,22 @@ import org.vmmagic.unboxed.*;
   private static Extent currentHeapSize;
 
 
-  private static final double[][] generationalFunction =    {{0.00, 0.00, 0.10, 0.30, 0.60, 0.80, 1.00},
-      { 0.00, 0.90, 0.90, 0.95, 1.00, 1.00, 1.00 },
-      { 0.01, 0.90, 0.90, 0.95, 1.00, 1.00, 1.00 },
-      { 0.02, 0.95, 0.95, 1.00, 1.00, 1.00, 1.00 },
-      { 0.07, 1.00, 1.00, 1.10, 1.15, 1.20, 1.20 },
-      { 0.15, 1.00, 1.00, 1.20, 1.25, 1.35, 1.30 },
-      { 0.40, 1.00, 1.00, 1.25, 1.30, 1.50, 1.50 },
-      { 1.00, 1.00, 1.00, 1.25, 1.30, 1.50, 1.50 } };
+  /** The available heap growth policies */
+  private static final TableHeapGrowthPolicy tablePolicy = new TableHeapGrowthPolicy();
+  private static final GCOverheadHeapGrowthPolicy gcOverheadPolicy = new GCOverheadHeapGrowthPolicy();
+  private static final MemoryPressureHeapGrowthPolicy memoryPressurePolicy = new MemoryPressureHeapGrowthPolicy();
 
-  private static final double[][] nongenerationalFunction = {{0.00, 0.00, 0.10, 0.30, 0.60, 0.80, 1.00},
-      { 0.00, 0.90, 0.90, 0.95, 1.00, 1.00, 1.00 },
-      { 0.02, 0.90, 0.90, 0.95, 1.00, 1.00, 1.00 },
-      { 0.05, 0.95, 0.95, 1.00, 1.00, 1.00, 1.00 },
-      { 0.15, 1.00, 1.00, 1.10, 1.15, 1.20, 1.20 },
-      { 0.30, 1.00, 1.00, 1.20, 1.25, 1.35, 1.30 },
-      { 0.50, 1.00, 1.00, 1.25, 1.30, 1.50, 1.50 },
-      { 1.00, 1.00, 1.00, 1.25, 1.30, 1.50, 1.50 } };
-
-  /**
-   * An encoding of the function used to manage heap size.
-   * The xaxis represents the live ratio at the end of a major collection.
-   * The yaxis represents the GC load (GC time/total time).
-   * The interior of the matrix represents a ratio to shrink or grow
-   * the heap for a given pair of live ratio and GC load.
-   * The constraints on the matrix are:
-   * <ul>
-   * <li> function[0][0] is ignored.
-   * <li> All numbers in the first row must monotonically increase and
-   *      must be in the range from 0 to 1 inclusive.</li>
-   * <li> All numbers in the first column must monotonically increase
-   *      and must be in the range from 0 to 1 inclusive.</li>
-   * <li> There must be 0 and 1 values specified in both dimensions.
-   * <li> For all interior points in the matrix, the value must be
-   *      greater than the liveRatio for that column.</li>
-   * </ul>
-   */
-  private static final double[][] function =
-    VM.activePlan.constraints().generational() ? generationalFunction : nongenerationalFunction;
+  /** The heap growth policy in use */
+  private static HeapGrowthPolicy policy = tablePolicy;
 
   private static long endLastMajorGC;
   private static double accumulatedGCTime;
 
+  /**
+   * Did the last heap size decision grow (1), keep (0) or shrink (-1) the heap?
+   */
+  private static int lastHeapChange = 0;
+
   /**
    * Initialize heap size parameters and the mechanisms
    * used to adaptively change heap size.
@@ -101,10 +76,29 @@ import org.vmmagic.unboxed.*;
       maxHeapSize = initialHeapSize;
     currentHeapSize = initialHeapSize;
     VM.events.heapSizeChanged(currentHeapSize);
-    if (VM.VERIFY_ASSERTIONS) sanityCheck();
+    if (VM.VERIFY_ASSERTIONS) tablePolicy.sanityCheck();
     endLastMajorGC = VM.statistics.nanoTime();
   }
 
+  /**
+   * Select the heap growth policy, once options are available.
+   */
+  @Interruptible
+  public static void selectPolicy() {
+    int kind = Options.heapGrowthPolicy.getValue();
+    if (kind == Options.heapGrowthPolicy.GC_OVERHEAD) {
+      policy = gcOverheadPolicy;
+    } else if (kind == Options.heapGrowthPolicy.MEMORY_PRESSURE) {
+      memoryPressurePolicy.setLimitFile(Options.cgroupMemoryLimitFile.getValue());
+      policy = memoryPressurePolicy;
+    } else {
+      policy = tablePolicy;
+    }
+    if (Options.verbose.getValue() > 0 && Options.variableSizeHeap.getValue()) {
+      Log.write("[Heap growth policy: "); Log.write(policy.getName()); Log.writeln("]");
+    }
+  }
+
   /**
    * @return the current heap size in bytes
    */
@@ -175,6 +169,7 @@ import org.vmmagic.unboxed.*;
     if (newSize.LT(reserved)) newSize = reserved;
     newSize = newSize.plus(BYTES_IN_MBYTE - 1).toWord().rshl(LOG_BYTES_IN_MBYTE).lsh(LOG_BYTES_IN_MBYTE).toExtent(); // round to next megabyte
     if (newSize.GT(maxHeapSize)) newSize = maxHeapSize;
+    lastHeapChange = newSize.GT(oldSize) ? 1 : newSize.LT(oldSize) ? -1 : 0;
     if (newSize.NE(oldSize) && newSize.GT(Extent.zero())) {
       // Heap size is going to change
       currentHeapSize = newSize;
@@ -190,6 +185,32 @@ import org.vmmagic.unboxed.*;
     }
   }
 
+  /**
+   * Return the memory of idle free chunks to the operating system, keeping
+   * at least the minimum retained heap resident.  Nothing is returned
+   * while the heap is growing, since growth would fault it straight back
+   * in; straight after the heap has been shrunk, idle chunks are returned
+   * at once rather than after the uncommit delay.
+   */
+  public static void releaseIdleMemory() {
+    int delay = Options.uncommitDelay.getValue();
+    if (delay < 0 || lastHeapChange > 0) return;
+    if (lastHeapChange < 0) {
+      // Only the first release after a shrink ignores the delay
+      delay = 0;
+      lastHeapChange = 0;
+    }
+    int shortfall = Options.minRetainedHeap.getPages() - VM.activePlan.global().getPagesReserved();
+    int keepChunks = shortfall > 0 ? (shortfall + Space.PAGES_IN_CHUNK - 1) / Space.PAGES_IN_CHUNK : 0;
+    int candidates = Map.getResidentFreeChunks() - keepChunks;
+    if (candidates <= 0) return;
+    int released = Map.decommitIdleChunks(delay, candidates);
+    if (released > 0 && Options.verbose.getValue() >= 2) {
+      Log.write("GC Message: Returned "); Log.writeDec(Word.fromIntZeroExtend(released).lsh(Space.LOG_BYTES_IN_CHUNK - LOG_BYTES_IN_KBYTE));
+      Log.writeln("KB to the operating system");
+    }
+  }
+
   private static double computeHeapChangeRatio(double liveRatio) {
     // (1) compute GC load.
     long totalNanos = VM.statistics.nanoTime() - endLastMajorGC;
@@ -224,91 +245,11 @@ import org.vmmagic.unboxed.*;
       Log.write("GCLoad     "); Log.writeln(gcLoad);
     }
 
-    // (2) Find the 4 points surrounding gcLoad and liveRatio
-    int liveRatioUnder = 1;
-    int liveRatioAbove = function[0].length - 1;
-    int gcLoadUnder = 1;
-    int gcLoadAbove = function.length - 1;
-    if (liveRatio >= 1.0) {
-      // liveRatio has maxed out
-      liveRatioUnder = liveRatioAbove;
-    } else {
-      while (true) {
-        if (function[0][liveRatioUnder + 1] > liveRatio) break;
-        liveRatioUnder++;
-      }
-      while (true) {
-        if (function[0][liveRatioAbove - 1] <= liveRatio) break;
-        liveRatioAbove--;
-      }
-    }
-    if (gcLoad >= 1.0) {
-      // gcRatio has maxed out
-      gcLoadUnder = gcLoadAbove;
-    } else {
-      while (true) {
-        if (function[gcLoadUnder + 1][0] > gcLoad) break;
-        gcLoadUnder++;
-      }
-      while (true) {
-        if (function[gcLoadAbove - 1][0] <= gcLoad) break;
-        gcLoadAbove--;
-      }
-    }
-
-    // (3) Compute the heap change ratio
-    double factor = function[gcLoadUnder][liveRatioUnder];
-    if (liveRatioUnder != liveRatioAbove) {
-      // interpolate for liveRatio values in between two specified values in function table
-      double liveRatioFraction =
-        (liveRatio - function[0][liveRatioUnder]) /
-        (function[0][liveRatioAbove] - function[0][liveRatioUnder]);
-      double liveRatioDelta =
-        function[gcLoadUnder][liveRatioAbove] - function[gcLoadUnder][liveRatioUnder];
-      factor += (liveRatioFraction * liveRatioDelta);
-    }
-    if (gcLoadUnder != gcLoadAbove) {
-      // interpolate for gcLoad values in between two specified values in function table
-      double gcLoadFraction =
-        (gcLoad - function[gcLoadUnder][0]) /
-        (function[gcLoadAbove][0] - function[gcLoadUnder][0]);
-      double gcLoadDelta =
-        function[gcLoadAbove][liveRatioUnder] - function[gcLoadUnder][liveRatioUnder];
-      factor += (gcLoadFraction * gcLoadDelta);
-    }
+    double factor = policy.computeHeapChangeRatio(liveRatio, gcLoad, currentHeapSize);
     if (Options.verbose.getValue() > 2) {
       Log.write("Heap adjustment factor is ");
       Log.writeln(factor);
     }
     return factor;
   }
-
-  /**
-   * Check that function satisfies the invariants
-   */
-  private static void sanityCheck() {
-    // Check live ratio
-    double[] liveRatio = function[0];
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(liveRatio[1] == 0);
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(liveRatio[liveRatio.length - 1] == 1);
-    for (int i = 2; i < liveRatio.length; i++) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(liveRatio[i - 1] < liveRatio[i]);
-      for (int j = 1; j < function.length; j++) {
-        if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(function[j][i] >= 1 || function[j][i] > liveRatio[i]);
-      }
-    }
-
-    // Check GC load
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(function[1][0] == 0);
-    int len = function.length;
-    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(function[len - 1][0] == 1);
-    for (int i = 2; i < len; i++) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(function[i - 1][0] < function[i][0]);
-    }
-
-    // Check that we have a rectangular matrix
-    for (int i = 1; i < function.length; i++) {
-      if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(function[i - 1].length == function[i].length);
-    }
-  }
 }
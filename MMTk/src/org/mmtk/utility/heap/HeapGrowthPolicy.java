@@ -0,0 +1,43 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * Decides how much to grow or shrink the heap after a major collection,
+ * on behalf of the {@link HeapGrowthManager}.<p>
+ *
+ * Policies are all created at build time; the <code>Heap Growth
+ * Policy</code> option selects one at boot.
+ */
+@Uninterruptible
+public abstract class HeapGrowthPolicy {
+
+  /**
+   * Compute the ratio by which to scale the heap.
+   *
+   * @param liveRatio The fraction of the current heap that is reserved
+   * @param gcLoad The fraction of time spent collecting since the last
+   * heap size decision
+   * @param currentHeapSize The current heap size, in bytes
+   * @return The ratio of the new heap size to the current one
+   */
+  public abstract double computeHeapChangeRatio(double liveRatio, double gcLoad, Extent currentHeapSize);
+
+  /**
+   * @return The name of the policy, for verbose output.
+   */
+  public abstract String getName();
+}
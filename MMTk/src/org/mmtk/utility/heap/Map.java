@@ -18,6 +18,7 @@ import static org.mmtk.utility.Constants.BYTES_IN_ADDRESS;
 import org.mmtk.policy.Space;
 import org.mmtk.utility.GenericFreeList;
 import org.mmtk.utility.Log;
+import org.mmtk.utility.Numa;
 import org.mmtk.utility.options.Options;
 import org.mmtk.vm.Lock;
 import org.mmtk.vm.VM;
@@ -56,6 +57,21 @@ public class Map {
   private static final FreeListPageResource[] sharedFLMap;
   private static int totalAvailableDiscontiguousChunks = 0;
 
+  /** The most free chunks whose memory we track for return to the operating system */
+  private static final int MAX_IDLE_CHUNKS = 4096;
+  /** For each free chunk whose memory is still resident, when (in ms) it was freed; zero otherwise */
+  private static final int[] idleSince;
+  /** Free chunks, in the order they were freed (entries for chunks since reused are skipped) */
+  private static final int[] idleChunks;
+  private static int idleHead = 0;
+  private static int idleCount = 0;
+  private static int residentFreeChunks = 0;
+
+  /** The NUMA node whose thread populated each chunk (meaningful while its memory is resident) */
+  private static final byte[] chunkNode;
+  /** How many free regions to search for a chunk on the requesting node */
+  private static final int LOCAL_CHUNK_SEARCH = 64;
+
   private static boolean finalized = false;
 
   private static final Lock lock = VM.newLock("Map lock");
@@ -76,6 +92,9 @@ public class Map {
     regionMap = new GenericFreeList(Space.MAX_CHUNKS);
     globalPageMap = new GenericFreeList(1, 1, Space.MAX_SPACES);
     sharedFLMap = new FreeListPageResource[Space.MAX_SPACES];
+    idleSince = new int[Space.MAX_CHUNKS];
+    idleChunks = new int[MAX_IDLE_CHUNKS];
+    chunkNode = new byte[Space.MAX_CHUNKS];
     if (VM.VERIFY_ASSERTIONS)
         VM.assertions._assert(BITS_IN_ADDRESS == Space.LOG_ADDRESS_SPACE ||
             Space.HEAP_END.diff(MAP_BASE_ADDRESS).toWord().rshl(Space.LOG_ADDRESS_SPACE).isZero());
@@ -124,8 +143,11 @@ public class Map {
    * @return The address of the assigned memory.  If the request fails we return Address.zero().
    */
   public static Address allocateContiguousChunks(int descriptor, Space space, int chunks, Address head) {
+    int node = Numa.currentNode();
     lock.acquire();
-    int chunk = regionMap.alloc(chunks);
+    int chunk = (Numa.enabled() && chunks == 1) ? allocateLocalChunk(node) : -1;
+    if (chunk == -1)
+      chunk = regionMap.alloc(chunks);
     if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(chunk != 0);
     if (chunk == -1) {
       if (Options.verbose.getValue() > 3) {
@@ -141,6 +163,15 @@ public class Map {
       return Address.zero();
     }
     totalAvailableDiscontiguousChunks -= chunks;
+    for (int offset = 0; offset < chunks; offset++) {
+      if (idleSince[chunk + offset] != 0) {
+        idleSince[chunk + offset] = 0;
+        residentFreeChunks--;
+      } else {
+        /* Fresh memory: it will be placed on the node that first touches it */
+        chunkNode[chunk + offset] = (byte) node;
+      }
+    }
     Address rtn = addressForChunkIndex(chunk);
     insert(rtn, Extent.fromIntZeroExtend(chunks << Space.LOG_BYTES_IN_CHUNK), descriptor, space);
     if (head.isZero()) {
@@ -154,6 +185,25 @@ public class Map {
     return rtn;
   }
 
+  /**
+   * Find a free chunk whose memory is still resident on the given node,
+   * and allocate it.  Only the first chunk of each free region is
+   * considered, and only the first few regions, so this is best effort.
+   *
+   * @param node The NUMA node of the requesting thread
+   * @return The index of the allocated chunk, or -1 if none was found
+   */
+  private static int allocateLocalChunk(int node) {
+    if (residentFreeChunks == 0) return -1;
+    int chunk = regionMap.nextFree(GenericFreeList.FAILURE);
+    for (int searched = 0; chunk != GenericFreeList.FAILURE && searched < LOCAL_CHUNK_SEARCH; searched++) {
+      if (idleSince[chunk] != 0 && chunkNode[chunk] == node)
+        return regionMap.alloc(1, chunk);
+      chunk = regionMap.nextFree(chunk);
+    }
+    return -1;
+  }
+
   /**
    * Return the address of the next contiguous region associated with some discontiguous space by following the linked list for that space.
    *
@@ -238,13 +288,64 @@ public class Map {
     if (next != 0) prevLink[next] = prev;
     if (prev != 0) nextLink[prev] = next;
     nextLink[chunk] = prevLink[chunk] = 0;
+    int now = currentMillis();
     for (int offset = 0; offset < chunks; offset++) {
       descriptorMap[chunk + offset] = 0;
       VM.barriers.objectArrayStoreNoGCBarrier(spaceMap, chunk + offset, null);
+      if (idleCount < MAX_IDLE_CHUNKS) {
+        idleChunks[(idleHead + idleCount) % MAX_IDLE_CHUNKS] = chunk + offset;
+        idleCount++;
+        idleSince[chunk + offset] = now;
+        residentFreeChunks++;
+      }
     }
     return chunks;
   }
 
+  /**
+   * Return the memory of chunks that have been free for long enough to
+   * the operating system, oldest first.
+   *
+   * @param delayMillis How long a chunk must have been free
+   * @param maxChunks The most chunks to return
+   * @return The number of chunks whose memory was returned
+   */
+  public static int decommitIdleChunks(int delayMillis, int maxChunks) {
+    lock.acquire();
+    int now = currentMillis();
+    int released = 0;
+    while (idleCount > 0 && released < maxChunks) {
+      int chunk = idleChunks[idleHead];
+      int since = idleSince[chunk];
+      if (since != 0) {
+        if (now - since < delayMillis) break;
+        Mmapper.decommit(addressForChunkIndex(chunk), Space.PAGES_IN_CHUNK);
+        idleSince[chunk] = 0;
+        residentFreeChunks--;
+        released++;
+      }
+      idleHead = (idleHead + 1) % MAX_IDLE_CHUNKS;
+      idleCount--;
+    }
+    lock.release();
+    return released;
+  }
+
+  /**
+   * @return The number of free chunks whose memory may still be resident
+   */
+  public static int getResidentFreeChunks() {
+    return residentFreeChunks;
+  }
+
+  /**
+   * @return The current time in milliseconds, truncated to an int (never zero)
+   */
+  private static int currentMillis() {
+    int now = (int) (VM.statistics.nanoTime() / 1000000);
+    return now == 0 ? 1 : now;
+  }
+
   /**
    * Finalize the space map, establishing which virtual memory
    * is nailed down, and then placing the rest into a map to
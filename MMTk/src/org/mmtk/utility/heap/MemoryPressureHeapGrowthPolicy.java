@@ -0,0 +1,69 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import org.mmtk.utility.Log;
+import org.mmtk.utility.options.Options;
+
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * The GC overhead controller, capped by the memory limit of the cgroup
+ * (container) the VM runs in.  The limit is read from a file at each
+ * decision, so it follows the container being resized; if the file
+ * cannot be read, or the cgroup is unlimited, the heap is sized by GC
+ * overhead alone.
+ */
+@Uninterruptible
+public final class MemoryPressureHeapGrowthPolicy extends GCOverheadHeapGrowthPolicy {
+
+  /** The largest fraction of the memory limit the heap may take, leaving the rest for the process */
+  private static final double MAX_LIMIT_FRACTION = 0.75;
+
+  /** The file holding the memory limit, NUL-terminated */
+  private byte[] limitFile;
+
+  /**
+   * Set the file from which the memory limit is read.
+   *
+   * @param file The name of the file
+   */
+  @Interruptible
+  public void setLimitFile(String file) {
+    limitFile = file.concat("\0").getBytes();
+  }
+
+  @Override
+  public double computeHeapChangeRatio(double liveRatio, double gcLoad, Extent currentHeapSize) {
+    double factor = super.computeHeapChangeRatio(liveRatio, gcLoad, currentHeapSize);
+    long limit = (limitFile == null) ? -1 : VM.memory.readFileValue(limitFile);
+    if (limit > 0) {
+      double cap = (limit * MAX_LIMIT_FRACTION) / currentHeapSize.toLong();
+      if (factor > cap) {
+        if (Options.verbose.getValue() > 2) {
+          Log.write("Heap capped by memory limit of "); Log.writeln(limit);
+        }
+        factor = cap;
+      }
+    }
+    return factor;
+  }
+
+  @Override
+  public String getName() {
+    return "memory-pressure";
+  }
+}
@@ -49,6 +49,10 @@ import org.vmmagic.pragma.*;
     1 << (LOG_BYTES_IN_ADDRESS_SPACE - LOG_MMAP_CHUNK_BYTES) :
     1 << (33 - LOG_MMAP_CHUNK_BYTES);
   public static final boolean verbose = false;
+  /** The size of a transparent huge page (x86-64 and most 64-bit targets) */
+  public static final int LOG_HUGE_PAGE_BYTES = 21;
+  public static final int HUGE_PAGE_BYTES = 1 << LOG_HUGE_PAGE_BYTES;
+  private static final int MMAP_CHUNKS_IN_HUGE_PAGE = HUGE_PAGE_BYTES >> LOG_MMAP_CHUNK_BYTES;
 
   /****************************************************************************
    * Class variables
@@ -59,6 +63,10 @@ import org.vmmagic.pragma.*;
    */
   public static final Lock lock = VM.newLock("Mmapper");
   private static final byte[] mapped;
+  /** Chunks advised to use huge pages */
+  private static final boolean[] hugePageAdvised;
+  /** Set once the operating system declines huge page advice */
+  private static boolean hugePagesDeclined = false;
 
 
   /****************************************************************************
@@ -71,6 +79,7 @@ import org.vmmagic.pragma.*;
    */
   static {
     mapped = new byte[MMAP_NUM_CHUNKS];
+    hugePageAdvised = new boolean[MMAP_NUM_CHUNKS];
     for (int c = 0; c < MMAP_NUM_CHUNKS; c++) {
       mapped[c] = UNMAPPED;
     }
@@ -131,8 +140,34 @@ import org.vmmagic.pragma.*;
    * @param pages The size of the range to be mapped, in pages
    */
   public static void ensureMapped(Address start, int pages) {
+    ensureMapped(start, pages, false);
+  }
+
+  /**
+   * Ensure that a range of pages is mmapped (or equivalent), optionally
+   * backing it with transparent huge pages.<p>
+   *
+   * With huge pages the range is widened to huge page alignment, and
+   * every chunk mapped is advised to use huge pages.  Adjacent advised
+   * chunks form a single mapping, so once both halves of an aligned huge
+   * page are mapped the operating system can back it with one huge page.
+   * Callers must only ask for huge pages within regions they own at huge
+   * page granularity (space chunks are always suitably aligned).  If the
+   * operating system declines the advice, mapping falls back to base
+   * pages from then on.
+   *
+   * @param start The start of the range to be mapped.
+   * @param pages The size of the range to be mapped, in pages
+   * @param hugePages Should the range be backed by huge pages?
+   */
+  public static void ensureMapped(Address start, int pages, boolean hugePages) {
     int startChunk = Conversions.addressToMmapChunksDown(start);
     int endChunk = Conversions.addressToMmapChunksUp(start.plus(Conversions.pagesToBytes(pages)));
+    if (hugePages && hugePagesDeclined) hugePages = false;
+    if (hugePages) {
+      startChunk &= ~(MMAP_CHUNKS_IN_HUGE_PAGE - 1);
+      endChunk = (endChunk + MMAP_CHUNKS_IN_HUGE_PAGE - 1) & ~(MMAP_CHUNKS_IN_HUGE_PAGE - 1);
+    }
     for (int chunk = startChunk; chunk < endChunk; chunk++) {
       if (mapped[chunk] == MAPPED) continue;
       Address mmapStart = Conversions.mmapChunksToAddress(chunk);
@@ -151,6 +186,14 @@ import org.vmmagic.pragma.*;
             Log.write("mmap succeeded at chunk "); Log.write(chunk);  Log.write("  "); Log.write(mmapStart);
             Log.write(" with len = "); Log.writeln(MMAP_CHUNK_BYTES);
           }
+          if (hugePages && !hugePagesDeclined) {
+            if (VM.memory.adviseHugePages(mmapStart, MMAP_CHUNK_BYTES)) {
+              hugePageAdvised[chunk] = true;
+            } else {
+              hugePagesDeclined = true;
+              Log.writeln("Warning: transparent huge pages unavailable, using base pages");
+            }
+          }
         }
       }
       if (mapped[chunk] == PROTECTED) {
@@ -170,6 +213,45 @@ import org.vmmagic.pragma.*;
 
   }
 
+  /**
+   * Return the physical memory behind a range of mapped pages to the
+   * operating system.  The range stays mapped, and reads as zero when
+   * next touched.  Note that this occurs at chunk granularity, so the
+   * range should be chunk aligned.  Chunks advised to use huge pages are
+   * advised again, since the chunk stays mapped and will not pass through
+   * {@link #ensureMapped} when it is reused.
+   *
+   * @param start The start of the range.
+   * @param pages The size of the range, in pages
+   * @return <code>true</code> if every chunk of the range was decommitted
+   */
+  public static boolean decommit(Address start, int pages) {
+    int startChunk = Conversions.addressToMmapChunksDown(start);
+    int endChunk = Conversions.addressToMmapChunksUp(start.plus(Conversions.pagesToBytes(pages)));
+    boolean rtn = true;
+    lock.acquire();
+    for (int chunk = startChunk; chunk < endChunk; chunk++) {
+      if (mapped[chunk] != MAPPED) {
+        rtn = false;
+        continue;
+      }
+      Address mmapStart = Conversions.mmapChunksToAddress(chunk);
+      if (!VM.memory.decommit(mmapStart, MMAP_CHUNK_BYTES)) {
+        rtn = false;
+        continue;
+      }
+      if (verbose) {
+        Log.write("decommit succeeded at chunk "); Log.write(chunk);  Log.write("  "); Log.write(mmapStart);
+        Log.write(" with len = "); Log.writeln(MMAP_CHUNK_BYTES);
+      }
+      if (hugePageAdvised[chunk]) {
+        VM.memory.adviseHugePages(mmapStart, MMAP_CHUNK_BYTES);
+      }
+    }
+    lock.release();
+    return rtn;
+  }
+
   /**
    * Memory protect a range of pages (using mprotect or equivalent).  Note
    * that protection occurs at chunk granularity, not page granularity.
@@ -158,7 +158,7 @@ public final class MonotonePageResource extends PageResource {
       commitPages(reservedPages, requiredPages);
       space.growSpace(old, bytes, newChunk);
       unlock();
-      Mmapper.ensureMapped(old, requiredPages);
+      Mmapper.ensureMapped(old, requiredPages, space.usesHugePages());
       if (zeroed) {
         if (!zeroConcurrent) {
           VM.memory.zero(zeroNT, old, bytes);
@@ -171,6 +171,35 @@ public final class MonotonePageResource extends PageResource {
     }
   }
 
+  /**
+   * Allocate runs for a page cache as a single contiguous request, which
+   * is then divided.  Resources with embedded metadata allocate a single
+   * run.
+   *
+   * @param reservedPages The number of pages reserved for all the runs
+   * @param pages The number of pages in each run
+   * @param runs The number of runs requested
+   * @param zeroed If true allocated pages are zeroed.
+   * @param cache The cache to add the runs to
+   * @return The number of runs allocated, zero on failure.
+   */
+  @Override
+  int allocPageRuns(int reservedPages, int pages, int runs, boolean zeroed, PageCache cache) {
+    if (metaDataPagesPerRegion != 0 || runs == 1) {
+      return super.allocPageRuns(reservedPages, pages, runs, zeroed, cache);
+    }
+    Address rtn = allocPages(reservedPages, pages * runs, zeroed);
+    if (rtn.isZero()) {
+      return super.allocPageRuns(reservedPages, pages, 1, zeroed, cache);
+    }
+    Extent bytes = Conversions.pagesToBytes(pages);
+    for (int i = 0; i < runs; i++) {
+      cache.add(rtn);
+      rtn = rtn.plus(bytes);
+    }
+    return runs;
+  }
+
   /**
    * {@inheritDoc}<p>
    *
@@ -217,6 +246,7 @@ public final class MonotonePageResource extends PageResource {
     lock();
     reserved = 0;
     committed = 0;
+    generation++;
     releasePages();
     unlock();
   }
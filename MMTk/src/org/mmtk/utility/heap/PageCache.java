@@ -0,0 +1,122 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import org.mmtk.vm.VM;
+
+import org.vmmagic.pragma.*;
+import org.vmmagic.unboxed.*;
+
+/**
+ * A per-mutator cache of page runs for one space, in front of the
+ * space's page resource.<p>
+ *
+ * Spaces whose mutators repeatedly acquire runs of the same size (for
+ * example whole blocks) may have their requests served from the cache.
+ * An empty cache is refilled with several runs at once, under a single
+ * page budget check and a single acquisition of the page resource's
+ * lock, so mutators that fetch blocks concurrently contend for the page
+ * resource correspondingly less often.<p>
+ *
+ * Cached runs count as committed to their space.  They are returned at
+ * the start of each collection; a page resource that can only release
+ * its pages en masse keeps them with the mutator until it is reset.
+ */
+@Uninterruptible
+public final class PageCache {
+
+  /** The most runs a cache holds */
+  public static final int MAX_RUNS = 16;
+
+  private final PageResource pr;
+  /** The number of pages in each run */
+  private final int runPages;
+  private final AddressArray runs = AddressArray.create(MAX_RUNS);
+  /** Runs <code>next</code> to <code>count - 1</code> are cached, in address order */
+  private int next = 0;
+  private int count = 0;
+  /** The generation of the page resource when the runs were cached */
+  private int generation;
+
+  /**
+   * @param pr The page resource the runs come from
+   * @param runPages The number of pages in each run
+   */
+  PageCache(PageResource pr, int runPages) {
+    this.pr = pr;
+    this.runPages = runPages;
+  }
+
+  /**
+   * @return The number of pages in each run
+   */
+  public int getRunPages() {
+    return runPages;
+  }
+
+  /**
+   * Take a cached run.
+   *
+   * @return The first page of the run, or zero if the cache is empty
+   */
+  @Inline
+  public Address take() {
+    if (next == count) return Address.zero();
+    if (generation != pr.generation) {
+      // The page resource has released every page since these were cached
+      next = count = 0;
+      return Address.zero();
+    }
+    return runs.get(next++);
+  }
+
+  /**
+   * Add a newly allocated run.  Called by the page resource while
+   * refilling the cache.
+   *
+   * @param run The first page of the run
+   */
+  @Inline
+  void add(Address run) {
+    if (VM.VERIFY_ASSERTIONS) VM.assertions._assert(count < MAX_RUNS);
+    if (next == count) {
+      next = count = 0;
+      generation = pr.generation;
+    }
+    runs.set(count++, run);
+  }
+
+  /**
+   * @param index The index of a run added since the cache was last empty
+   * @return The first page of the run
+   */
+  @Inline
+  Address getRun(int index) {
+    return runs.get(index);
+  }
+
+  /**
+   * Return the cached runs to the page resource, if it can take them
+   * back individually.
+   */
+  public void flush() {
+    if (generation != pr.generation) {
+      next = count = 0;
+      return;
+    }
+    while (next < count && pr.releaseCachedRun(runs.get(next))) {
+      next++;
+    }
+    if (next == count) next = count = 0;
+  }
+}
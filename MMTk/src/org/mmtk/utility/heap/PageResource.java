@@ -37,17 +37,6 @@ import org.vmmagic.unboxed.*;
 @Uninterruptible
 public abstract class PageResource {
 
-  /****************************************************************************
-   *
-   * Class variables
-   */
-
-  /** lock protecting count of total cumulative pages committed */
-  private static final Lock classLock;
-  /** cumulative count of pages ever committed */
-  private static long cumulativeCommitted = 0;
-
-
   /****************************************************************************
    *
    * Instance variables
@@ -67,9 +56,19 @@ public abstract class PageResource {
   /** only for contiguous spaces */
   protected Address start;
 
+  /**
+   * Cumulative count of mutator pages ever committed to this resource.
+   * Kept per resource, under its lock, so that committing pages never
+   * takes a lock shared by every space.
+   */
+  private long cumulativeCommitted = 0;
+
   // locking
   private final Lock lock;
 
+  /** Advanced whenever every page is released at once, invalidating cached runs */
+  int generation = 0;
+
   // zeroing
   protected boolean zeroNT;
   protected boolean zeroConcurrent;
@@ -80,7 +79,6 @@ public abstract class PageResource {
    * Initialization
    */
   static {
-    classLock = VM.newLock("PageResource");
     Options.protectOnRelease = new ProtectOnRelease();
   }
 
@@ -240,6 +238,63 @@ public abstract class PageResource {
     return allocPages(pagesReserved, pages, zeroed);
   }
 
+  /**
+   * Allocate several runs of pages for a page cache, returning the
+   * number of runs allocated.  Each run can later be released on its own.
+   *
+   * @param pagesReserved The number of pages reserved for all the runs
+   * @param pages The number of pages in each run
+   * @param runs The number of runs requested
+   * @param zeroed If true allocated pages are zeroed.
+   * @param cache The cache to add the runs to
+   * @return The number of runs allocated, zero on failure.
+   */
+  @Inline
+  public final int getNewPageRuns(int pagesReserved, int pages, int runs, boolean zeroed, PageCache cache) {
+    return allocPageRuns(pagesReserved, pages, runs, zeroed, cache);
+  }
+
+  /**
+   * Allocate several runs of pages for a page cache.  By default this
+   * allocates a single run; page resources that can do better
+   * override it.
+   *
+   * @param pagesReserved The number of pages reserved for all the runs
+   * @param pages The number of pages in each run
+   * @param runs The number of runs requested
+   * @param zeroed If true allocated pages are zeroed.
+   * @param cache The cache to add the runs to
+   * @return The number of runs allocated, zero on failure.
+   */
+  int allocPageRuns(int pagesReserved, int pages, int runs, boolean zeroed, PageCache cache) {
+    Address rtn = allocPages(pagesReserved, pages, zeroed);
+    if (rtn.isZero()) return 0;
+    cache.add(rtn);
+    return 1;
+  }
+
+  /**
+   * Release a run that was allocated for a page cache but never used.
+   *
+   * @param first The first page of the run
+   * @return {@code true} if the run was released, {@code false} if this
+   * page resource only releases its pages en masse.
+   */
+  boolean releaseCachedRun(Address first) {
+    return false;
+  }
+
+  /**
+   * Create a cache of page runs from this resource, for one mutator.
+   *
+   * @param runPages The number of pages in each run
+   * @return The new cache
+   */
+  @Interruptible
+  public final PageCache newPageCache(int runPages) {
+    return new PageCache(this, runPages);
+  }
+
   /**
    * Commit pages to the page budget.  This is called after
    * successfully determining that the request can be satisfied by
@@ -259,7 +314,7 @@ public abstract class PageResource {
     committed += actualPages;
     if (VM.activePlan.isMutator()) {
       // only count mutator pages
-      addToCommitted(actualPages);
+      cumulativeCommitted += actualPages;
     }
   }
 
@@ -282,25 +337,14 @@ public abstract class PageResource {
   }
 
   /**
-   * Return the cumulative number of committed pages
+   * Return the cumulative number of mutator pages committed to this resource
    *
    * @return The cumulative number of committed pages.
    */
-  public static long cumulativeCommittedPages() {
+  public final long cumulativeCommittedPages() {
     return cumulativeCommitted;
   }
 
-  /**
-   * Add to the total cumulative committed page count.
-   *
-   * @param pages The number of pages to be added.
-   */
-  private static void addToCommitted(int pages) {
-    classLock.acquire();
-    cumulativeCommitted += pages;
-    classLock.release();
-  }
-
   /**
    * Acquire the lock.
    */
@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The file from which the memory-pressure heap growth policy reads the
+ * memory limit.
+ */
+public final class CgroupMemoryLimitFile extends org.vmutil.options.StringOption {
+  /**
+   * Create the option.
+   */
+  public CgroupMemoryLimitFile() {
+    super(Options.set, "Cgroup Memory Limit File",
+          "The file holding the memory limit, in bytes, that the memory-pressure heap growth policy keeps the heap within (cgroup v1 uses memory/memory.limit_in_bytes)",
+          "/sys/fs/cgroup/memory.max");
+  }
+}
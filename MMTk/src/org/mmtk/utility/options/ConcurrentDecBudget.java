@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Backlog of concurrent reference count decrements above which the
+ * mutators are throttled.  Zero means no bound.
+ */
+public class ConcurrentDecBudget extends org.vmutil.options.PagesOption {
+  /**
+   * Create the option.
+   */
+  public ConcurrentDecBudget() {
+    super(Options.set, "Concurrent Dec Budget",
+          "Once this many decrements are outstanding and mutators have allocated as much again, stop the world and process them (0 means unbounded).",
+          0);
+  }
+}
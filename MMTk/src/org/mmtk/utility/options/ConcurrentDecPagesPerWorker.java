@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Backlog of concurrent reference count decrements given to each
+ * concurrent collector thread.
+ */
+public class ConcurrentDecPagesPerWorker extends org.vmutil.options.PagesOption {
+  /**
+   * Create the option.
+   */
+  public ConcurrentDecPagesPerWorker() {
+    super(Options.set, "Concurrent Dec Pages Per Worker",
+          "Start one concurrent collector thread for each this much outstanding decrement work (0 means use all threads).",
+          0);
+  }
+}
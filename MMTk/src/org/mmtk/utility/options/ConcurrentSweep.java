@@ -0,0 +1,29 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Should reference counting collections leave their block sweep, and
+ * the large object sweep of a cycle collection, to collector threads
+ * running alongside the mutators?
+ */
+public final class ConcurrentSweep extends org.vmutil.options.BooleanOption {
+  /**
+   * Create the option.
+   */
+  public ConcurrentSweep() {
+    super(Options.set, "Concurrent Sweep",
+          "Should reference counting collections sweep blocks and large objects concurrently rather than in the pause",
+          false);
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How many collections ahead to predict heap exhaustion by pages that
+ * reference counting fails to reclaim.
+ */
+public final class CycleTriggerLookahead extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public CycleTriggerLookahead() {
+    super(Options.set, "Cycle Trigger Lookahead",
+          "Collect cycles once the pages reference counting leaves behind would exhaust the heap within this many collections (0 disables prediction).",
+          0);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Lookahead must be non-negative");
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Upper bound on the live data evacuated by a single defragmenting
+ * collection.  Zero means no bound.
+ */
+public class DefragEvacuationBudget extends org.vmutil.options.PagesOption {
+  /**
+   * Create the option.
+   */
+  public DefragEvacuationBudget() {
+    super(Options.set, "Defrag Evacuation Budget",
+          "Evacuate at most this much live data per defrag, leaving the rest to later defrags (0 means unbounded).",
+          0);
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Should traces enqueue edges (slots) rather than objects?  Only plans
+ * whose traces support edge enqueuing (Immix and SemiSpace) are
+ * affected.
+ */
+public final class EdgeEnqueuing extends org.vmutil.options.BooleanOption {
+  /**
+   * Create the option.
+   */
+  public EdgeEnqueuing() {
+    super(Options.set, "Edge Enqueuing",
+          "Trace by enqueuing slots rather than objects, in plans that support it (Immix, SemiSpace)",
+          false);
+  }
+}
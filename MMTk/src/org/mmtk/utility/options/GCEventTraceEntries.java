@@ -0,0 +1,40 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+import static org.mmtk.utility.Constants.BYTES_IN_PAGE;
+
+import org.mmtk.utility.statistics.GCEventTrace;
+
+/**
+ * The number of entries in each collector's GC event ring.
+ */
+public final class GCEventTraceEntries extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public GCEventTraceEntries() {
+    super(Options.set, "GC Event Trace Entries",
+          "The number of events each collector keeps before overwriting the oldest (a power of two)",
+          16384);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < (BYTES_IN_PAGE / GCEventTrace.BYTES_IN_ENTRY) || (this.value & (this.value - 1)) != 0,
+        "GC event trace entries must be a power of two filling at least one page");
+  }
+}
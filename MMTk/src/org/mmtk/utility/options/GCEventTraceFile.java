@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The file the GC event trace is written to.  The trace is only recorded
+ * when a file is named.
+ */
+public final class GCEventTraceFile extends org.vmutil.options.StringOption {
+  /**
+   * Create the option.
+   */
+  public GCEventTraceFile() {
+    super(Options.set, "GC Event Trace File",
+          "Record GC events in per-collector binary ring buffers and write them to this file at exit (empty disables the trace)",
+          "");
+  }
+}
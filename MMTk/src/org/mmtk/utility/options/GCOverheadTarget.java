@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The share of time the GC overhead heap growth policies aim to spend
+ * collecting.
+ */
+public final class GCOverheadTarget extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public GCOverheadTarget() {
+    super(Options.set, "GC Overhead Target",
+          "The percentage of time the gc-overhead and memory-pressure heap growth policies aim to spend in GC",
+          5);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 1 || this.value > 99, "GC overhead target must be a percentage between 1 and 99");
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How the heap is grown and shrunk when the heap size is variable.
+ */
+public final class HeapGrowthPolicyKind extends org.vmutil.options.EnumOption {
+
+  // enumeration values.
+  public final int TABLE = 0;
+  public final int GC_OVERHEAD = 1;
+  public final int MEMORY_PRESSURE = 2;
+
+  /**
+   * Create the option.
+   */
+  public HeapGrowthPolicyKind() {
+    super(Options.set, "Heap Growth Policy",
+          "Size the heap from a fixed table of live ratio and GC load, to meet the GC overhead target, or to meet the target within the cgroup memory limit",
+          new String[] {"table", "gc-overhead", "memory-pressure"},
+          "table");
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The fraction of the mark-compact space that an incremental
+ * compaction may compact.
+ */
+public final class MarkCompactBudget extends org.vmutil.options.FloatOption {
+  /**
+   * Create the option.
+   */
+  public MarkCompactBudget() {
+    super(Options.set, "Mark Compact Budget",
+          "Fraction of the mark-compact space compacted by an incremental collection",
+          0.25f);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf((this.value <= 0 || this.value > 1.0), "Ratio must be a float between 0 and 1");
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Should explicitly managed large object spaces pack medium sized objects
+ * into blocks of size-segregated cells rather than give each its own pages?
+ */
+public final class MediumObjectTier extends org.vmutil.options.BooleanOption {
+  /**
+   * Create the option.
+   */
+  public MediumObjectTier() {
+    super(Options.set, "Medium Object Tier",
+          "Should explicit large object spaces pack objects of up to 64KB into size-segregated blocks",
+          false);
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * The amount of memory to keep resident when returning free memory to
+ * the operating system.
+ */
+public final class MinRetainedHeap extends org.vmutil.options.PagesOption {
+  /**
+   * Create the option.
+   */
+  public MinRetainedHeap() {
+    super(Options.set, "Min Retained Heap",
+          "Never return memory to the operating system if that would leave less than this resident.",
+          0);
+  }
+}
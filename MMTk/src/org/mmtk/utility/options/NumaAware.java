@@ -0,0 +1,27 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * Should allocation and collection be NUMA aware?
+ */
+public final class NumaAware extends org.vmutil.options.BooleanOption {
+  /**
+   * Create the option.
+   */
+  public NumaAware() {
+    super(Options.set, "Numa Aware",
+          "If true, collector threads are bound to NUMA nodes, free chunks are reused on the node that populated them, and work is stolen from the same node first",
+          false);
+  }
+}
@@ -32,6 +32,7 @@ public final class Options {
   public static DefragHeadroomFraction defragHeadroomFraction;
   public static DefragFreeHeadroom defragFreeHeadroom;
   public static DefragFreeHeadroomFraction defragFreeHeadroomFraction;
+  public static DefragEvacuationBudget defragEvacuationBudget;
   public static DefragLineReuseRatio defragLineReuseRatio;
   public static DefragSimpleSpillThreshold defragSimpleSpillThreshold;
   public static DefragStress defragStress;
@@ -68,6 +69,31 @@ public final class Options {
   public static VerboseTiming verboseTiming;
   public static XmlStats xmlStats;
   public static CycleTriggerFraction cycleTriggerFraction;
+  public static CycleTriggerLookahead cycleTriggerLookahead;
   public static DefragTriggerFraction defragTriggerFraction;
   public static SurvivorCopyMultiplier survivorCopyMultiplier;
+  public static SurvivalPredictorKind survivalPredictor;
+  public static SurvivalPredictorWindow survivalPredictorWindow;
+  public static ConcurrentBackupTrace concurrentBackupTrace;
+  public static ConcurrentDecBudget concurrentDecBudget;
+  public static ConcurrentDecPagesPerWorker concurrentDecPagesPerWorker;
+  public static ConcurrentSweep concurrentSweep;
+  public static PauseBudget pauseBudget;
+  public static ConcurrentLineZeroing concurrentLineZeroing;
+  public static UncommitDelay uncommitDelay;
+  public static MinRetainedHeap minRetainedHeap;
+  public static TransparentHugePages transparentHugePages;
+  public static MediumObjectTier mediumObjectTier;
+  public static PageCacheRuns pageCacheRuns;
+  public static TLBPerfEvents tlbPerfEvents;
+  public static NumaAware numaAware;
+  public static HeapGrowthPolicyKind heapGrowthPolicy;
+  public static GCOverheadTarget gcOverheadTarget;
+  public static CgroupMemoryLimitFile cgroupMemoryLimitFile;
+  public static GCEventTraceFile gcEventTraceFile;
+  public static GCEventTraceEntries gcEventTraceEntries;
+  public static TracePrefetchDistance tracePrefetchDistance;
+  public static EdgeEnqueuing edgeEnqueuing;
+  public static MarkCompactIncremental markCompactIncremental;
+  public static MarkCompactBudget markCompactBudget;
 }
@@ -0,0 +1,38 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+import org.mmtk.utility.heap.PageCache;
+
+/**
+ * The number of page runs a mutator takes at once when refilling a
+ * page cache.  One disables the caches.
+ */
+public final class PageCacheRuns extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public PageCacheRuns() {
+    super(Options.set, "Page Cache Runs",
+          "The number of blocks a mutator takes from a page resource at a time (1 disables page caches)",
+          1);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 1 || this.value > PageCache.MAX_RUNS, "Page cache runs must be between 1 and 16");
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How long a reference counting pause may run before deferrable copying
+ * and decrement work is left to the concurrent phase.  The budget only
+ * bounds reference counting work: cycle collections still trace in a
+ * pause unless concurrentBackupTrace is also set.
+ */
+public final class PauseBudget extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public PauseBudget() {
+    super(Options.set, "Pause Budget",
+          "Defer copying and decrement work that does not fit within this many milliseconds of a reference counting pause (0 disables the budget).",
+          0);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0, "Pause budget must be non-negative");
+  }
+}
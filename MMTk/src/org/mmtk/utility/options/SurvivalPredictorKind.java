@@ -0,0 +1,34 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How RCImmix predicts the survival rate that sizes its copy reserve.
+ */
+public final class SurvivalPredictorKind extends org.vmutil.options.EnumOption {
+
+  // enumeration values.
+  public final int MAX = 0;
+  public final int EWMA = 1;
+  public final int SIZE_CLASS = 2;
+
+  /**
+   * Create the option.
+   */
+  public SurvivalPredictorKind() {
+    super(Options.set, "Survival Predictor",
+          "Predict survivor copying from the maximum line survival rate over a window, its moving average, or survivor bytes per size class",
+          new String[] {"max", "ewma", "size-class"},
+          "max");
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+import org.mmtk.policy.rcimmix.SurvivalPredictor;
+
+/**
+ * The number of collections of history the survival predictor considers.
+ */
+public final class SurvivalPredictorWindow extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public SurvivalPredictorWindow() {
+    super(Options.set, "Survival Predictor Window",
+          "The number of collections of history the survival predictor considers",
+          4);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 1 || this.value > SurvivalPredictor.MAX_WINDOW, "Window must be between 1 and 32");
+  }
+}
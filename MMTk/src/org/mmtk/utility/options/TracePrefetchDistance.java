@@ -0,0 +1,39 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+import org.mmtk.plan.TraceLocal;
+
+/**
+ * The number of gray objects whose headers are prefetched ahead of being
+ * scanned during a trace.  Zero disables prefetching.
+ */
+public final class TracePrefetchDistance extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public TracePrefetchDistance() {
+    super(Options.set, "Trace Prefetch Distance",
+          "The number of gray objects prefetched ahead of scanning when tracing (0 disables prefetching)",
+          0);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < 0 || this.value > TraceLocal.MAX_PREFETCH_DISTANCE,
+        "Trace prefetch distance must be between 0 and 16");
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.options;
+
+/**
+ * How long a chunk of address space must have been free before its
+ * memory is returned to the operating system.
+ */
+public final class UncommitDelay extends org.vmutil.options.IntOption {
+  /**
+   * Create the option.
+   */
+  public UncommitDelay() {
+    super(Options.set, "Uncommit Delay",
+          "Return the memory of chunks that have been free for this many milliseconds to the operating system (-1 never does).",
+          -1);
+  }
+
+  /**
+   * Ensure the value is valid.
+   */
+  @Override
+  protected void validate() {
+    failIf(this.value < -1, "Uncommit delay must be -1 or non-negative");
+  }
+}
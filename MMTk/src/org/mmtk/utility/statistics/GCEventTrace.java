@@ -0,0 +1,301 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.statistics;
+
+import static org.mmtk.utility.Constants.*;
+
+import org.mmtk.plan.Phase;
+import org.mmtk.plan.Plan;
+import org.mmtk.utility.Log;
+import org.mmtk.utility.options.Options;
+import org.mmtk.vm.Lock;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.Inline;
+import org.vmmagic.pragma.Interruptible;
+import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.Offset;
+
+/**
+ * A compact binary trace of GC events, held in one ring buffer per
+ * collector context.<p>
+ *
+ * Each entry is 16 bytes: the time stamp (<code>VM.statistics.nanoTime()</code>)
+ * as a long, the event type and identifier packed into an int
+ * (<code>type &lt;&lt; 24 | id</code>), and an int value.  The ring is
+ * raw memory taken from the meta-data space the first time its collector
+ * records an event, so recording never allocates and never takes a lock;
+ * once a ring is full the oldest entries are overwritten.<p>
+ *
+ * The trace is enabled by naming a file with the
+ * <code>GCEventTraceFile</code> option.  It is written there at exit, or
+ * whenever {@link #dump()} is called.  The file holds a header (magic
+ * number, version, entry size, ring count, and the table of phase names,
+ * each padded to a whole number of ints) followed by each ring's
+ * surviving entries, oldest first, in native byte order.
+ * <code>tools/gc-event-trace</code> contains an offline decoder.
+ */
+@Uninterruptible
+public final class GCEventTrace {
+
+  /****************************************************************************
+   * Event types
+   */
+
+  /** A collector starts a simple phase; the id is the phase id */
+  public static final int PHASE_BEGIN = 1;
+  /** A collector finishes a simple phase; the id is the phase id */
+  public static final int PHASE_END = 2;
+  /** A pause begins; the id is the GC count, the value the pages reserved */
+  public static final int PAUSE_BEGIN = 3;
+  /** A pause ends; the id is the GC count, the value the pages reserved */
+  public static final int PAUSE_END = 4;
+  /** A collector starts a concurrent phase; the id is the phase id */
+  public static final int CONCURRENT_BEGIN = 5;
+  /** A collector leaves a concurrent phase; the id is the phase id */
+  public static final int CONCURRENT_END = 6;
+  /** The pages of modified objects found in a pause */
+  public static final int MOD_BUFFER = 7;
+  /** The pages of decrements handed to the concurrent phase */
+  public static final int DEC_BUFFER = 8;
+
+  /****************************************************************************
+   * File format
+   */
+
+  /** The magic number at the start of a trace file ("MMTE") */
+  public static final int MAGIC = 0x4d4d5445;
+  /** The version of the file format */
+  public static final int VERSION = 1;
+  public static final int LOG_BYTES_IN_ENTRY = 4;
+  public static final int BYTES_IN_ENTRY = 1 << LOG_BYTES_IN_ENTRY;
+  private static final int BYTES_IN_TIME_STAMP = 8;
+  private static final Offset TYPE_ID_OFFSET = Offset.fromIntZeroExtend(BYTES_IN_TIME_STAMP);
+  private static final Offset VALUE_OFFSET = Offset.fromIntZeroExtend(BYTES_IN_TIME_STAMP + BYTES_IN_INT);
+  private static final int ID_MASK = (1 << 24) - 1;
+
+  /** The maximum number of rings (one per collector context) */
+  public static final int MAX_RINGS = 256;
+
+  /****************************************************************************
+   * Class variables
+   */
+
+  /** Is the trace being recorded? */
+  private static boolean enabled = false;
+
+  /** The NUL-terminated name of the trace file */
+  private static byte[] fileName;
+
+  /** The number of entries in each ring (a power of two) */
+  private static int ringEntries;
+
+  private static final GCEventTrace[] rings = new GCEventTrace[MAX_RINGS];
+  private static int numRings = 0;
+
+  /** Protects registration and dumping */
+  private static final Lock lock = VM.newLock("GCEventTrace");
+
+  /** The staging page used while writing the file header */
+  private static Address stage = Address.zero();
+  private static int stageCursor;
+
+  /****************************************************************************
+   * Instance variables
+   */
+
+  /** The index of this ring in the trace file */
+  private final int index;
+
+  /** The ring's memory, or zero until the first event is recorded */
+  private Address base = Address.zero();
+
+  /** The number of events ever recorded in this ring */
+  private long count = 0;
+
+  /**
+   * Create a ring.  Called once per collector context as it is
+   * constructed.
+   */
+  public GCEventTrace() {
+    lock.acquire();
+    index = numRings;
+    if (numRings < MAX_RINGS) rings[numRings++] = this;
+    lock.release();
+  }
+
+  /**
+   * Configure the trace from the options.
+   */
+  @Interruptible
+  public static void initialize() {
+    String file = Options.gcEventTraceFile.getValue();
+    if (file.length() == 0) return;
+    fileName = file.concat("\0").getBytes();
+    ringEntries = Options.gcEventTraceEntries.getValue();
+    enabled = true;
+  }
+
+  /**
+   * @return {@code true} if events are being recorded
+   */
+  @Inline
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Record an event in the current collector's ring.
+   *
+   * @param type The event type
+   * @param id The identifier (low 24 bits are kept)
+   * @param value The event's value
+   */
+  @Inline
+  public static void record(int type, int id, int value) {
+    if (enabled) VM.activePlan.collector().getEventTrace().add(type, id, value);
+  }
+
+  /**
+   * Record an event in this ring.
+   *
+   * @param type The event type
+   * @param id The identifier (low 24 bits are kept)
+   * @param value The event's value
+   */
+  public void add(int type, int id, int value) {
+    if (!enabled) return;
+    if (base.isZero()) {
+      base = Plan.metaDataSpace.acquire((ringEntries << LOG_BYTES_IN_ENTRY) >>> LOG_BYTES_IN_PAGE);
+      if (base.isZero()) return;
+    }
+    Address entry = base.plus(((int) count & (ringEntries - 1)) << LOG_BYTES_IN_ENTRY);
+    entry.store(VM.statistics.nanoTime());
+    entry.store((type << 24) | (id & ID_MASK), TYPE_ID_OFFSET);
+    entry.store(value, VALUE_OFFSET);
+    count++;
+  }
+
+  /**
+   * Write the trace to the file named by the <code>GCEventTraceFile</code>
+   * option.  Rings that are still being written to while the dump is in
+   * progress may contribute a partly updated entry.
+   */
+  @Interruptible
+  public static void dump() {
+    if (!enabled) return;
+    lock.acquire();
+    int fd = VM.memory.openOutputFile(fileName);
+    if (fd < 0) {
+      lock.release();
+      Log.writeln("Warning: could not open the GC event trace file");
+      return;
+    }
+    if (stage.isZero()) stage = Plan.metaDataSpace.acquire(1);
+    boolean ok = !stage.isZero();
+    if (ok) {
+      stageCursor = 0;
+      stageInt(MAGIC);
+      stageInt(VERSION);
+      stageInt(BYTES_IN_ENTRY);
+      stageInt(numRings);
+      int phases = Phase.getPhaseCount();
+      stageInt(phases);
+      for (short p = 1; p < phases && ok; p++) {
+        String name = Phase.getName(p);
+        ok = stageInt(name.length(), fd);
+        for (int i = 0; i < name.length() && ok; i++) {
+          ok = stageByte((byte) name.charAt(i), fd);
+        }
+        /* Keep the following ints aligned */
+        while ((stageCursor & (BYTES_IN_INT - 1)) != 0 && ok) {
+          ok = stageByte((byte) 0, fd);
+        }
+      }
+      for (int r = 0; r < numRings && ok; r++) {
+        GCEventTrace ring = rings[r];
+        long recorded = ring.count;
+        int entries = ring.base.isZero() ? 0 : (int) Math.min(recorded, ringEntries);
+        ok = stageInt(ring.index, fd) && stageInt(entries, fd) &&
+             stageInt((int) (recorded >>> 32), fd) && stageInt((int) recorded, fd) &&
+             flushStage(fd);
+        if (ok && entries > 0) {
+          int first = entries < ringEntries ? 0 : (int) recorded & (ringEntries - 1);
+          Address oldest = ring.base.plus(first << LOG_BYTES_IN_ENTRY);
+          ok = VM.memory.writeOutputFile(fd, oldest, (entries - first) << LOG_BYTES_IN_ENTRY) &&
+               VM.memory.writeOutputFile(fd, ring.base, first << LOG_BYTES_IN_ENTRY);
+        }
+      }
+      ok = ok && flushStage(fd);
+    }
+    VM.memory.closeOutputFile(fd);
+    lock.release();
+    if (!ok) Log.writeln("Warning: could not write the GC event trace");
+  }
+
+  /****************************************************************************
+   * Staging of the file header
+   */
+
+  /**
+   * Append an int to the staging page.  Only used for the fixed part of
+   * the header, which always fits.
+   *
+   * @param value The value
+   */
+  private static void stageInt(int value) {
+    stage.store(value, Offset.fromIntZeroExtend(stageCursor));
+    stageCursor += BYTES_IN_INT;
+  }
+
+  /**
+   * Append an int to the staging page, writing the page out first if it
+   * is full.
+   *
+   * @param value The value
+   * @param fd The file being written
+   * @return {@code false} if writing failed
+   */
+  private static boolean stageInt(int value, int fd) {
+    if (stageCursor + BYTES_IN_INT > BYTES_IN_PAGE && !flushStage(fd)) return false;
+    stageInt(value);
+    return true;
+  }
+
+  /**
+   * Append a byte to the staging page, writing the page out first if it
+   * is full.
+   *
+   * @param value The value
+   * @param fd The file being written
+   * @return {@code false} if writing failed
+   */
+  private static boolean stageByte(byte value, int fd) {
+    if (stageCursor == BYTES_IN_PAGE && !flushStage(fd)) return false;
+    stage.store(value, Offset.fromIntZeroExtend(stageCursor));
+    stageCursor++;
+    return true;
+  }
+
+  /**
+   * Write out and empty the staging page.
+   *
+   * @param fd The file being written
+   * @return {@code false} if writing failed
+   */
+  private static boolean flushStage(int fd) {
+    boolean ok = stageCursor == 0 || VM.memory.writeOutputFile(fd, stage, stageCursor);
+    stageCursor = 0;
+    return ok;
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.statistics;
+
+import org.mmtk.utility.Log;
+import org.mmtk.vm.Lock;
+import org.mmtk.vm.VM;
+import org.vmmagic.pragma.Interruptible;
+import org.vmmagic.pragma.Uninterruptible;
+
+/**
+ * A histogram of durations, from which percentiles are reported.<p>
+ *
+ * Buckets are laid out in the manner of an HDR histogram: values below
+ * <code>2 * SUB_BUCKETS</code> nanoseconds each have their own bucket,
+ * and every further power of two is split into <code>SUB_BUCKETS</code>
+ * equal buckets, so any recorded value is known to within about 3%
+ * whatever its magnitude.  The bucket array is allocated when the
+ * histogram is created, so recording never allocates.<p>
+ *
+ * Like the other counters, a histogram only records while statistics are
+ * being gathered, and is printed with the statistics totals.
+ */
+@Uninterruptible
+public final class Histogram {
+
+  /** log2 of the number of buckets each power of two is split into */
+  static final int LOG_SUB_BUCKETS = 5;
+  static final int SUB_BUCKETS = 1 << LOG_SUB_BUCKETS;
+  /** The largest power of two distinguished (2^45ns is almost ten hours) */
+  static final int MAX_LOG_VALUE = 45;
+  static final int BUCKETS = (MAX_LOG_VALUE - LOG_SUB_BUCKETS + 2) * SUB_BUCKETS;
+
+  /** The percentiles printed with the statistics */
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+  private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99.9" };
+
+  private final String name;
+  private final long[] buckets = new long[BUCKETS];
+  private long count;
+  private long total;
+  private long max;
+
+  /** Values may be recorded by several collector threads at once */
+  private final Lock lock;
+
+  /**
+   * Create a histogram.
+   *
+   * @param name The name of the histogram
+   */
+  public Histogram(String name) {
+    this.name = name;
+    this.lock = VM.newLock("Histogram");
+    Stats.newHistogram(this);
+  }
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos The duration in nanoseconds
+   */
+  public void record(long nanos) {
+    if (!Stats.gatheringStats() || nanos < 0) return;
+    lock.acquire();
+    buckets[bucketOf(nanos)]++;
+    count++;
+    total += nanos;
+    if (nanos > max) max = nanos;
+    lock.release();
+  }
+
+  /**
+   * Discard everything recorded so far.
+   */
+  void reset() {
+    for (int i = 0; i < BUCKETS; i++) buckets[i] = 0;
+    count = 0;
+    total = 0;
+    max = 0;
+  }
+
+  /**
+   * @param value A value
+   * @return The index of the bucket holding the value
+   */
+  static int bucketOf(long value) {
+    if (value < 2 * SUB_BUCKETS) return (int) value;
+    int log = 63;
+    while ((value >>> log) == 0) log--;
+    if (log > MAX_LOG_VALUE) return BUCKETS - 1;
+    int shift = log - LOG_SUB_BUCKETS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * @param bucket The index of a bucket
+   * @return The largest value the bucket holds
+   */
+  static long highestValueIn(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) return bucket;
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * @param percentile A percentile (between 0 and 100)
+   * @return The smallest recorded value, to bucket precision, that at
+   * least this percentage of the values do not exceed.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (count == 0) return 0;
+    double exact = percentile * count / 100.0;
+    /* Rounding error must not push a whole rank (99.9% of 1000) up to the next */
+    long rank = (long) Math.ceil(exact - exact * 1e-12);
+    if (rank < 1) rank = 1;
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        /* The last bucket also holds every value too large to distinguish */
+        return i == BUCKETS - 1 ? max : Math.min(highestValueIn(i), max);
+      }
+    }
+    return max;
+  }
+
+  /** @return The number of values recorded */
+  public long getCount() {
+    return count;
+  }
+
+  /** @return The name of the histogram */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Print the count, mean, percentiles and maximum in milliseconds.
+   */
+  @Interruptible
+  void print() {
+    Log.write(name); Log.write(": count "); Log.write(count);
+    if (count > 0) {
+      Log.write(" mean "); Log.write(VM.statistics.nanosToMillis(total / count));
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        Log.write(" "); Log.write(PERCENTILE_NAMES[i]); Log.write(" ");
+        Log.write(VM.statistics.nanosToMillis(getValueAtPercentile(PERCENTILES[i])));
+      }
+      Log.write(" max "); Log.write(VM.statistics.nanosToMillis(max));
+      Log.write(" ms");
+    }
+    Log.writeln();
+  }
+
+  /**
+   * Print the count, mean, percentiles and maximum, in milliseconds, as
+   * an xml tag.
+   */
+  @Interruptible
+  void printXml() {
+    Xml.openMinorTag("histogram");
+    Xml.attribute("name", name);
+    Xml.attribute("units", "ms");
+    Xml.attribute("count", count);
+    Xml.attribute("mean", count == 0 ? 0 : VM.statistics.nanosToMillis(total / count));
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      Xml.attribute(PERCENTILE_NAMES[i], VM.statistics.nanosToMillis(getValueAtPercentile(PERCENTILES[i])));
+    }
+    Xml.attribute("max", VM.statistics.nanosToMillis(max));
+    Xml.closeMinorTag();
+  }
+}
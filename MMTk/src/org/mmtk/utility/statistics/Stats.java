@@ -45,9 +45,13 @@ public class Stats {
   static final int MAX_PHASES = 1 << 12;
   /** Maximum number of counters that can be in operation */
   static final int MAX_COUNTERS = 100;
+  /** Maximum number of histograms that can be in operation */
+  static final int MAX_HISTOGRAMS = 16;
 
   private static int counters = 0;
   private static Counter[] counter;
+  private static int histograms = 0;
+  private static final Histogram[] histogram = new Histogram[MAX_HISTOGRAMS];
   static int phase = 0;
   private static int gcCount = 0;
   static boolean gatheringStats = false;
@@ -84,6 +88,19 @@ public class Stats {
     }
   }
 
+  /**
+   * Add a new histogram to the set of managed histograms.
+   *
+   * @param h The histogram to be added.
+   */
+  static void newHistogram(Histogram h) {
+    if (histograms < MAX_HISTOGRAMS) {
+      histogram[histograms++] = h;
+    } else {
+      Log.writeln("Warning: number of stats histograms exceeds maximum");
+    }
+  }
+
   /**
    * Start a new GC phase.  This means notifying each counter of the
    * phase change.
@@ -134,6 +151,9 @@ public class Stats {
       if (counter[c].getStart())
         counter[c].start();
     }
+    for (int h = 0; h < histograms; h++) {
+      histogram[h].reset();
+    }
 
     if (Options.xmlStats.getValue()) {
       Xml.begin();
@@ -207,6 +227,9 @@ public class Stats {
     Log.writeln();
     Log.write("Total time: ");
     Plan.totalTime.printTotal(); Log.writeln(" ms");
+    for (int h = 0; h < histograms; h++) {
+      histogram[h].print();
+    }
     Log.writeln("------------------------------ End MMTk Statistics -----------------------------");
   }
 
@@ -312,6 +335,9 @@ public class Stats {
       }
     }
     Xml.singleValue("total-time",Plan.totalTime.getTotalMillis(),"ms");
+    for (int h = 0; h < histograms; h++) {
+      histogram[h].printXml();
+    }
     Xml.closeTag("mmtk-stats-totals");
   }
 
@@ -86,6 +86,26 @@ import org.vmmagic.pragma.*;
    */
   public abstract int getActiveThreads();
 
+  /**
+   * @return The number of NUMA memory nodes (1 if the machine is not
+   * NUMA or the topology is unknown).
+   */
+  public abstract int getNumaNodes();
+
+  /**
+   * @return The NUMA node of the processor the current thread is
+   * running on (0 if unknown).
+   */
+  public abstract int getCurrentNumaNode();
+
+  /**
+   * Bind the current thread to the processors of a NUMA node.
+   *
+   * @param node the node to bind to
+   * @return <code>true</code> if the thread was bound
+   */
+  public abstract boolean bindToNumaNode(int node);
+
   /**
    * Block for the garbage collector.
    */
@@ -12,6 +12,7 @@
  */
 package org.mmtk.vm;
 
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.vmmagic.pragma.Uninterruptible;
 
@@ -43,4 +44,14 @@ public abstract class FinalizableProcessor {
    *  last scan. Otherwise, scan all references.
    */
   public abstract void forward(TraceLocal trace, boolean nursery);
+
+  /**
+   * Visit the entries in the table, letting the collector decide which
+   * to keep, drop or make ready for finalization.
+   *
+   * @param visitor Decides what becomes of each entry
+   * @param nursery if {@code true}, visit only entries added since the
+   *  last scan or visit. Otherwise, visit all entries.
+   */
+  public abstract void visit(ReferenceTableVisitor visitor, boolean nursery);
 }
@@ -77,6 +77,66 @@ import org.vmmagic.pragma.*;
    */
   public abstract int dzmmap(Address start, int size);
 
+  /**
+   * Returns the physical memory behind an area of mapped virtual memory
+   * to the operating system (as madvise(MADV_DONTNEED) does), leaving
+   * the area mapped and reading as zero.  Advice given for the area, such
+   * as {@link #adviseHugePages}, must survive.
+   *
+   * @param start the address of the start of the area
+   * @param size the size, in bytes, of the area
+   * @return <code>true</code> if successful, otherwise
+   * <code>false</code>
+   */
+  public abstract boolean decommit(Address start, int size);
+
+  /**
+   * Asks the operating system to back an area of mapped virtual memory
+   * with transparent huge pages (as madvise(MADV_HUGEPAGE) does).  This
+   * is only a hint: the area remains usable whether or not it succeeds.
+   *
+   * @param start the address of the start of the area
+   * @param size the size, in bytes, of the area
+   * @return <code>true</code> if the advice was accepted, otherwise
+   * <code>false</code>
+   */
+  public abstract boolean adviseHugePages(Address start, int size);
+
+  /**
+   * Reads the number at the start of a file, such as the memory limit
+   * of the cgroup the VM runs in.
+   *
+   * @param path the name of the file, as a NUL-terminated byte array
+   * @return the number, or -1 if the file cannot be read or does not
+   * start with a number
+   */
+  public abstract long readFileValue(byte[] path);
+
+  /**
+   * Opens a file for writing, creating it or truncating it.
+   *
+   * @param path the name of the file, as a NUL-terminated byte array
+   * @return a descriptor for the file, or -1 if it cannot be opened
+   */
+  public abstract int openOutputFile(byte[] path);
+
+  /**
+   * Writes an area of memory to a file.
+   *
+   * @param fd the descriptor of a file opened with {@link #openOutputFile}
+   * @param start the start of the area
+   * @param bytes the size of the area in bytes
+   * @return <code>true</code> if every byte was written
+   */
+  public abstract boolean writeOutputFile(int fd, Address start, int bytes);
+
+  /**
+   * Closes a file opened with {@link #openOutputFile}.
+   *
+   * @param fd the descriptor of the file
+   */
+  public abstract void closeOutputFile(int fd);
+
   /**
    * Protects access to an area of virtual memory.
    *
@@ -163,6 +223,8 @@ import org.vmmagic.pragma.*;
   protected abstract int getMaxBytesPaddingConstant();
   /** @return The value to store in alignment holes */
   protected abstract int getAlignmentValueConstant();
+  /** @return True if the least significant byte of a word is stored at its lowest address */
+  protected abstract boolean getLittleEndianConstant();
 
   /*
    * NOTE: These methods should not be called by anything other than the
@@ -203,4 +265,7 @@ import org.vmmagic.pragma.*;
   static int alignmentValueTrapdoor(Memory m) {
     return m.getAlignmentValueConstant();
   }
+  static boolean littleEndianTrapdoor(Memory m) {
+    return m.getLittleEndianConstant();
+  }
 }
@@ -12,8 +12,10 @@
  */
 package org.mmtk.vm;
 
+import org.mmtk.plan.ReferenceTableVisitor;
 import org.mmtk.plan.TraceLocal;
 import org.vmmagic.pragma.Uninterruptible;
+import org.vmmagic.unboxed.ObjectReference;
 
 /**
  * This class manages SoftReferences, WeakReferences, and
@@ -48,6 +50,26 @@ public abstract class ReferenceProcessor {
    */
   public abstract void forward(TraceLocal trace, boolean nursery);
 
+  /**
+   * Visit the references in the table, letting the collector decide
+   * which to keep, drop or clear.
+   *
+   * @param visitor Decides what becomes of each reference
+   * @param nursery {@code true} to visit only references added since the
+   *  last scan or visit
+   */
+  public abstract void visit(ReferenceTableVisitor visitor, boolean nursery);
+
+  /**
+   * Put a reference object on its reference queue (if it has one).
+   * Enqueueing may run the write barrier, so the caller must flush any
+   * remembered sets this generates.
+   *
+   * @param reference The reference object, whose referent has been cleared
+   * @return {@code true} if the reference was enqueued
+   */
+  public abstract boolean enqueueReference(ObjectReference reference);
+
   /**
    * @return the number of references objects on the queue
    */
@@ -77,6 +77,8 @@ public final class VM {
   public static final int MAX_BYTES_PADDING;
   /** The value to store in alignment holes */
   public static final int ALIGNMENT_VALUE;
+  /** Is the least significant byte of a word stored at its lowest address? */
+  public static final boolean LITTLE_ENDIAN;
   /** The offset from an array reference to element zero */
   public static final Offset ARRAY_BASE_OFFSET;
   /** Global debugging switch */
@@ -183,6 +185,7 @@ public final class VM {
     MAX_ALIGNMENT_SHIFT = Memory.maxAlignmentShiftTrapdoor(memory);
     MAX_BYTES_PADDING = Memory.maxBytesPaddingTrapdoor(memory);
     ALIGNMENT_VALUE = Memory.alignmentValueTrapdoor(memory);
+    LITTLE_ENDIAN = Memory.littleEndianTrapdoor(memory);
     ARRAY_BASE_OFFSET = ObjectModel.arrayBaseOffsetTrapdoor(objectModel);
     DEBUG = Debug.isEnabledTrapdoor(debugging);
   }
@@ -55,6 +55,7 @@ import org.mmtk.utility.gcspy.GCspy;
 import org.mmtk.utility.heap.HeapGrowthManager;
 import org.mmtk.utility.heap.Mmapper;
 import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.GCEventTrace;
 import org.vmmagic.pragma.Entrypoint;
 import org.vmmagic.pragma.Inline;
 import org.vmmagic.pragma.Interruptible;
@@ -262,6 +263,15 @@ public final class MemoryManager {
     Selected.Plan.handleUserCollectionRequest();
   }
 
+  /**
+   * External call to write the GC event trace, if one is being recorded,
+   * to its file.
+   */
+  @Interruptible
+  public static void dumpGCEventTrace() {
+    GCEventTrace.dump();
+  }
+
   /****************************************************************************
    *
    * Check references, log information about references
@@ -238,6 +238,7 @@ public class BootRecord {
 
   // misc. info on the process -- used in startup/shutdown
   public Address sysGetenvIP;
+  public Address sysReadFileValueIP;
 
   // memory
   public Address sysCopyIP;
@@ -255,16 +256,22 @@ public class BootRecord {
   public Address sysWriteByteIP;
   public Address sysReadBytesIP;
   public Address sysWriteBytesIP;
+  public Address sysOpenOutputFileIP;
+  public Address sysCloseFileIP;
 
   // mmap - memory mapping
   public Address sysMMapIP;
   public Address sysMMapErrnoIP;
   public Address sysMProtectIP;
+  public Address sysMAdviseIP;
 
   // threads
   public Address sysNumProcessorsIP;
   public Address sysThreadBindSupportedIP;
   public Address sysThreadBindIP;
+  public Address sysNumaNodesIP;
+  public Address sysNumaCurrentNodeIP;
+  public Address sysThreadBindNodeIP;
   public Address sysThreadCreateIP;
   public Address sysThreadYieldIP;
   public Address sysGetThreadIdIP;
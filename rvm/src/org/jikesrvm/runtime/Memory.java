@@ -498,6 +498,11 @@ public class Memory {
   public static final int MAP_FIXED     = (VM.BuildForLinux) ? 16 : (VM.BuildForOsx) ?     16 : (VM.BuildForSolaris) ? 0x10 : 256;
   public static final int MAP_ANONYMOUS = (VM.BuildForLinux) ? 32 : (VM.BuildForOsx) ? 0x1000 : (VM.BuildForSolaris) ? 0x100 : 16;
 
+  /** Transparent huge page advice; only Linux understands it */
+  public static final int MADV_HUGEPAGE = (VM.BuildForLinux) ? 14 : -1;
+  /** Discard advice; only Linux guarantees the pages then read as zero */
+  public static final int MADV_DONTNEED = (VM.BuildForLinux) ? 4 : -1;
+
   public static boolean isPageMultiple(int val) {
     int pagesizeMask = getPagesize() - 1;
     return ((val & pagesizeMask) == 0);
@@ -562,6 +567,21 @@ public class Memory {
     return SysCall.sysCall.sysMProtect(address, size, prot) == 0;
   }
 
+  /**
+   * Do madvise system call
+   * @param address Start of address range (Address)
+   * @param size Size of address range
+   * @param advice Advice (int)
+   * @return true iff success
+   */
+  public static boolean madvise(Address address, Extent size, int advice) {
+    if (VM.VerifyAssertions) {
+      VM._assert(isPageAligned(address) && isPageMultiple(size));
+    }
+    if (advice < 0) return false;
+    return SysCall.sysCall.sysMAdvise(address, size, advice) == 0;
+  }
+
   private static int pagesize = UNKNOWN;
   private static int pagesizeLog = UNKNOWN;
 
@@ -79,6 +79,9 @@ public abstract class SysCall {
   @SysCallTemplate
   public abstract int sysGetenv(byte[] varName, byte[] buf, int limit);
 
+  @SysCallTemplate
+  public abstract long sysReadFileValue(byte[] path);
+
   // memory
 
   /**
@@ -151,6 +154,12 @@ public abstract class SysCall {
   @SysCallTemplate
   public abstract int sysWriteBytes(int fd, Address buf, int cnt);
 
+  @SysCallTemplate
+  public abstract int sysOpenOutputFile(byte[] path);
+
+  @SysCallTemplate
+  public abstract int sysCloseFile(int fd);
+
   // mmap - memory mapping
   @SysCallTemplate
   public abstract Address sysMMap(Address start, Extent length, int protection, int flags, int fd, Offset offset);
@@ -161,6 +170,9 @@ public abstract class SysCall {
   @SysCallTemplate
   public abstract int sysMProtect(Address start, Extent length, int prot);
 
+  @SysCallTemplate
+  public abstract int sysMAdvise(Address start, Extent length, int advice);
+
   // threads
   @SysCallTemplate
   public abstract int sysNumProcessors();
@@ -186,6 +198,15 @@ public abstract class SysCall {
   @SysCallTemplate
   public abstract void sysThreadBind(int cpuId);
 
+  @SysCallTemplate
+  public abstract int sysNumaNodes();
+
+  @SysCallTemplate
+  public abstract int sysNumaCurrentNode();
+
+  @SysCallTemplate
+  public abstract int sysThreadBindNode(int node);
+
   @SysCallTemplate
   public abstract void sysThreadYield();
 
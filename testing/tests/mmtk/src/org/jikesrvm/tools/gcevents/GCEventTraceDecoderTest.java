@@ -0,0 +1,200 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.gcevents;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jikesrvm.tools.gcevents.GCEventTraceDecoder.Event;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+import org.mmtk.harness.scheduler.Scheduler;
+import org.mmtk.plan.CollectorContext;
+import org.mmtk.plan.Phase;
+import org.mmtk.utility.options.Options;
+import org.mmtk.utility.statistics.GCEventTrace;
+
+/**
+ * Junit unit-tests for GCEventTraceDecoder: traces are written by
+ * MMTk's GCEventTrace and read back by the decoder.
+ */
+public class GCEventTraceDecoderTest {
+
+  /** The smallest legal ring, one page of entries */
+  private static final int RING_ENTRIES = 256;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+    Scheduler.setThreadModel(Scheduler.Model.DETERMINISTIC);
+    Harness.policy.setValue("FIXED");
+    Harness.yieldInterval.setValue(1);
+    /* Must call this after switching scheduler */
+    org.mmtk.harness.scheduler.Scheduler.initCollectors();
+  }
+
+  /**
+   * Run a test, ie a list of threads, all run in GC context.
+   * @param items
+   */
+  private void runTest(final CollectorContext... items) {
+    for (CollectorContext item : items) {
+      Scheduler.scheduleCollectorContext(item);
+    }
+    Scheduler.scheduleGcThreads();
+  }
+
+  /**
+   * Enable the trace, writing to a new temporary file.
+   * @return The trace file
+   */
+  private static File startTrace() {
+    File file;
+    try {
+      file = File.createTempFile("gcevents", ".trace");
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    file.deleteOnExit();
+    Options.gcEventTraceFile.setValue(file.getPath());
+    Options.gcEventTraceEntries.setValue(RING_ENTRIES);
+    GCEventTrace.initialize();
+    return file;
+  }
+
+  /**
+   * Decode a trace file.
+   * @param file The trace file
+   * @return The decoder holding the trace
+   */
+  private static GCEventTraceDecoder decode(File file) {
+    GCEventTraceDecoder decoder = new GCEventTraceDecoder();
+    try {
+      decoder.read(file.getPath());
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return decoder;
+  }
+
+  /**
+   * @param decoder A decoder holding a trace
+   * @param type An event type
+   * @param value An event value
+   * @return The events, in time order, of the ring holding the given event
+   */
+  private static List<Event> ringOf(GCEventTraceDecoder decoder, int type, int value) {
+    int ring = -1;
+    for (Event e : decoder.getEvents()) {
+      if (e.type == type && e.value == value) ring = e.ring;
+    }
+    Assert.assertTrue(ring >= 0);
+    List<Event> events = new ArrayList<Event>();
+    for (Event e : decoder.getEvents()) {
+      if (e.ring == ring) events.add(e);
+    }
+    return events;
+  }
+
+  private static void assertEvent(Event e, int type, int id, int value) {
+    Assert.assertEquals(type, e.type);
+    Assert.assertEquals(id, e.id);
+    Assert.assertEquals(value, e.value);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        File file = startTrace();
+        GCEventTrace pauses = new GCEventTrace();
+        GCEventTrace phases = new GCEventTrace();
+        pauses.add(GCEventTrace.PAUSE_BEGIN, 7, 1000);
+        phases.add(GCEventTrace.PHASE_BEGIN, 1, 0);
+        phases.add(GCEventTrace.PHASE_END, 1, 0);
+        phases.add(GCEventTrace.MOD_BUFFER, 7, 12);
+        pauses.add(GCEventTrace.PAUSE_END, 7, 900);
+        /* Only the low 24 bits of an id are kept */
+        pauses.add(GCEventTrace.DEC_BUFFER, (1 << 24) | 5, -1);
+        GCEventTrace.dump();
+
+        /* Rings from other tests are written too, so only look at our own */
+        GCEventTraceDecoder decoder = decode(file);
+        List<Event> pauseEvents = ringOf(decoder, GCEventTrace.PAUSE_BEGIN, 1000);
+        Assert.assertEquals(3, pauseEvents.size());
+        assertEvent(pauseEvents.get(0), GCEventTrace.PAUSE_BEGIN, 7, 1000);
+        assertEvent(pauseEvents.get(1), GCEventTrace.PAUSE_END, 7, 900);
+        assertEvent(pauseEvents.get(2), GCEventTrace.DEC_BUFFER, 5, -1);
+
+        List<Event> phaseEvents = ringOf(decoder, GCEventTrace.MOD_BUFFER, 12);
+        Assert.assertEquals(3, phaseEvents.size());
+        assertEvent(phaseEvents.get(0), GCEventTrace.PHASE_BEGIN, 1, 0);
+        assertEvent(phaseEvents.get(1), GCEventTrace.PHASE_END, 1, 0);
+        assertEvent(phaseEvents.get(2), GCEventTrace.MOD_BUFFER, 7, 12);
+
+        /* Events are in time order */
+        long last = Long.MIN_VALUE;
+        for (Event e : decoder.getEvents()) {
+          Assert.assertTrue(e.time >= last);
+          last = e.time;
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testPhaseNames() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        File file = startTrace();
+        GCEventTrace.dump();
+
+        GCEventTraceDecoder decoder = decode(file);
+        for (short p = 1; p < Phase.getPhaseCount(); p++) {
+          Assert.assertEquals(Phase.getName(p), decoder.getPhaseName(p));
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testOverwrite() {
+    final int EXTRA = 44;
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        File file = startTrace();
+        GCEventTrace ring = new GCEventTrace();
+        for (int i = 0; i < RING_ENTRIES + EXTRA; i++) {
+          ring.add(GCEventTrace.MOD_BUFFER, 0, i);
+        }
+        GCEventTrace.dump();
+
+        GCEventTraceDecoder decoder = decode(file);
+        Assert.assertTrue(decoder.getDropped() >= EXTRA);
+        /* The oldest entries are lost, and the rest are read oldest first */
+        List<Event> events = ringOf(decoder, GCEventTrace.MOD_BUFFER, EXTRA);
+        Assert.assertEquals(RING_ENTRIES, events.size());
+        for (int i = 0; i < RING_ENTRIES; i++) {
+          assertEvent(events.get(i), GCEventTrace.MOD_BUFFER, 0, EXTRA + i);
+        }
+      }
+    });
+  }
+}
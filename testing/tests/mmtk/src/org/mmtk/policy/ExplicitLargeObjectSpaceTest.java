@@ -0,0 +1,84 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy;
+
+import static org.mmtk.policy.ExplicitLargeObjectSpace.BLOCK_HEADER_BYTES;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.MAX_MEDIUM_BYTES;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.MEDIUM_SIZE_CLASSES;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.MIN_CELLS_IN_BLOCK;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.NODE_OFFSET;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.blockPages;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.cellSize;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.cellsInBlock;
+import static org.mmtk.policy.ExplicitLargeObjectSpace.getSizeClass;
+import static org.mmtk.utility.Constants.BYTES_IN_PAGE;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+
+/**
+ * Junit unit-tests for the medium object size classes of
+ * ExplicitLargeObjectSpace.
+ */
+public class ExplicitLargeObjectSpaceTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+  }
+
+  @Test
+  public void testSizeClassIsSmallestFit() {
+    for (int bytes = BYTES_IN_PAGE + 1; bytes <= MAX_MEDIUM_BYTES; bytes++) {
+      int sc = getSizeClass(bytes);
+      Assert.assertTrue(sc >= 0 && sc < MEDIUM_SIZE_CLASSES);
+      Assert.assertTrue(cellSize[sc] >= bytes);
+      Assert.assertTrue(sc == 0 || cellSize[sc - 1] < bytes);
+    }
+  }
+
+  @Test
+  public void testSizeClassBoundaries() {
+    Assert.assertEquals(0, getSizeClass(BYTES_IN_PAGE + 1));
+    Assert.assertEquals(MEDIUM_SIZE_CLASSES - 1, getSizeClass(MAX_MEDIUM_BYTES));
+    /* Each class is the smallest for its own size */
+    for (int sc = 0; sc < MEDIUM_SIZE_CLASSES; sc++) {
+      Assert.assertEquals(sc, getSizeClass(cellSize[sc]));
+    }
+  }
+
+  @Test
+  public void testCellSizes() {
+    Assert.assertTrue(cellSize[0] > BYTES_IN_PAGE);
+    Assert.assertEquals(MAX_MEDIUM_BYTES, cellSize[MEDIUM_SIZE_CLASSES - 1]);
+    for (int sc = 0; sc < MEDIUM_SIZE_CLASSES; sc++) {
+      Assert.assertEquals(0, cellSize[sc] & (NODE_OFFSET - 1));
+      if (sc > 0) Assert.assertTrue(cellSize[sc] > cellSize[sc - 1]);
+    }
+  }
+
+  @Test
+  public void testBlockGeometry() {
+    for (int sc = 0; sc < MEDIUM_SIZE_CLASSES; sc++) {
+      int blockBytes = blockPages[sc] * BYTES_IN_PAGE;
+      Assert.assertTrue(cellsInBlock[sc] >= MIN_CELLS_IN_BLOCK);
+      /* The cells fill the block after its header, with no room for one more */
+      Assert.assertTrue(BLOCK_HEADER_BYTES + cellsInBlock[sc] * cellSize[sc] <= blockBytes);
+      Assert.assertTrue(BLOCK_HEADER_BYTES + (cellsInBlock[sc] + 1) * cellSize[sc] > blockBytes);
+      /* The block is no larger than the minimum number of cells needs */
+      Assert.assertTrue(BLOCK_HEADER_BYTES + MIN_CELLS_IN_BLOCK * cellSize[sc] > blockBytes - BYTES_IN_PAGE);
+    }
+  }
+}
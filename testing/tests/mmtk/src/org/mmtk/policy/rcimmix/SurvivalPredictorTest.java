@@ -0,0 +1,243 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.policy.rcimmix;
+
+import static org.mmtk.policy.rcimmix.RCImmixConstants.BYTES_IN_LINE;
+import static org.mmtk.policy.rcimmix.SurvivalPredictor.MAX_WINDOW;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+
+/**
+ * Junit unit-tests for the survival predictors.
+ */
+public class SurvivalPredictorTest {
+
+  private static final double EPSILON = 1e-9;
+
+  private static final double[] NO_SURVIVORS = { 0, 0, 0 };
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+  }
+
+  /**
+   * Feed a predictor a line survival rate.
+   * @param p The predictor
+   * @param rate The line survival rate
+   */
+  private static void update(SurvivalPredictor p, double rate) {
+    p.update(rate, NO_SURVIVORS, 0);
+  }
+
+  /**
+   * Feed a predictor the survivor bytes in each size class.
+   * @param p The predictor
+   * @param small Sub-line survivor bytes
+   * @param line Line-sized survivor bytes
+   * @param large Multi-line survivor bytes
+   * @param young The young bytes
+   */
+  private static void update(SurvivalPredictor p, double small, double line, double large, double young) {
+    p.update(0, new double[] { small, line, large }, young);
+  }
+
+  @Test
+  public void testSizeClass() {
+    Assert.assertEquals(0, SurvivalPredictor.sizeClass(8));
+    Assert.assertEquals(0, SurvivalPredictor.sizeClass(BYTES_IN_LINE >> 2));
+    Assert.assertEquals(1, SurvivalPredictor.sizeClass((BYTES_IN_LINE >> 2) + 1));
+    Assert.assertEquals(1, SurvivalPredictor.sizeClass(BYTES_IN_LINE));
+    Assert.assertEquals(2, SurvivalPredictor.sizeClass(BYTES_IN_LINE + 1));
+  }
+
+  /**********************************************************************
+   * EWMA
+   */
+
+  @Test
+  public void testEWMAPrimedByFirstSample() {
+    SurvivalPredictor p = new EWMASurvivalPredictor();
+    p.setWindow(4);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+    update(p, 0.3);
+    Assert.assertEquals(0.3, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testEWMAWeight() {
+    SurvivalPredictor p = new EWMASurvivalPredictor();
+    p.setWindow(4);
+    update(p, 0.5);
+    /* alpha = 2 / (4 + 1) */
+    update(p, 0.0);
+    Assert.assertEquals(0.3, p.predict(), EPSILON);
+    update(p, 1.0);
+    Assert.assertEquals(0.4 + 0.6 * 0.3, p.predict(), EPSILON);
+
+    /* A window of one follows the last sample */
+    p.setWindow(1);
+    update(p, 0.7);
+    update(p, 0.2);
+    Assert.assertEquals(0.2, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testEWMAConverges() {
+    SurvivalPredictor p = new EWMASurvivalPredictor();
+    p.setWindow(MAX_WINDOW);
+    update(p, 1.0);
+    for (int i = 0; i < 2000; i++) {
+      update(p, 0.25);
+    }
+    Assert.assertEquals(0.25, p.predict(), 1e-6);
+  }
+
+  @Test
+  public void testEWMASetWindowDiscardsHistory() {
+    SurvivalPredictor p = new EWMASurvivalPredictor();
+    p.setWindow(8);
+    update(p, 0.9);
+    update(p, 0.9);
+    p.setWindow(2);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+    update(p, 0.1);
+    Assert.assertEquals(0.1, p.predict(), EPSILON);
+  }
+
+  /**********************************************************************
+   * Max over a window
+   */
+
+  @Test
+  public void testMaxWindow() {
+    SurvivalPredictor p = new MaxWindowSurvivalPredictor();
+    p.setWindow(3);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+    update(p, 0.5);
+    update(p, 0.2);
+    update(p, 0.1);
+    Assert.assertEquals(0.5, p.predict(), EPSILON);
+    /* The window wraps, and the peak falls out of it */
+    update(p, 0.15);
+    Assert.assertEquals(0.2, p.predict(), EPSILON);
+    update(p, 0.05);
+    Assert.assertEquals(0.15, p.predict(), EPSILON);
+    update(p, 0.05);
+    Assert.assertEquals(0.15, p.predict(), EPSILON);
+    update(p, 0.05);
+    Assert.assertEquals(0.05, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testMaxWindowFullLength() {
+    SurvivalPredictor p = new MaxWindowSurvivalPredictor();
+    p.setWindow(MAX_WINDOW);
+    update(p, 0.8);
+    for (int i = 1; i < MAX_WINDOW; i++) {
+      update(p, 0.1);
+      Assert.assertEquals(0.8, p.predict(), EPSILON);
+    }
+    update(p, 0.1);
+    Assert.assertEquals(0.1, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testMaxWindowShrink() {
+    SurvivalPredictor p = new MaxWindowSurvivalPredictor();
+    p.setWindow(8);
+    for (int i = 0; i < 7; i++) {
+      update(p, 0.9);
+    }
+    /* Shrinking below the next slot must neither keep the old peak nor index past the window */
+    p.setWindow(2);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+    update(p, 0.3);
+    update(p, 0.2);
+    update(p, 0.1);
+    Assert.assertEquals(0.2, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testMaxWindowGrow() {
+    SurvivalPredictor p = new MaxWindowSurvivalPredictor();
+    p.setWindow(2);
+    update(p, 0.9);
+    update(p, 0.1);
+    update(p, 0.1);
+    /* The peak has left the window of two; growing the window must not bring it back */
+    Assert.assertEquals(0.1, p.predict(), EPSILON);
+    p.setWindow(8);
+    update(p, 0.2);
+    Assert.assertEquals(0.2, p.predict(), EPSILON);
+  }
+
+  /**********************************************************************
+   * Size classes
+   */
+
+  @Test
+  public void testSizeClassSumsClassPeaks() {
+    SurvivalPredictor p = new SizeClassSurvivalPredictor();
+    p.setWindow(2);
+    update(p, 10, 0, 0, 100);
+    update(p, 0, 20, 5, 100);
+    Assert.assertEquals(0.1 + 0.2 + 0.05, p.predict(), EPSILON);
+    /* The first collection leaves the window */
+    update(p, 0, 0, 0, 100);
+    Assert.assertEquals(0.2 + 0.05, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testSizeClassIgnoresLineSurvival() {
+    SurvivalPredictor p = new SizeClassSurvivalPredictor();
+    p.setWindow(4);
+    p.update(0.9, new double[] { 5, 0, 0 }, 100);
+    Assert.assertEquals(0.05, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testSizeClassNoYoungBytes() {
+    SurvivalPredictor p = new SizeClassSurvivalPredictor();
+    p.setWindow(4);
+    update(p, 10, 10, 10, 0);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testSizeClassClamped() {
+    SurvivalPredictor p = new SizeClassSurvivalPredictor();
+    p.setWindow(2);
+    update(p, 80, 0, 0, 100);
+    update(p, 0, 80, 0, 100);
+    Assert.assertEquals(1.0, p.predict(), EPSILON);
+  }
+
+  @Test
+  public void testSizeClassSetWindowDiscardsHistory() {
+    SurvivalPredictor p = new SizeClassSurvivalPredictor();
+    p.setWindow(8);
+    for (int i = 0; i < 7; i++) {
+      update(p, 50, 0, 0, 100);
+    }
+    p.setWindow(2);
+    Assert.assertEquals(0, p.predict(), EPSILON);
+    update(p, 0, 10, 0, 100);
+    update(p, 0, 0, 10, 100);
+    update(p, 0, 0, 20, 100);
+    Assert.assertEquals(0.2, p.predict(), EPSILON);
+  }
+}
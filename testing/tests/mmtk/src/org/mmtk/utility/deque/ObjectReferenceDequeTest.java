@@ -276,6 +276,36 @@ public class ObjectReferenceDequeTest {
     });
   }
 
+  @Test
+  public void testNoWait() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        SharedDeque shared = new SharedDeque("shared",Plan.metaDataSpace,1);
+        ObjectReferenceDeque deque1 = new ObjectReferenceDeque("deque1",shared);
+        ObjectReferenceDeque deque2 = new ObjectReferenceDeque("deque2",shared);
+
+        shared.prepareNonBlocking();
+        Assert.assertFalse(deque1.isNonEmptyNoWait());
+        deque1.push(o(1));
+        Assert.assertTrue(deque1.isNonEmptyNoWait());
+        Assert.assertEquals(deque1.pop(),o(1));
+        Assert.assertFalse(deque1.isNonEmptyNoWait());
+        /* Entries in the tail, and in the shared deque */
+        deque1.insert(o(2));
+        Assert.assertTrue(deque1.isNonEmptyNoWait());
+        Assert.assertEquals(deque1.pop(),o(2));
+        deque2.push(o(3));
+        deque2.flushLocal();
+        Assert.assertTrue(deque1.isNonEmptyNoWait());
+        Assert.assertEquals(deque1.pop(),o(3));
+        Assert.assertFalse(deque1.isNonEmptyNoWait());
+        Assert.assertTrue(deque1.isEmpty());
+        Assert.assertTrue(deque2.isEmpty());
+      }
+    });
+  }
+
   /**********************************************************************/
 
   int counter = 0;
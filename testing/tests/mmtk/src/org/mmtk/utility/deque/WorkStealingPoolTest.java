@@ -0,0 +1,264 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.deque;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.Assert;
+import org.mmtk.harness.Harness;
+import org.mmtk.harness.scheduler.Scheduler;
+import org.mmtk.plan.CollectorContext;
+import org.mmtk.plan.Plan;
+import org.mmtk.vm.VM;
+import org.vmmagic.unboxed.Address;
+import org.vmmagic.unboxed.ObjectReference;
+
+/**
+ * Junit unit-tests for WorkStealingPool.
+ */
+public class WorkStealingPoolTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+    Scheduler.setThreadModel(Scheduler.Model.DETERMINISTIC);
+    Harness.policy.setValue("FIXED");
+    Harness.yieldInterval.setValue(1);
+    /* Must call this after switching scheduler */
+    org.mmtk.harness.scheduler.Scheduler.initCollectors();
+  }
+
+  /**
+   * Helper method to create object references
+   * @param val
+   * @return
+   */
+  private static ObjectReference o(int val) {
+    return Address.fromIntSignExtend(val).toObjectReference();
+  }
+
+  /**
+   * Run a test, ie a list of threads, all run in GC context.
+   * @param items
+   */
+  private void runTest(final CollectorContext... items) {
+    for (CollectorContext item : items) {
+      Scheduler.scheduleCollectorContext(item);
+    }
+    Scheduler.scheduleGcThreads();
+  }
+
+  @Test
+  public void testAwaitWorkTerminates() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        WorkStealingPool pool = new WorkStealingPool("pool",Plan.metaDataSpace,1);
+        SharedDeque injection = new SharedDeque("injection",Plan.metaDataSpace,1);
+        SharedDeque stripe = pool.newStripe();
+        injection.prepareNonBlocking();
+
+        pool.join();
+        Assert.assertFalse(pool.awaitWork(stripe, injection));
+        Assert.assertEquals(0, pool.enqueuedPages());
+      }
+    });
+  }
+
+  @Test
+  public void testAwaitWorkFromInjection() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        WorkStealingPool pool = new WorkStealingPool("pool",Plan.metaDataSpace,1);
+        SharedDeque injection = new SharedDeque("injection",Plan.metaDataSpace,1);
+        SharedDeque stripe = pool.newStripe();
+        ObjectReferenceDeque external = new ObjectReferenceDeque("external",injection);
+        ObjectReferenceDeque in = new ObjectReferenceDeque("in",injection);
+        injection.prepareNonBlocking();
+
+        external.push(o(1));
+        external.flushLocal();
+        pool.join();
+        Assert.assertTrue(pool.awaitWork(stripe, injection));
+        Assert.assertEquals(o(1), in.pop());
+        Assert.assertTrue(in.isEmpty());
+        Assert.assertFalse(pool.awaitWork(stripe, injection));
+        injection.reset();
+      }
+    });
+  }
+
+  @Test
+  public void testSteal() {
+    final int ENTRIES = 1500; // Page and a half
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        WorkStealingPool pool = new WorkStealingPool("pool",Plan.metaDataSpace,1);
+        SharedDeque injection = new SharedDeque("injection",Plan.metaDataSpace,1);
+        SharedDeque victimStripe = pool.newStripe();
+        SharedDeque thiefStripe = pool.newStripe();
+        ObjectReferenceDeque victim = new ObjectReferenceDeque("victim",victimStripe);
+        ObjectReferenceDeque thief = new ObjectReferenceDeque("thief",thiefStripe);
+        injection.prepareNonBlocking();
+
+        for (int i = 0; i < ENTRIES; i++) {
+          victim.push(o(i + 1));
+        }
+        victim.flushLocal();
+        Assert.assertTrue(pool.enqueuedPages() > 1);
+
+        pool.join();
+        Assert.assertTrue(thief.isEmpty());
+        int stolen = 0;
+        do {
+          while (!thief.pop().isNull()) {
+            stolen++;
+          }
+        } while (pool.awaitWork(thiefStripe, injection));
+        Assert.assertEquals(ENTRIES, stolen);
+        Assert.assertTrue(victim.isEmpty());
+        Assert.assertEquals(0, pool.enqueuedPages());
+      }
+    });
+  }
+
+  @Test
+  public void testLeave() {
+    runTest(new CollectorContext() {
+      @Override
+      public void run() {
+        WorkStealingPool pool = new WorkStealingPool("pool",Plan.metaDataSpace,1);
+        SharedDeque injection = new SharedDeque("injection",Plan.metaDataSpace,1);
+        SharedDeque leaverStripe = pool.newStripe();
+        SharedDeque stayerStripe = pool.newStripe();
+        ObjectReferenceDeque leaver = new ObjectReferenceDeque("leaver",leaverStripe);
+        ObjectReferenceDeque stayer = new ObjectReferenceDeque("stayer",stayerStripe);
+        injection.prepareNonBlocking();
+
+        pool.join();
+        pool.join();
+        /* One worker gives up part way, leaving its work behind */
+        leaver.push(o(1));
+        leaver.push(o(2));
+        leaver.flushLocal();
+        pool.leave();
+
+        /* The other finds the work, and still terminates once it is done */
+        Assert.assertTrue(stayer.isEmpty());
+        Assert.assertTrue(pool.awaitWork(stayerStripe, injection));
+        Assert.assertEquals(o(2), stayer.pop());
+        Assert.assertEquals(o(1), stayer.pop());
+        Assert.assertTrue(stayer.pop().isNull());
+        Assert.assertFalse(pool.awaitWork(stayerStripe, injection));
+        Assert.assertEquals(0, pool.enqueuedPages());
+      }
+    });
+  }
+
+  /**********************************************************************/
+
+  private int joined = 0;
+  private int leavesProcessed = 0;
+  private int workersWithWork = 0;
+
+  /**
+   * A worker of a family of <code>n</code> that all join the pool before
+   * any starts work.  Worker 0 seeds its stripe with entries; each entry
+   * greater than one splits into two that add up to it, so the work grows
+   * as it is processed and can only be shared out by stealing.
+   */
+  private class SplitWorker extends CollectorContext {
+
+    private final WorkStealingPool pool;
+    private final SharedDeque injection;
+    private final SharedDeque stripe;
+    private final ObjectReferenceDeque deque;
+    private final int n;
+    private final int ordinal;
+    private final int seeds;
+    private final int seedValue;
+
+    SplitWorker(WorkStealingPool pool, SharedDeque injection, int n, int ordinal, int seeds, int seedValue) {
+      this.pool = pool;
+      this.injection = injection;
+      this.stripe = pool.newStripe();
+      this.deque = new ObjectReferenceDeque("worker" + ordinal, stripe);
+      this.n = n;
+      this.ordinal = ordinal;
+      this.seeds = seeds;
+      this.seedValue = seedValue;
+    }
+
+    @Override
+    public void run() {
+      pool.join();
+      synchronized (pool) {
+        joined++;
+      }
+      while (true) {
+        synchronized (pool) {
+          if (joined == n) break;
+        }
+        VM.memory.isync();
+      }
+      if (ordinal == 0) {
+        for (int i = 0; i < seeds; i++) {
+          deque.push(o(seedValue));
+        }
+        deque.flushLocal();
+      }
+      int leaves = 0;
+      do {
+        ObjectReference current;
+        while (!(current = deque.pop()).isNull()) {
+          /* Give the other workers a chance to steal */
+          VM.memory.isync();
+          int value = current.toAddress().toInt();
+          if (value == 1) {
+            leaves++;
+          } else {
+            deque.push(o(value / 2));
+            deque.push(o(value - value / 2));
+          }
+        }
+      } while (pool.awaitWork(stripe, injection));
+      synchronized (pool) {
+        leavesProcessed += leaves;
+        if (leaves > 0) workersWithWork++;
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentSteal() {
+    final WorkStealingPool pool = new WorkStealingPool("pool",Plan.metaDataSpace,1);
+    final SharedDeque injection = new SharedDeque("injection",Plan.metaDataSpace,1);
+    injection.prepareNonBlocking();
+    final int N = 4;
+    final int SEEDS = 4000;
+    final int SEED_VALUE = 8;
+    joined = 0;
+    leavesProcessed = 0;
+    workersWithWork = 0;
+    runTest(
+        new SplitWorker(pool,injection,N,0,SEEDS,SEED_VALUE),
+        new SplitWorker(pool,injection,N,1,SEEDS,SEED_VALUE),
+        new SplitWorker(pool,injection,N,2,SEEDS,SEED_VALUE),
+        new SplitWorker(pool,injection,N,3,SEEDS,SEED_VALUE));
+    Assert.assertEquals(SEEDS * SEED_VALUE, leavesProcessed);
+    Assert.assertTrue(workersWithWork > 1);
+    Assert.assertEquals(0, pool.enqueuedPages());
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+import org.mmtk.utility.options.Options;
+import org.vmmagic.unboxed.Extent;
+
+/**
+ * Junit unit-tests for the heap growth policies.
+ */
+public class HeapGrowthPolicyTest {
+
+  private static final double EPSILON = 1e-9;
+
+  /** The GC overhead target, in percent */
+  private static final int TARGET = 10;
+  private static final double LOAD = TARGET / 100.0;
+
+  /** The current heap size; can only be created once the harness is up */
+  private static Extent HEAP;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+    Options.gcOverheadTarget.setValue(TARGET);
+    HEAP = Extent.fromIntZeroExtend(1 << 20);
+  }
+
+  /**
+   * Write a memory limit file.
+   * @param contents The contents of the file
+   * @return The name of the file
+   */
+  private static String limitFile(String contents) {
+    try {
+      File file = File.createTempFile("memory", ".max");
+      file.deleteOnExit();
+      FileWriter writer = new FileWriter(file);
+      try {
+        writer.write(contents);
+      } finally {
+        writer.close();
+      }
+      return file.getPath();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**********************************************************************
+   * GC overhead
+   */
+
+  @Test
+  public void testOverheadOnTarget() {
+    HeapGrowthPolicy p = new GCOverheadHeapGrowthPolicy();
+    Assert.assertEquals(1.0, p.computeHeapChangeRatio(0.5, LOAD, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testOverheadProportional() {
+    HeapGrowthPolicy p = new GCOverheadHeapGrowthPolicy();
+    /* Half the relative error */
+    Assert.assertEquals(1.5, p.computeHeapChangeRatio(0.5, 2 * LOAD, HEAP), EPSILON);
+    Assert.assertEquals(1.1, p.computeHeapChangeRatio(0.1, 1.2 * LOAD, HEAP), EPSILON);
+    Assert.assertEquals(0.9, p.computeHeapChangeRatio(0.1, 0.8 * LOAD, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testOverheadClamped() {
+    HeapGrowthPolicy p = new GCOverheadHeapGrowthPolicy();
+    Assert.assertEquals(2.0, p.computeHeapChangeRatio(0.5, 3 * LOAD, HEAP), EPSILON);
+    Assert.assertEquals(2.0, p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+    Assert.assertEquals(0.8, p.computeHeapChangeRatio(0.1, 0.6 * LOAD, HEAP), EPSILON);
+    Assert.assertEquals(0.8, p.computeHeapChangeRatio(0.1, 0, HEAP), EPSILON);
+    for (double load = 0; load <= 1.0; load += 0.01) {
+      for (double live = 0; live <= 1.0; live += 0.05) {
+        double factor = p.computeHeapChangeRatio(live, load, HEAP);
+        Assert.assertTrue(factor >= 0.8 && factor <= 2.0);
+      }
+    }
+  }
+
+  @Test
+  public void testOverheadHeadroom() {
+    HeapGrowthPolicy p = new GCOverheadHeapGrowthPolicy();
+    /* Shrinking stops at 1.25 times the reserved memory */
+    Assert.assertEquals(0.875, p.computeHeapChangeRatio(0.7, 0, HEAP), EPSILON);
+    Assert.assertEquals(0.95, p.computeHeapChangeRatio(0.72, 0.9 * LOAD, HEAP), EPSILON);
+    /* ... but a heap that is already too full is not grown by the floor alone */
+    Assert.assertEquals(1.0, p.computeHeapChangeRatio(0.9, 0, HEAP), EPSILON);
+    /* The floor never limits growth */
+    Assert.assertEquals(1.5, p.computeHeapChangeRatio(0.9, 2 * LOAD, HEAP), EPSILON);
+  }
+
+  /**********************************************************************
+   * Memory pressure
+   */
+
+  @Test
+  public void testPressureCapped() {
+    MemoryPressureHeapGrowthPolicy p = new MemoryPressureHeapGrowthPolicy();
+    /* A limit of twice the heap caps it at 1.5 times */
+    p.setLimitFile(limitFile(Long.toString(2L * HEAP.toLong()) + "\n"));
+    Assert.assertEquals(1.5, p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+    Assert.assertEquals(1.0, p.computeHeapChangeRatio(0.5, LOAD, HEAP), EPSILON);
+    /* A limit below the heap shrinks it past the overhead controller's bounds */
+    p.setLimitFile(limitFile(Long.toString(HEAP.toLong())));
+    Assert.assertEquals(0.75, p.computeHeapChangeRatio(0.5, LOAD, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testPressureUnderLimit() {
+    MemoryPressureHeapGrowthPolicy p = new MemoryPressureHeapGrowthPolicy();
+    p.setLimitFile(limitFile(Long.toString(4L * HEAP.toLong())));
+    Assert.assertEquals(2.0, p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testPressureUnlimited() {
+    MemoryPressureHeapGrowthPolicy p = new MemoryPressureHeapGrowthPolicy();
+    HeapGrowthPolicy overhead = new GCOverheadHeapGrowthPolicy();
+    /* An unlimited cgroup v2 ("max"), a file that cannot be read, and no file at all */
+    p.setLimitFile(limitFile("max\n"));
+    Assert.assertEquals(overhead.computeHeapChangeRatio(0.5, 1.0, HEAP), p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+    p.setLimitFile(new File(limitFile(""), "missing").getPath());
+    Assert.assertEquals(overhead.computeHeapChangeRatio(0.5, 1.0, HEAP), p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+    p = new MemoryPressureHeapGrowthPolicy();
+    Assert.assertEquals(overhead.computeHeapChangeRatio(0.5, 1.0, HEAP), p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testPressureFollowsLimit() {
+    MemoryPressureHeapGrowthPolicy p = new MemoryPressureHeapGrowthPolicy();
+    String file = limitFile(Long.toString(4L * HEAP.toLong()));
+    p.setLimitFile(file);
+    Assert.assertEquals(2.0, p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+    /* The container is resized */
+    try {
+      FileWriter writer = new FileWriter(file);
+      writer.write(Long.toString(2L * HEAP.toLong()));
+      writer.close();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    Assert.assertEquals(1.5, p.computeHeapChangeRatio(0.5, 1.0, HEAP), EPSILON);
+  }
+
+  /**********************************************************************
+   * Table
+   */
+
+  @Test
+  public void testTableSane() {
+    new TableHeapGrowthPolicy().sanityCheck();
+  }
+
+  @Test
+  public void testTableCorners() {
+    HeapGrowthPolicy p = new TableHeapGrowthPolicy();
+    Assert.assertEquals(0.90, p.computeHeapChangeRatio(0, 0, HEAP), EPSILON);
+    Assert.assertEquals(1.00, p.computeHeapChangeRatio(1.0, 0, HEAP), EPSILON);
+    Assert.assertEquals(1.00, p.computeHeapChangeRatio(0, 1.0, HEAP), EPSILON);
+    Assert.assertEquals(1.50, p.computeHeapChangeRatio(1.0, 1.0, HEAP), EPSILON);
+    /* Values past the table are treated as its edge */
+    Assert.assertEquals(1.50, p.computeHeapChangeRatio(1.5, 2.0, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testTableInterpolates() {
+    HeapGrowthPolicy p = new TableHeapGrowthPolicy();
+    /* Half way between live ratios 0.30 and 0.60 with no GC load */
+    Assert.assertEquals(0.975, p.computeHeapChangeRatio(0.45, 0, HEAP), EPSILON);
+    /* On a grid point */
+    Assert.assertEquals(0.95, p.computeHeapChangeRatio(0.30, 0, HEAP), EPSILON);
+  }
+
+  @Test
+  public void testTableKeepsHeadroom() {
+    HeapGrowthPolicy p = new TableHeapGrowthPolicy();
+    for (double load = 0; load <= 1.0; load += 0.01) {
+      for (double live = 0.1; live <= 1.0; live += 0.05) {
+        double factor = p.computeHeapChangeRatio(live, load, HEAP);
+        Assert.assertTrue(factor >= 0.9 && factor <= 1.5);
+        Assert.assertTrue(factor >= 1 || factor > live);
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.heap;
+
+import static org.mmtk.utility.Constants.BYTES_IN_PAGE;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+import org.mmtk.plan.Plan;
+import org.vmmagic.unboxed.Address;
+
+/**
+ * Junit unit-tests for PageCache, refilled from page resources of each
+ * kind.  The resources are private to each test and draw their chunks
+ * on behalf of the sanity space, which is otherwise unused.
+ */
+public class PageCacheTest {
+
+  private static final int RUN_PAGES = 8;
+  private static final int RUNS = 4;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+  }
+
+  /**
+   * Refill a cache as Space.acquire does.
+   * @return The number of runs added
+   */
+  private static int refill(PageResource pr, PageCache cache, int runs) {
+    int reserved = pr.reservePages(RUN_PAGES * runs);
+    int added = pr.getNewPageRuns(reserved, RUN_PAGES, runs, false, cache);
+    Assert.assertEquals(0, pr.reservedPages() - pr.committedPages());
+    return added;
+  }
+
+  @Test
+  public void testFreeListRefillAndFlush() {
+    PageResource pr = new FreeListPageResource(Plan.sanitySpace, 0);
+    PageCache cache = pr.newPageCache(RUN_PAGES);
+    Assert.assertTrue(cache.take().isZero());
+
+    Assert.assertEquals(RUNS, refill(pr, cache, RUNS));
+    Assert.assertEquals(RUNS * RUN_PAGES, pr.committedPages());
+    Address first = cache.take();
+    Address second = cache.take();
+    Assert.assertFalse(first.isZero() || second.isZero());
+    Assert.assertTrue(first.NE(second));
+    Assert.assertEquals(0, first.toWord().toInt() & (BYTES_IN_PAGE - 1));
+
+    /* The runs not taken go back to the resource */
+    cache.flush();
+    Assert.assertTrue(cache.take().isZero());
+    Assert.assertEquals(2 * RUN_PAGES, pr.committedPages());
+
+    /* A run is released on its own, as if its block were swept */
+    ((FreeListPageResource) pr).releasePages(first);
+    Assert.assertEquals(RUN_PAGES, pr.committedPages());
+  }
+
+  @Test
+  public void testMonotoneRunsAreContiguous() {
+    PageResource pr = new MonotonePageResource(Plan.sanitySpace, 0);
+    PageCache cache = pr.newPageCache(RUN_PAGES);
+    Assert.assertEquals(RUNS, refill(pr, cache, RUNS));
+    Address run = cache.take();
+    for (int i = 1; i < RUNS; i++) {
+      Address next = cache.take();
+      Assert.assertTrue(next.EQ(run.plus(RUN_PAGES * BYTES_IN_PAGE)));
+      run = next;
+    }
+    Assert.assertTrue(cache.take().isZero());
+  }
+
+  @Test
+  public void testMonotoneFlushKeepsRunsUntilReset() {
+    PageResource pr = new MonotonePageResource(Plan.sanitySpace, 0);
+    PageCache cache = pr.newPageCache(RUN_PAGES);
+    refill(pr, cache, RUNS);
+    Address first = cache.take();
+
+    /* A monotone resource cannot take single runs back */
+    cache.flush();
+    Assert.assertEquals(RUNS * RUN_PAGES, pr.committedPages());
+    Assert.assertTrue(cache.take().EQ(first.plus(RUN_PAGES * BYTES_IN_PAGE)));
+
+    /* Once every page has been released the remaining runs are stale */
+    ((MonotonePageResource) pr).reset();
+    Assert.assertTrue(cache.take().isZero());
+    Assert.assertEquals(RUNS, refill(pr, cache, RUNS));
+    Assert.assertFalse(cache.take().isZero());
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.mmtk.utility.statistics;
+
+import static org.mmtk.utility.statistics.Histogram.BUCKETS;
+import static org.mmtk.utility.statistics.Histogram.MAX_LOG_VALUE;
+import static org.mmtk.utility.statistics.Histogram.SUB_BUCKETS;
+import static org.mmtk.utility.statistics.Histogram.bucketOf;
+import static org.mmtk.utility.statistics.Histogram.highestValueIn;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mmtk.harness.Harness;
+
+/**
+ * Junit unit-tests for Histogram.
+ */
+public class HistogramTest {
+
+  private static final double[] PERCENTILES = { 0, 1, 10, 50, 90, 99, 99.9, 100 };
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Harness.initOnce();
+    /* Histograms only record while statistics are gathered */
+    Stats.gatheringStats = true;
+  }
+
+  @Test
+  public void testExactBuckets() {
+    for (int v = 0; v < 2 * SUB_BUCKETS; v++) {
+      Assert.assertEquals(v, bucketOf(v));
+      Assert.assertEquals(v, highestValueIn(v));
+    }
+    /* The first split power of two follows straight on */
+    Assert.assertEquals(2 * SUB_BUCKETS, bucketOf(2 * SUB_BUCKETS));
+    Assert.assertEquals(2 * SUB_BUCKETS, bucketOf(2 * SUB_BUCKETS + 1));
+    Assert.assertEquals(2 * SUB_BUCKETS + 1, bucketOf(2 * SUB_BUCKETS + 2));
+    Assert.assertEquals(2 * SUB_BUCKETS + 1, highestValueIn(2 * SUB_BUCKETS));
+  }
+
+  @Test
+  public void testBucketsAreContiguous() {
+    for (int b = 0; b < BUCKETS - 1; b++) {
+      long highest = highestValueIn(b);
+      Assert.assertEquals(b, bucketOf(highest));
+      Assert.assertEquals(b + 1, bucketOf(highest + 1));
+    }
+    Assert.assertEquals((1L << (MAX_LOG_VALUE + 1)) - 1, highestValueIn(BUCKETS - 1));
+  }
+
+  @Test
+  public void testPrecision() {
+    Random random = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      long v = random.nextLong() >>> (64 - 1 - random.nextInt(MAX_LOG_VALUE + 1));
+      long highest = highestValueIn(bucketOf(v));
+      Assert.assertTrue(highest >= v);
+      Assert.assertTrue(highest - v <= v / SUB_BUCKETS);
+    }
+  }
+
+  @Test
+  public void testClamp() {
+    Assert.assertEquals(BUCKETS - 1, bucketOf((1L << (MAX_LOG_VALUE + 1)) - 1));
+    Assert.assertEquals(BUCKETS - 1, bucketOf(1L << (MAX_LOG_VALUE + 1)));
+    Assert.assertEquals(BUCKETS - 1, bucketOf(Long.MAX_VALUE));
+
+    /* A clamped value is still reported exactly as the maximum */
+    Histogram h = new Histogram("clamp");
+    long huge = 1L << 50;
+    h.record(1);
+    h.record(huge);
+    Assert.assertEquals(1, h.getValueAtPercentile(50));
+    Assert.assertEquals(huge, h.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testEmpty() {
+    Histogram h = new Histogram("empty");
+    Assert.assertEquals(0, h.getCount());
+    Assert.assertEquals(0, h.getValueAtPercentile(50));
+  }
+
+  @Test
+  public void testNegativeIgnored() {
+    Histogram h = new Histogram("negative");
+    h.record(-1);
+    Assert.assertEquals(0, h.getCount());
+  }
+
+  @Test
+  public void testRankRounding() {
+    /* 99.9% of 1000 values is exactly 999 of them */
+    Histogram h = new Histogram("rank");
+    for (int i = 0; i < 999; i++) {
+      h.record(1);
+    }
+    h.record(50);
+    Assert.assertEquals(1, h.getValueAtPercentile(99.9));
+    Assert.assertEquals(50, h.getValueAtPercentile(99.95));
+    Assert.assertEquals(1, h.getValueAtPercentile(0));
+
+    h = new Histogram("rank10000");
+    for (int i = 0; i < 9990; i++) {
+      h.record(2);
+    }
+    for (int i = 0; i < 10; i++) {
+      h.record(3);
+    }
+    Assert.assertEquals(2, h.getValueAtPercentile(99.9));
+    Assert.assertEquals(3, h.getValueAtPercentile(99.91));
+  }
+
+  /**
+   * @param sorted The values recorded, sorted
+   * @param percentile A percentile
+   * @return The value at the percentile by the nearest-rank method
+   */
+  private static long reference(long[] sorted, double percentile) {
+    int rank = (int) Math.round(Math.ceil(percentile * sorted.length / 100.0 - 1e-9));
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  private static void checkAgainstReference(long[] values) {
+    Histogram h = new Histogram("reference");
+    for (long v : values) {
+      h.record(v);
+    }
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    Assert.assertEquals(values.length, h.getCount());
+    for (double p : PERCENTILES) {
+      long expected = reference(sorted, p);
+      long actual = h.getValueAtPercentile(p);
+      /* Correct to the bucket, never below the true value, never above the maximum */
+      Assert.assertEquals(bucketOf(expected), bucketOf(actual));
+      Assert.assertTrue(actual >= expected);
+      Assert.assertTrue(actual <= sorted[sorted.length - 1]);
+    }
+  }
+
+  @Test
+  public void testSmallAgainstReference() {
+    Random random = new Random(7);
+    long[] values = new long[997];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(2 * SUB_BUCKETS);
+    }
+    checkAgainstReference(values);
+  }
+
+  @Test
+  public void testWideAgainstReference() {
+    Random random = new Random(11);
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      /* Log-uniform from nanoseconds up to seconds */
+      values[i] = (long) Math.exp(random.nextDouble() * Math.log(1e10));
+    }
+    checkAgainstReference(values);
+  }
+
+  @Test
+  public void testPausesAgainstReference() {
+    Random random = new Random(13);
+    long[] values = new long[1000];
+    for (int i = 0; i < values.length; i++) {
+      /* Mostly short pauses with a long tail */
+      values[i] = 1000000 + (long) (random.nextGaussian() * 100000);
+      if (random.nextInt(100) == 0) values[i] *= 50;
+      if (values[i] < 0) values[i] = 0;
+    }
+    checkAgainstReference(values);
+  }
+}
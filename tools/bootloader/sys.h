@@ -177,6 +177,8 @@ EXTERNAL int sysReadByte(int fd);
 EXTERNAL int sysWriteByte(int fd, int data);
 EXTERNAL int sysReadBytes(int fd, char *buf, int cnt);
 EXTERNAL int sysWriteBytes(int fd, char *buf, int cnt);
+EXTERNAL int sysOpenOutputFile(const char *path);
+EXTERNAL int sysCloseFile(int fd);
 // sysLibrary
 EXTERNAL void* sysDlopen(char *libname);
 EXTERNAL void* sysDlsym(Address libHandler, char *symbolName);
@@ -229,12 +231,14 @@ EXTERNAL void * sysMMapErrno(char *start , size_t length ,
                              int protection , int flags ,
                              int fd , Offset offset);
 EXTERNAL int sysMProtect(char *start, size_t length, int prot);
+EXTERNAL int sysMAdvise(char *start, size_t length, int advice);
 EXTERNAL void sysCopy(void *dst, const void *src, Extent cnt);
 EXTERNAL void sysMemmove(void *dst, const void *src, Extent cnt);
 EXTERNAL void sysSyncCache(void *address, size_t size);
 // sysMisc
 EXTERNAL int sysArg(int argno, char *buf, int buflen);
 EXTERNAL int sysGetenv(const char *varName, char *buf, int limit);
+EXTERNAL jlong sysReadFileValue(const char *path);
 EXTERNAL jlong sysParseMemorySize(const char *sizeName, const char *sizeFlag,
                                   const char *defaultFactor, int roundTo,
                                   const char *token, const char *subtoken);
@@ -290,6 +294,9 @@ EXTERNAL void sysCreateThreadSpecificDataKeys(void);
 EXTERNAL void sysStashVMThread(Address vmThread);
 EXTERNAL int sysThreadBindSupported();
 EXTERNAL void sysThreadBind(int cpuId);
+EXTERNAL int sysNumaNodes();
+EXTERNAL int sysNumaCurrentNode();
+EXTERNAL int sysThreadBindNode(int node);
 EXTERNAL void * sysThreadStartup(void *args);
 EXTERNAL Word sysGetThreadId();
 EXTERNAL void sysThreadTerminate();
@@ -14,6 +14,7 @@
 #include "sys.h"
 
 #include <errno.h>
+#include <fcntl.h> // open
 #include <string.h> // strerror
 #include <unistd.h> // read, close, fsync, ...
 
@@ -135,3 +136,25 @@ EXTERNAL int sysWriteBytes(int fd, char *buf, int cnt)
     }
   }
 }
+
+/**
+ * Opens a file for writing, creating it or truncating it.
+ * Taken:     name of the file
+ * Returned:  file descriptor (-1: error)
+ */
+EXTERNAL int sysOpenOutputFile(const char *path)
+{
+  TRACE_PRINTF("%s: sysOpenOutputFile %s\n", Me, path);
+  return open(path, O_WRONLY | O_CREAT | O_TRUNC, 0644);
+}
+
+/**
+ * Closes a file.
+ * Taken:     file descriptor
+ * Returned:  0 on success, -1 on error
+ */
+EXTERNAL int sysCloseFile(int fd)
+{
+  TRACE_PRINTF("%s: sysCloseFile %d\n", Me, fd);
+  return close(fd);
+}
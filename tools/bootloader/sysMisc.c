@@ -16,6 +16,7 @@
 #include <stdlib.h> // getenv
 #include <errno.h> // errno
 #include <limits.h> // UINT_MAX
+#include <stdio.h> // fopen, fscanf
 
 /**
  * Access host o/s command line arguments.
@@ -111,6 +112,26 @@ EXTERNAL int sysGetenv(const char *varName, char *buf, int limit)
   return loadResultBuf(buf, limit, getenv(varName));
 }
 
+/**
+ * Read the number at the start of a file, such as a cgroup memory limit.
+ * Taken:     PATH, the name of the file
+ * Returned:  the number, or -1 if the file cannot be read or does not
+ *            start with a number (e.g. the "max" of an unlimited cgroup)
+ */
+EXTERNAL jlong sysReadFileValue(const char *path)
+{
+  FILE *f;
+  long long value;
+  TRACE_PRINTF("%s: sysReadFileValue %s\n", Me, path);
+  f = fopen(path, "r");
+  if (f == NULL)
+    return -1;
+  if (fscanf(f, "%lld", &value) != 1)
+    value = -1;
+  fclose(f);
+  return (jlong) value;
+}
+
 /**
  * Parse memory sizes. Negative return values indicate errors.
  * Taken:     name of the memory area (one of ("initial heap", "maximum heap",
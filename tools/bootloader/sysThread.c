@@ -23,6 +23,9 @@
 #ifdef RVM_FOR_LINUX
 #  include <sys/sysinfo.h> // get_nprocs
 #  include <sys/ucontext.h>
+#  include <sys/syscall.h> // SYS_getcpu
+#  include <stdio.h> // snprintf, fopen
+#  include <unistd.h> // access, syscall
 #endif // def RVM_FOR_LINUX
 
 /** Constant to show that the newly created thread is a child */
@@ -472,6 +475,143 @@ EXTERNAL void sysThreadBind(int cpuId)
 #endif
 }
 
+#if defined(RVM_FOR_LINUX)
+/** The most NUMA nodes tracked; matches MAX_NODES in MMTk */
+#define NUMA_MAX_NODES 64
+
+/** The online node numbers, read once by numaCachedNodes */
+static int numaNodeIds[NUMA_MAX_NODES];
+/** The number of online nodes, or -1 before they have been read */
+static int numaNodeCount = -1;
+
+/**
+ * Read the numbers of the online NUMA nodes.  Node numbers need not be
+ * dense, so the rest of the system numbers nodes by their position in
+ * this list.
+ * Taken:     ids [out] the node numbers, in ascending order
+ * Returned:  the number of nodes read (0 where NUMA is not visible)
+ */
+static int numaOnlineNodes(int *ids)
+{
+  FILE *f;
+  int lo, hi, node, sep, count = 0;
+
+  f = fopen("/sys/devices/system/node/online", "r");
+  if (f == NULL)
+    return 0;
+  /* The list looks like "0-1,3" */
+  while (fscanf(f, "%d", &lo) == 1) {
+    hi = lo;
+    sep = fgetc(f);
+    if (sep == '-') {
+      if (fscanf(f, "%d", &hi) != 1)
+        break;
+      sep = fgetc(f);
+    }
+    for (node = lo; node <= hi && count < NUMA_MAX_NODES; node++)
+      ids[count++] = node;
+    if (sep != ',')
+      break;
+  }
+  fclose(f);
+  return count;
+}
+
+/**
+ * The online NUMA nodes, read from sysfs the first time they are needed.
+ * Nodes do not come and go while we run, so later calls (one for every
+ * chunk allocated) avoid reopening the file.
+ * Returned:  the number of nodes (0 where NUMA is not visible)
+ */
+static int numaCachedNodes()
+{
+  if (numaNodeCount < 0)
+    numaNodeCount = numaOnlineNodes(numaNodeIds);
+  return numaNodeCount;
+}
+#endif
+
+/**
+ * Number of online NUMA memory nodes, as listed by sysfs.
+ * Returned:  the number of nodes (1 where NUMA is not visible)
+ */
+EXTERNAL int sysNumaNodes()
+{
+  int nodes = 0;
+  TRACE_PRINTF("%s: sysNumaNodes\n", Me);
+#ifdef RVM_FOR_LINUX
+  nodes = numaCachedNodes();
+#endif
+  return nodes > 0 ? nodes : 1;
+}
+
+/**
+ * The NUMA node of the CPU the calling thread is running on.
+ * Returned:  the node, by position among the online nodes (0 where it
+ *            cannot be determined)
+ */
+EXTERNAL int sysNumaCurrentNode()
+{
+#if defined(RVM_FOR_LINUX) && defined(SYS_getcpu)
+  unsigned int cpu, node;
+  int i, nodes;
+  if (syscall(SYS_getcpu, &cpu, &node, NULL) == 0) {
+    nodes = numaCachedNodes();
+    for (i = 0; i < nodes; i++) {
+      if (numaNodeIds[i] == (int) node)
+        return i;
+    }
+  }
+#endif
+  return 0;
+}
+
+/**
+ * Bind the calling thread to the CPUs of a NUMA node.
+ * Taken:     the node, by position among the online nodes
+ * Returned:  0 (success) or -1 (failure)
+ */
+EXTERNAL int sysThreadBindNode(int node)
+{
+  TRACE_PRINTF("%s: sysThreadBindNode %d\n", Me, node);
+#if defined(RVM_FOR_LINUX) && !defined(RVM_FOR_HARMONY)
+  char path[64];
+  FILE *f;
+  cpu_set_t cpuset;
+  int lo, hi, cpu, sep, found = 0;
+
+  if (node < 0 || node >= numaCachedNodes())
+    return -1;
+  snprintf(path, sizeof(path), "/sys/devices/system/node/node%d/cpulist", numaNodeIds[node]);
+  f = fopen(path, "r");
+  if (f == NULL)
+    return -1;
+  CPU_ZERO(&cpuset);
+  /* The list looks like "0-7,16-23" */
+  while (fscanf(f, "%d", &lo) == 1) {
+    hi = lo;
+    sep = fgetc(f);
+    if (sep == '-') {
+      if (fscanf(f, "%d", &hi) != 1)
+        break;
+      sep = fgetc(f);
+    }
+    for (cpu = lo; cpu <= hi && cpu < CPU_SETSIZE; cpu++) {
+      CPU_SET(cpu, &cpuset);
+      found = 1;
+    }
+    if (sep != ',')
+      break;
+  }
+  fclose(f);
+  if (!found)
+    return -1;
+  return pthread_setaffinity_np(pthread_self(), sizeof(cpuset), &cpuset) == 0 ? 0 : -1;
+#else
+  return -1;
+#endif
+}
+
 /**
  * Function called by pthread startup
  *
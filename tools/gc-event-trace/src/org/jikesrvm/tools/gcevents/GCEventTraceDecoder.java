@@ -0,0 +1,280 @@
+/*
+ *  This file is part of the Jikes RVM project (http://jikesrvm.org).
+ *
+ *  This file is licensed to You under the Eclipse Public License (EPL);
+ *  You may not use this file except in compliance with the License. You
+ *  may obtain a copy of the License at
+ *
+ *      http://www.opensource.org/licenses/eclipse-1.0.php
+ *
+ *  See the COPYRIGHT.txt file distributed with this work for information
+ *  regarding copyright ownership.
+ */
+package org.jikesrvm.tools.gcevents;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Decodes a trace written by MMTk's <code>GCEventTrace</code>
+ * (<code>-X:gc:gcEventTraceFile=...</code>).<p>
+ *
+ * Built by <code>ant gc-event-trace</code> into
+ * <code>target/gc-event-trace/gc-event-trace.jar</code>.  Usage:
+ * <code>java -jar gc-event-trace.jar [-events] file</code><p>
+ *
+ * Prints the pause-time distribution, the pages reclaimed by each pause,
+ * the time spent in each phase, and the sizes of the RC buffers.  With
+ * <code>-events</code> every event is also listed in time order.
+ */
+public final class GCEventTraceDecoder {
+
+  /* These must match org.mmtk.utility.statistics.GCEventTrace */
+  private static final int MAGIC = 0x4d4d5445;
+  private static final int VERSION = 1;
+  private static final int PHASE_BEGIN = 1;
+  private static final int PHASE_END = 2;
+  private static final int PAUSE_BEGIN = 3;
+  private static final int PAUSE_END = 4;
+  private static final int CONCURRENT_BEGIN = 5;
+  private static final int CONCURRENT_END = 6;
+  private static final int MOD_BUFFER = 7;
+  private static final int DEC_BUFFER = 8;
+
+  private static final String[] TYPE_NAMES = {
+    "?", "phase-begin", "phase-end", "pause-begin", "pause-end",
+    "concurrent-begin", "concurrent-end", "mod-buffer", "dec-buffer"
+  };
+
+  /** A decoded event */
+  static final class Event {
+    final int ring;
+    final long time;
+    final int type;
+    final int id;
+    final int value;
+
+    Event(int ring, long time, int typeId, int value) {
+      this.ring = ring;
+      this.time = time;
+      this.type = typeId >>> 24;
+      this.id = typeId & 0xFFFFFF;
+      this.value = value;
+    }
+  }
+
+  private String[] phaseNames;
+  private final List<Event> events = new ArrayList<Event>();
+  private long dropped = 0;
+
+  /**
+   * Read a trace file.
+   *
+   * @param file The file name
+   * @throws IOException if the file cannot be read or is not a trace
+   */
+  void read(String file) throws IOException {
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    byte[] bytes;
+    try {
+      bytes = new byte[(int) new File(file).length()];
+      in.readFully(bytes);
+    } finally {
+      in.close();
+    }
+    ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    if (buf.getInt(0) != MAGIC) {
+      buf.order(ByteOrder.BIG_ENDIAN);
+      if (buf.getInt(0) != MAGIC) throw new IOException(file + " is not a GC event trace");
+    }
+    buf.getInt();
+    int version = buf.getInt();
+    if (version != VERSION) throw new IOException("Unsupported trace version " + version);
+    int entrySize = buf.getInt();
+    int rings = buf.getInt();
+    int phases = buf.getInt();
+    phaseNames = new String[phases];
+    phaseNames[0] = "?";
+    for (int p = 1; p < phases; p++) {
+      byte[] name = new byte[buf.getInt()];
+      buf.get(name);
+      phaseNames[p] = new String(name, "US-ASCII");
+      buf.position((buf.position() + 3) & ~3);
+    }
+    for (int r = 0; r < rings; r++) {
+      int index = buf.getInt();
+      int entries = buf.getInt();
+      long recorded = ((long) buf.getInt() << 32) | (buf.getInt() & 0xFFFFFFFFL);
+      dropped += recorded - entries;
+      for (int e = 0; e < entries; e++) {
+        int start = buf.position();
+        long time = buf.getLong();
+        int typeId = buf.getInt();
+        int value = buf.getInt();
+        events.add(new Event(index, time, typeId, value));
+        buf.position(start + entrySize);
+      }
+    }
+    Collections.sort(events, new Comparator<Event>() {
+      public int compare(Event a, Event b) {
+        return a.time < b.time ? -1 : (a.time == b.time ? 0 : 1);
+      }
+    });
+  }
+
+  /**
+   * @return The events read, in time order
+   */
+  List<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * @return The number of events overwritten before the trace was written
+   */
+  long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * @param id A phase id
+   * @return The name of the phase
+   */
+  String getPhaseName(int id) {
+    return phaseNames[id];
+  }
+
+  private String describe(Event e) {
+    switch (e.type) {
+      case PHASE_BEGIN: case PHASE_END:
+      case CONCURRENT_BEGIN: case CONCURRENT_END:
+        return e.id < phaseNames.length ? phaseNames[e.id] : Integer.toString(e.id);
+      default:
+        return "gc " + e.id;
+    }
+  }
+
+  private void printEvents(PrintStream out) {
+    long origin = events.isEmpty() ? 0 : events.get(0).time;
+    for (Event e : events) {
+      out.printf("%14.3f us  ring %3d  %-16s %-24s %d%n", (e.time - origin) / 1000.0, e.ring,
+          e.type < TYPE_NAMES.length ? TYPE_NAMES[e.type] : "?", describe(e), e.value);
+    }
+  }
+
+  /**
+   * @param sorted Sorted values
+   * @param p A percentile
+   * @return The value at the percentile
+   */
+  private static long percentile(long[] sorted, double p) {
+    int rank = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+  }
+
+  private void printSummary(PrintStream out) {
+    List<Long> pauses = new ArrayList<Long>();
+    long reclaimedPages = 0;
+    Event pauseBegin = null;
+    Map<String, long[]> phaseTimes = new TreeMap<String, long[]>();
+    Map<Integer, Event> openPhase = new TreeMap<Integer, Event>();
+    long modPages = 0, decPages = 0;
+    int modCount = 0, decCount = 0;
+
+    for (Event e : events) {
+      switch (e.type) {
+        case PAUSE_BEGIN:
+          pauseBegin = e;
+          break;
+        case PAUSE_END:
+          if (pauseBegin != null) {
+            pauses.add(e.time - pauseBegin.time);
+            reclaimedPages += Math.max(0, pauseBegin.value - e.value);
+            pauseBegin = null;
+          }
+          break;
+        case PHASE_BEGIN:
+        case CONCURRENT_BEGIN:
+          openPhase.put(e.ring, e);
+          break;
+        case PHASE_END:
+        case CONCURRENT_END: {
+          Event begin = openPhase.remove(e.ring);
+          if (begin != null && begin.id == e.id) {
+            String name = describe(e) + (e.type == CONCURRENT_END ? " (concurrent)" : "");
+            long[] t = phaseTimes.get(name);
+            if (t == null) phaseTimes.put(name, t = new long[2]);
+            t[0]++;
+            t[1] += e.time - begin.time;
+          }
+          break;
+        }
+        case MOD_BUFFER:
+          modPages += e.value;
+          modCount++;
+          break;
+        case DEC_BUFFER:
+          decPages += e.value;
+          decCount++;
+          break;
+      }
+    }
+
+    out.printf("%d events (%d overwritten)%n", events.size(), dropped);
+    if (!pauses.isEmpty()) {
+      long[] sorted = new long[pauses.size()];
+      long total = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = pauses.get(i);
+        total += sorted[i];
+      }
+      Arrays.sort(sorted);
+      out.printf("Pauses: %d, total %.3f ms, mean %.3f ms%n", sorted.length, total / 1e6, total / 1e6 / sorted.length);
+      out.printf("  min %.3f  p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f ms%n",
+          sorted[0] / 1e6, percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6,
+          percentile(sorted, 99) / 1e6, percentile(sorted, 99.9) / 1e6, sorted[sorted.length - 1] / 1e6);
+      out.printf("  pages reclaimed during pauses: %d%n", reclaimedPages);
+    }
+    if (!phaseTimes.isEmpty()) {
+      out.println("Phases (summed over collectors):");
+      for (Map.Entry<String, long[]> entry : phaseTimes.entrySet()) {
+        long[] t = entry.getValue();
+        out.printf("  %-32s %8d x  %12.3f ms%n", entry.getKey(), t[0], t[1] / 1e6);
+      }
+    }
+    if (modCount > 0) out.printf("Mod buffer: mean %.1f pages over %d pauses%n", (double) modPages / modCount, modCount);
+    if (decCount > 0) out.printf("Dec buffer: mean %.1f pages over %d pauses%n", (double) decPages / decCount, decCount);
+  }
+
+  public static void main(String[] args) throws IOException {
+    boolean listEvents = false;
+    String file = null;
+    for (String arg : args) {
+      if (arg.equals("-events")) {
+        listEvents = true;
+      } else {
+        file = arg;
+      }
+    }
+    if (file == null) {
+      System.err.println("Usage: GCEventTraceDecoder [-events] file");
+      System.exit(1);
+    }
+    GCEventTraceDecoder decoder = new GCEventTraceDecoder();
+    decoder.read(file);
+    if (listEvents) decoder.printEvents(System.out);
+    decoder.printSummary(System.out);
+  }
+}